@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps track of dormant entities: entities that have nothing meaningful to do until a later
+ * step, such as a grouse sleeping through the night. A dormant entity is taken out of the
+ * per-step act loop and parked in a timing wheel until its wake-up step. While it sleeps it
+ * stays resident on its cell, and the scheduler is shared by every field state, so dormant
+ * entities do not need to be re-placed into each new field and cost nothing per step.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class ActivityScheduler {
+    /**
+     * A dormant entity together with the cell it is sleeping on.
+     */
+    private record Sleeper(Entity entity, Location location) {}
+
+    private final TimingWheel<Sleeper> wheel; // Dormant entities by wake-up step.
+    private final Map<Location, Entity> dormant = new HashMap<>(); // Dormant entities by location.
+    private long hash; // Zobrist hash of the living dormant entities.
+    private final int[] population = new int[Field.ANIMAL_SPECIES]; // Living dormant entities, by species.
+
+    /**
+     * Create a scheduler with no dormant entities.
+     */
+    public ActivityScheduler() {
+        this(new TimingWheel<>());
+    }
+
+    /**
+     * Create a scheduler around a timing wheel of dormant entities.
+     */
+    private ActivityScheduler(TimingWheel<Sleeper> wheel) {
+        this.wheel = wheel;
+    }
+
+    /**
+     * Put an entity to sleep on its current cell until the given step.
+     * @param anEntity The entity to put to sleep.
+     * @param wakeStep The step at which the entity next needs to act.
+     */
+    public void sleep(Entity anEntity, int wakeStep) {
+        Entity previous = dormant.put(anEntity.getLocation(), anEntity);
+        if (previous != null && previous.isAlive()) {
+            account(previous, anEntity.getLocation(), -1);
+        }
+        account(anEntity, anEntity.getLocation(), 1);
+        wheel.schedule(new Sleeper(anEntity, anEntity.getLocation()), wakeStep);
+    }
+
+    /**
+     * Advance to the next step and wake every entity that is due to act at that step.
+     * Entities that died while they slept (for example by being eaten) are discarded.
+     * @param woken Receives the living entities that have woken up.
+     * @return The step the scheduler has advanced to.
+     */
+    public int wake(List<Entity> woken) {
+        return (int) wheel.advance(sleeper -> {
+            Entity anEntity = sleeper.entity();
+            if (dormant.get(sleeper.location()) == anEntity) {
+                dormant.remove(sleeper.location());
+                if (anEntity.isAlive()) {
+                    account(anEntity, sleeper.location(), -1); // A dead entity was already taken out of the hash.
+                }
+            }
+            if (anEntity.isAlive()) {
+                woken.add(anEntity);
+            }
+        });
+    }
+
+    /**
+     * Takes an entity that is dying out of the hash and population of the dormant entities, if it
+     * is asleep. It stays in the timing wheel, dead, and is discarded when it is due to wake.
+     * @param anEntity The entity that is dying, which must still be alive.
+     * @param location The location the entity is dying at.
+     */
+    public void removeEntity(Entity anEntity, Location location) {
+        if (location != null && dormant.get(location) == anEntity) {
+            account(anEntity, location, -1);
+        }
+    }
+
+    /**
+     * Add a dormant entity to, or take it out of, the hash and population.
+     */
+    private void account(Entity anEntity, Location location, int sign) {
+        if (anEntity instanceof Animal animal) {
+            hash ^= Zobrist.animalKey(animal, location);
+            population[EventBus.speciesId(animal.getClass())] += sign;
+        }
+    }
+
+    /**
+     * Returns a copy of the scheduler holding a replacement for each of its dormant entities, due
+     * to wake at the same step on the same cell.
+     * @param replacement Returns the entity to hold in the copy in place of an entity of this scheduler.
+     * @return The copy.
+     */
+    public ActivityScheduler copy(UnaryOperator<Entity> replacement) {
+        ActivityScheduler copy = new ActivityScheduler(wheel.copy(sleeper ->
+                new Sleeper(replacement.apply(sleeper.entity()), sleeper.location())));
+        dormant.forEach((location, anEntity) -> copy.dormant.put(location, replacement.apply(anEntity)));
+        copy.hash = hash;
+        System.arraycopy(population, 0, copy.population, 0, population.length);
+        return copy;
+    }
+
+    /**
+     * Returns the Zobrist hash of the living dormant entities.
+     * @return The exclusive or of the keys of the living dormant entities.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the number of living dormant animals of a species.
+     * @param species The species, numbered as in {@link EventBus#speciesId}.
+     * @return The number of living dormant animals of the species.
+     */
+    public int getPopulation(int species) {
+        return population[species];
+    }
+
+    /**
+     * Returns the living dormant entity at a location.
+     * @param location The location to check.
+     * @return The dormant entity at the location, or {@code null} if there is none.
+     */
+    public Entity getDormantAt(Location location) {
+        Entity anEntity = dormant.get(location);
+        return anEntity != null && anEntity.isAlive() ? anEntity : null;
+    }
+
+    /**
+     * Returns every entity currently sleeping on the field. Some may have died while asleep.
+     * @return The dormant entities.
+     */
+    public Collection<Entity> getDormantEntities() {
+        return dormant.values();
+    }
+
+    /**
+     * Returns the number of entities waiting to wake up.
+     * @return The number of dormant entities.
+     */
+    public int size() {
+        return wheel.size();
+    }
+
+    /**
+     * Wake nothing and forget every dormant entity, starting again from step 0.
+     */
+    public void clear() {
+        wheel.clear(0);
+        dormant.clear();
+        hash = 0;
+        Arrays.fill(population, 0);
+    }
+}
@@ -1,6 +1,7 @@
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 /**
@@ -17,15 +18,22 @@ public class Animal extends Entity {
     protected double BREEDING_PROBABILITY; // The likelihood of breeding in a given step (0.0 - 1.0).
     protected int MAX_LITTER_SIZE; // The maximum number of offspring in a single birth.
     protected HashMap<String, Integer> FOOD_SOURCES; // Map of food source names to their nutritional values.
-    protected static final Random rand = Randomizer.getRandom(); // Random number generator for the simulation.
+    protected int VISION_RADIUS = 1; // How far away the animal can see food and move towards it.
+    protected boolean PURSUES; // Whether the animal chases the nearest of its food across the field.
+    protected Random rand; // Random number generator of the animal's simulation.
     protected final Class<? extends Animal> SPECIES; // The specific species of this animal.
     protected Gender gender; // The gender of the animal (MALE or FEMALE).
 
-    protected int age; // The current age of the animal (in simulation steps).
-    protected int foodLevel; // The current food level of the animal.
+    // Age, hunger and infection are not counted step by step. They are derived on demand from the
+    // steps at which the animal was born, last ate and was infected, and the resulting deaths are
+    // scheduled in the simulator's death queue.
+    private int birthStep; // The step at which the animal had an age of 0.
+    private int lastMealStep; // The step at which the animal last ate (or was created).
+    private int lastMealFoodLevel; // The animal's food level right after its last meal.
+    private int scheduledDeathStep = Integer.MAX_VALUE; // The step the animal is queued to check its death at.
 
     protected Disease disease;  // The disease the animal is infected with
-    protected int timeInfected; // Number of steps the animal has been infected
+    private int infectionStep; // The step at which the animal was infected
 
     /**
      * Constructor for the Animal class. Creates a new animal with the specified parameters,
@@ -42,6 +50,7 @@ public class Animal extends Entity {
      * @param gender The animal's gender.
      * @param simulator The simulator instance managing this animal.
      */
+    @SuppressWarnings("this-escape") // The death queue only holds the new animal until its death check falls due.
     public Animal(boolean randomAge,
                   Location location,
                   int breedingAge,
@@ -55,6 +64,7 @@ public class Animal extends Entity {
 
     ) {
         super(location, simulator);
+        this.rand = simulator.getRandom();
 
         this.BREEDING_AGE = breedingAge;
         this.MAX_AGE = maxAge;
@@ -64,17 +74,68 @@ public class Animal extends Entity {
         this.SPECIES = species;
         this.gender = gender;
 
+        int step = simulator.getStep();
         if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
+            birthStep = step - rand.nextInt(MAX_AGE);
         }
         else {
-            age = 0;
+            birthStep = step;
         }
 
         // Initialise food level based on food sources.
-        this.foodLevel = 0;
+        this.lastMealStep = step;
+        this.lastMealFoodLevel = 0;
         if (FOOD_SOURCES != null && !FOOD_SOURCES.isEmpty()) {
-            this.foodLevel = FOOD_SOURCES.values().iterator().next(); // Get the first food source's value.
+            this.lastMealFoodLevel = FOOD_SOURCES.values().iterator().next(); // Get the first food source's value.
+        }
+        scheduleDeath();
+    }
+
+    /**
+     * Creates a new animal with the breeding, age, litter, vision, pursuit and food parameters of its species.
+     * @param randomAge If true, the animal's age is randomly set; otherwise, it starts at 0.
+     * @param location The animal's initial location on the field.
+     * @param parameters The parameters of the animal's species.
+     * @param species The Class object representing the animal's species.
+     * @param gender The animal's gender.
+     * @param simulator The simulator instance managing this animal.
+     */
+    public Animal(boolean randomAge, Location location, SpeciesParameters parameters,
+                  Class<? extends Animal> species, Gender gender, Simulator simulator) {
+        this(randomAge, location, parameters.breedingAge(), parameters.maxAge(), parameters.breedingProbability(),
+                parameters.maxLitterSize(), parameters.foodSources(), species, gender, simulator);
+        this.VISION_RADIUS = parameters.visionRadius();
+        this.PURSUES = parameters.pursues();
+    }
+
+    /**
+     * Returns a copy of this animal for a forked simulation, drawing on that simulation's random numbers.
+     * @param simulator The simulator the copy is part of.
+     * @return The copy.
+     */
+    @Override
+    protected Animal copyFor(Simulator simulator) {
+        Animal copy = (Animal) super.copyFor(simulator);
+        copy.rand = simulator.getRandom();
+        return copy;
+    }
+
+    /**
+     * Give the animal new breeding, age, litter, vision, pursuit and food parameters, for a
+     * simulation forked with other parameters. If its natural death has come closer, the check of
+     * it is brought forward.
+     * @param parameters The new parameters of the animal's species.
+     */
+    protected void setParameters(SpeciesParameters parameters) {
+        BREEDING_AGE = parameters.breedingAge();
+        MAX_AGE = parameters.maxAge();
+        BREEDING_PROBABILITY = parameters.breedingProbability();
+        MAX_LITTER_SIZE = parameters.maxLitterSize();
+        FOOD_SOURCES = parameters.foodSources();
+        VISION_RADIUS = parameters.visionRadius();
+        PURSUES = parameters.pursues();
+        if (isAlive()) {
+            scheduleDeath();
         }
     }
 
@@ -87,38 +148,32 @@ public class Animal extends Entity {
     }
 
     /**
-     * Simulates one step of the animal's actions.  This includes incrementing age, decreasing food level,
-     * potentially giving birth, finding food, moving, and possibly dying (either from hunger, old age, or
-     * if it cannot move).
+     * Simulates one step of the animal's actions.  This includes spreading disease, potentially giving
+     * birth, finding food, moving, and possibly dying if it cannot move. Deaths from hunger, old age
+     * and disease are handled by the death queue before the animal acts.
      * @param currentField The current state of the simulation field.
      * @param nextFieldState The field representing the next state of the simulation, being built up.
      */
     protected void act(Field currentField, Field nextFieldState) {
-        incrementAge();
-
-        handleDisease(); // Handle disease progression or death
         if (!isAlive()) return; //Don't act if the animal is already dead
 
+        StepProfiler profiler = simulator.getProfiler();
+        long start = profiler.start();
         spreadDisease(currentField); // Attempt to spread disease
-
-        if (!FOOD_SOURCES.isEmpty()) {
-            decreaseFoodLevel();
-        }
-
-        if(!isAlive()) {
-            return; // Don't act if the animal is already dead.
-        }
+        profiler.stop(StepProfiler.Phase.DISEASE, start);
 
         List<Location> freeLocations =
                 nextFieldState.getFreeAdjacentLocations(getLocation());
         if(! freeLocations.isEmpty()) {
+            start = profiler.start();
             giveBirth(nextFieldState, freeLocations, currentField); // Pass currentField for breeding checks
+            profiler.stop(StepProfiler.Phase.BIRTHS, start);
         }
         // Move towards a source of food if found.
         Location nextLocation = findFood(currentField);
         if(nextLocation == null && ! freeLocations.isEmpty()) {
-            // No food found - try to move to a free location.
-            nextLocation = freeLocations.remove(0);
+            // No food found - try to move to a free location, towards food if there is any in sight.
+            nextLocation = chooseMove(freeLocations);
         }
         // See if it was possible to move.
         if(nextLocation != null) {
@@ -126,8 +181,29 @@ public class Animal extends Entity {
             nextFieldState.placeEntity(this, nextLocation);
         } else {
             // Could not move (no free locations and no food found).
-            setDead();
+            die(EventBus.Cause.OVERCROWDING);
+        }
+    }
+
+    /**
+     * Go dormant until the given step, staying on the current cell. An animal that acted earlier
+     * in the step may already have moved onto the cell in the next field state, since the cell
+     * was free there; the two must not share it, so the dormant animal moves to a free adjacent
+     * cell instead, or dies of overcrowding if there is none, as an awake animal would.
+     * @param nextFieldState The field representing the next state of the simulation, being built up.
+     * @param step The step at which the animal next needs to act.
+     */
+    protected void sleepInPlace(Field nextFieldState, int step) {
+        Entity occupant = nextFieldState.getEntityAt(getLocation());
+        if (occupant != null && occupant != this && occupant.isAlive()) {
+            List<Location> freeLocations = nextFieldState.getFreeAdjacentLocations(getLocation());
+            if (freeLocations.isEmpty()) {
+                die(EventBus.Cause.OVERCROWDING);
+                return;
+            }
+            setLocation(freeLocations.get(0));
         }
+        sleepUntil(step);
     }
 
     /**
@@ -137,15 +213,20 @@ public class Animal extends Entity {
      * @param newDisease The disease to infect the animal with
      */
     public void infect(Disease newDisease) {
+        recoverIfCured();
         if (disease == null) {  // Only get infected if currently healthy
             this.disease = newDisease;
-            this.timeInfected = 0;
+            this.infectionStep = simulator.getStep();
+            publish(EventBus.Kind.INFECTION, 0, simulator.getStep());
+            scheduleDeath(); // A lethal disease may bring the animal's death forward
         }
     }
 
 
     /**
-     * Get the current disease affecting this animal, if any.
+     * Get the disease this animal was last infected with, if it has not yet recovered from it.
+     * An animal recovers when it next acts or is infected after being cured, so the disease may
+     * already be cured; see {@link #getCurrentDisease()}.
      *
      * @return The disease object, or null if the animal is healthy
      */
@@ -154,24 +235,128 @@ public class Animal extends Entity {
     }
 
     /**
-     * Handles disease progression, recovery, or death on each time step.
-     * This method should be called during each step of the simulation
-     * to update the animal's disease state.
+     * Returns the disease the animal is infected with, leaving out a disease it has been infected
+     * with long enough to be cured of. Looking at it changes nothing.
+     * @return The disease object, or null if the animal is healthy or has been infected long enough to be cured
      */
-    protected void handleDisease() {
-        if (disease != null) {
-            timeInfected++;
+    public Disease getCurrentDisease() {
+        return disease != null && !disease.isCured(getTimeInfected()) ? disease : null;
+    }
 
-            // Check if the animal recovers
-            if (disease.isCured(timeInfected)) {
-                disease = null; // The animal recovers
-                return;
-            }
+    /**
+     * Recover the animal, publishing the recovery, if it has been infected long enough to be cured.
+     */
+    private void recoverIfCured() {
+        if (disease != null && disease.isCured(getTimeInfected())) {
+            publish(EventBus.Kind.RECOVERY, 0, infectionStep + disease.infectionDuration);
+            disease = null; // The animal has recovered
+        }
+    }
 
-            // If the disease is lethal and the duration is reached, the animal dies
-            if (disease.isLethal() && timeInfected >= disease.infectionDuration) {
-                setDead();
-            }
+    /**
+     * Returns the number of steps the animal has been infected with its current disease.
+     * @return The number of steps since the animal was infected.
+     */
+    public int getTimeInfected() {
+        return simulator.getStep() - infectionStep;
+    }
+
+    /**
+     * Returns the current age of the animal.
+     * @return The age of the animal in simulation steps.
+     */
+    public int getAge() {
+        return simulator.getStep() - birthStep;
+    }
+
+    /**
+     * Returns the current food level of the animal.
+     * @return The food level, which falls by one every step since the animal last ate.
+     */
+    public int getFoodLevel() {
+        return lastMealFoodLevel - (simulator.getStep() - lastMealStep);
+    }
+
+    /**
+     * Returns the step at which the animal will die of old age, starvation or a lethal disease
+     * if nothing else happens to it first.
+     * @return The step of the animal's natural death.
+     */
+    private int getNaturalDeathStep() {
+        int deathStep = birthStep + MAX_AGE + 1; // The animal dies once it exceeds its maximum age.
+        if (!FOOD_SOURCES.isEmpty()) {
+            deathStep = Math.min(deathStep, lastMealStep + lastMealFoodLevel); // The animal starves when its food runs out.
+        }
+        if (disease != null && disease.isLethal() && !disease.isCured(disease.infectionDuration)) {
+            deathStep = Math.min(deathStep, infectionStep + disease.infectionDuration); // The disease kills the animal.
+        }
+        return deathStep;
+    }
+
+    /**
+     * Queue a check of the animal's natural death, if its death step has come closer than the
+     * check that is already queued. A death step that moves further away (for example because the
+     * animal has eaten) is picked up when the earlier check falls due.
+     */
+    private void scheduleDeath() {
+        int deathStep = Math.max(getNaturalDeathStep(), simulator.getStep() + 1);
+        if (deathStep < scheduledDeathStep) {
+            scheduledDeathStep = deathStep;
+            simulator.getDeathQueue().schedule(this, deathStep);
+        }
+    }
+
+    /**
+     * Called by the death queue when a queued death check falls due. The animal dies if its
+     * natural death step has been reached; otherwise the check is queued again for the new step.
+     */
+    protected void checkNaturalDeath() {
+        int step = simulator.getStep();
+        if (!isAlive() || step != scheduledDeathStep) {
+            return; // The animal is already dead, or this check has been superseded by an earlier one.
+        }
+        scheduledDeathStep = Integer.MAX_VALUE;
+        if (getNaturalDeathStep() <= step) {
+            die(naturalCauseOfDeath(step)); // The animal dies of old age, starvation or disease.
+        } else {
+            scheduleDeath();
+        }
+    }
+
+    /**
+     * Returns the cause of a natural death falling due at the given step.
+     * @param step The step of the death.
+     * @return Old age, starvation or disease.
+     */
+    private EventBus.Cause naturalCauseOfDeath(int step) {
+        if (getAge() > MAX_AGE) {
+            return EventBus.Cause.AGE;
+        }
+        if (!FOOD_SOURCES.isEmpty() && lastMealStep + lastMealFoodLevel <= step) {
+            return EventBus.Cause.STARVATION;
+        }
+        return EventBus.Cause.DISEASE;
+    }
+
+    /**
+     * Kill the animal and report its death on the simulation's event bus.
+     * @param cause The cause of death.
+     */
+    protected void die(EventBus.Cause cause) {
+        publish(EventBus.Kind.DEATH, cause.ordinal(), simulator.getStep());
+        setDead();
+    }
+
+    /**
+     * Report something that happened to the living animal, at its current location, on the simulation's event bus.
+     * @param kind The kind of event.
+     * @param detail The cause of a death, the species eaten in a predation, and otherwise 0.
+     * @param step The step the event happened at.
+     */
+    private void publish(EventBus.Kind kind, int detail, int step) {
+        EventBus events = simulator.getEvents();
+        if (events.hasConsumers() && isAlive()) { // Dead animals can still be found on the old field state.
+            events.publish(kind, step, getClass(), detail, getLocation());
         }
     }
 
@@ -182,11 +367,12 @@ public class Animal extends Entity {
      * @param field The field containing this animal and potential infection targets
      */
     protected void spreadDisease(Field field) {
+        recoverIfCured();
         if (disease != null) {
             for (Location loc : field.getAdjacentLocations(getLocation())) {
                 Entity entity = field.getEntityAt(loc);
-                if (entity instanceof Animal otherAnimal && otherAnimal.disease == null) {
-                    if (disease.spreads()) {
+                if (entity instanceof Animal otherAnimal && otherAnimal.getCurrentDisease() == null) {
+                    if (disease.spreads(rand)) {
                         otherAnimal.infect(disease);
                     }
                 }
@@ -195,27 +381,6 @@ public class Animal extends Entity {
     }
 
 
-    /**
-     * Increments the animal's age by one simulation step. If the animal exceeds its maximum age, it dies.
-     */
-    protected void incrementAge() {
-        age++;
-        if(age > MAX_AGE) {
-            setDead(); // The animal dies of old age.
-        }
-    }
-
-    /**
-     * Decreases the animal's food level, simulating hunger. If the food level reaches zero or below,
-     * the animal dies of starvation.
-     */
-    protected void decreaseFoodLevel() {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead(); // The animal dies of starvation.
-        }
-    }
-
     /**
      * Searches for food in adjacent locations. The animal will consume the first valid food source found,
      * increasing its food level accordingly. Includes logic to potentially avoid eating
@@ -233,8 +398,10 @@ public class Animal extends Entity {
         while(foodLocation == null && it.hasNext()) { // Iterate through adjacent locations until food is found or all locations are checked.
             Location loc = it.next();
             Entity entity = field.getEntityAt(loc); // Gets the entity at the current location.
+            Plant plant = entity == null ? field.getPlantAt(loc) : null; // Only forage on plants that no animal is standing on.
+            String occupant = entity != null ? entity.getClass().getSimpleName() : plant != null ? plant.getName() : null;
             for(String foodSource : FOOD_SOURCES.keySet()) { // Iterate through the animal's food sources.
-                if(entity != null && foodSource.equals(entity.getClass().getSimpleName())) { // Check that the entity exists and can be eaten.
+                if(occupant != null && foodSource.equals(occupant)) { // Check that something is there and can be eaten.
                     boolean shouldEat = true; // Flag to indicate if the animal should eat.
 
                     if (entity instanceof Animal targetAnimal) { // Check if target is an animal
@@ -245,17 +412,25 @@ public class Animal extends Entity {
                             shouldEat = rand.nextDouble() < 0.05; // Only eat 5% of the time
                         }
                     }
-                    else if (entity instanceof Plant targetPlant) { // Check if target is a plant
+                    else if (plant != null) { // Check if target is a plant
                         // Check plant population
-                        int plantCount = field.getPlantCount(targetPlant.getClass());
+                        int plantCount = field.getPlantCount(plant.getClass());
                         if (plantCount < 5) { // If population is small
                             shouldEat = rand.nextDouble() < 0.05; // Only eat 5% of the time
                         }
                     }
 
                     if (shouldEat) { // If the animal should eat
-                        entity.setDead(); // Kill the target entity
-                        foodLevel = FOOD_SOURCES.get(foodSource); // Increase food level
+                        if (entity instanceof Animal prey && prey.isAlive()) {
+                            publish(EventBus.Kind.PREDATION, EventBus.speciesId(prey.getClass()), simulator.getStep());
+                            prey.die(EventBus.Cause.PREDATION); // Kill the target animal
+                        } else if (entity != null) {
+                            entity.setDead(); // Kill the target entity
+                        } else {
+                            field.getPlants().removePlant(loc); // Eat the target plant
+                        }
+                        lastMealStep = simulator.getStep(); // Increase food level
+                        lastMealFoodLevel = FOOD_SOURCES.get(foodSource);
                         foodLocation = loc; // Remember the location of the food
                         break; // Stop searching after finding the first food source.
                     }
@@ -265,6 +440,90 @@ public class Animal extends Entity {
         return foodLocation; // Returns location of food.
     }
 
+    /**
+     * Chooses a free adjacent location to move to when no food was found next to the animal. An
+     * animal that pursues its food follows the simulation's flow fields towards the nearest of it
+     * anywhere on the field. Otherwise, or if none of its food is left, an animal that can see
+     * further than its adjacent cells heads towards the side of its vision square holding the most
+     * food. Failing both, it moves at random.
+     * @param freeLocations The free adjacent locations, in random order. The chosen one is removed.
+     * @return The location to move to.
+     */
+    protected Location chooseMove(List<Location> freeLocations) {
+        Location move = null;
+        if (PURSUES && !FOOD_SOURCES.isEmpty() && simulator.getFlowField() != null) {
+            move = pursue(simulator.getFlowField(), freeLocations);
+        }
+        if (move == null && VISION_RADIUS > 1 && !FOOD_SOURCES.isEmpty()) {
+            move = lookForFood(simulator.getFoodDensity(), freeLocations);
+        }
+        return move != null ? move : freeLocations.remove(0);
+    }
+
+    /**
+     * Choose the free adjacent location that leads towards the nearest of the animal's food. The
+     * flow fields give the next move of a shortest path in constant time; if another animal is in
+     * the way, any free adjacent location closer to the food will do.
+     * @param flow The flow fields of the simulation.
+     * @param freeLocations The free adjacent locations. The chosen one is removed.
+     * @return The location to move to, or null if no food can be reached or no free location leads closer to it.
+     */
+    private Location pursue(FlowField flow, List<Location> freeLocations) {
+        Location here = getLocation();
+        int nearest = -1, nearestDistance = FlowField.UNREACHABLE; // The closest food species and its distance.
+        for (String food : FOOD_SOURCES.keySet()) {
+            int species = simulator.getSpeciesIndex(food);
+            if (flow.hasSpecies(species) && flow.getDistance(species, here) < nearestDistance) {
+                nearest = species;
+                nearestDistance = flow.getDistance(species, here);
+            }
+        }
+        if (nearest < 0) {
+            return null;
+        }
+        Location hop = flow.getNextHop(nearest, here);
+        if (hop != null && freeLocations.remove(hop)) {
+            return hop;
+        }
+        for (int i = 0; i < freeLocations.size(); i++) {
+            if (flow.getDistance(nearest, freeLocations.get(i)) < nearestDistance) {
+                return freeLocations.remove(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Choose the free adjacent location on the side of the animal's vision square holding the most
+     * food, weighing each food source by its nutritional value. The simulation's food density
+     * tables answer each look in constant time, whatever the radius.
+     * @param density The food density tables of the simulation.
+     * @param freeLocations The free adjacent locations. The chosen one is removed.
+     * @return The location to move to, or null if no food is in sight or no free location leads towards it.
+     */
+    private Location lookForFood(FoodDensity density, List<Location> freeLocations) {
+        Location here = getLocation();
+        long rowPull = 0, colPull = 0; // How strongly food draws the animal down and to the right.
+        for (Map.Entry<String, Integer> food : FOOD_SOURCES.entrySet()) {
+            int species = simulator.getSpeciesIndex(food.getKey());
+            if (species >= 0) {
+                rowPull += (long) food.getValue() * density.rowBalance(species, here, VISION_RADIUS);
+                colPull += (long) food.getValue() * density.colBalance(species, here, VISION_RADIUS);
+            }
+        }
+        int rowStep = Long.signum(rowPull), colStep = Long.signum(colPull);
+        int best = -1, bestScore = 0;
+        for (int i = 0; i < freeLocations.size(); i++) {
+            Location loc = freeLocations.get(i);
+            int score = rowStep * (loc.row() - here.row()) + colStep * (loc.col() - here.col());
+            if (score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best >= 0 ? freeLocations.remove(best) : null;
+    }
+
     /**
      * Attempts to give birth to new animals of the same species. Births occur in free adjacent
      * locations, up to the maximum litter size, and are dependent on the result of the `breed` method.
@@ -279,8 +538,9 @@ public class Animal extends Entity {
                 Location loc = freeLocations.remove(0);
                 try {
                     Animal young = SPECIES.getDeclaredConstructor(boolean.class, Location.class, Gender.class, Simulator.class) // Add Gender to constructor call
-                            .newInstance(false, loc, Gender.getRandomGender(), simulator); // Pass random gender
+                            .newInstance(false, loc, Gender.getRandomGender(rand), simulator); // Pass random gender
                     nextFieldState.placeEntity(young, loc);
+                    young.publish(EventBus.Kind.BIRTH, 0, simulator.getStep());
                 } catch (Exception e) {
                     System.err.println("Failed to create new " + SPECIES.getSimpleName());
                     System.out.println(e.getMessage());
@@ -310,7 +570,7 @@ public class Animal extends Entity {
      * @return `true` if the animal can breed, `false` otherwise.
      */
     protected boolean canBreed(Field field) {
-        if (age >= BREEDING_AGE) {
+        if (getAge() >= BREEDING_AGE) {
             List<Location> adjacentLocations = field.getAdjacentLocations(getLocation());
             for (Location loc : adjacentLocations) {
                 Entity neighbor = field.getEntityAt(loc);
@@ -15,12 +15,11 @@ public class Berries extends Plant {
     private static final int SPREAD_RATE = 1; // The rate at which the plant spreads.
     private static final int GROWTH_START_HOUR = 18; // The hour when the plant starts growing (6 PM).
     private static final int GROWTH_END_HOUR = 6; // The hour when the plant stops growing (6 AM).
-    private static final int GROWTH_STAGE = 0; // The initial growth stage of the plant.
 
 
-    // Constructor that initializes the Berries plant with its characteristics and environment.
-    public Berries(Location location, Simulator simulator, Time time) {
-        super(NAME, GROWTH_RATE, REPRODUCTION_RATE, LIFE_SPAN, SPREAD_RATE, GROWTH_START_HOUR, GROWTH_END_HOUR, GROWTH_STAGE, location, simulator, time, Berries.class);
+    // Constructor that initializes the Berries species with its characteristics and environment.
+    public Berries(Simulator simulator) {
+        super(NAME, GROWTH_RATE, REPRODUCTION_RATE, LIFE_SPAN, SPREAD_RATE, GROWTH_START_HOUR, GROWTH_END_HOUR, simulator);
     }
 
     /**
@@ -34,7 +33,7 @@ public class Berries extends Plant {
         if(!currentWeather.equals("Sunny") && !currentWeather.equals("Cloudy"))
             return false; // Berries cannot grow unless the weather is Sunny or Cloudy.
 
-        int currentHour = time.getHour(); // Gets the current hour of the simulation.
+        int currentHour = simulator.getTime().getHour(); // Gets the current hour of the simulation.
         if (growthStartHour < currentHour) {
             return currentHour >= growthStartHour && currentHour < growthEndHour; // Checks if the current hour is within the growth window (when growthStartHour < currentHour).
         }
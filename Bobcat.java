@@ -11,6 +11,8 @@ public class Bobcat extends Animal {
     private static final int MAX_AGE = 130; // The maximum age a bobcat can reach.
     private static final double BREEDING_PROBABILITY = 0.06; // The likelihood of a bobcat breeding (0.0 - 1.0).
     private static final int MAX_LITTER_SIZE = 3; // The maximum number of offspring in a single birth.
+    private static final int VISION_RADIUS = 5; // How far away a bobcat can see food under -Dsimulator.vision (otherwise 1).
+    private static final boolean PURSUES = true; // Whether a bobcat chases the nearest of its food across the field under -Dsimulator.pursuit.
 
     /**
      * Constructor for the Bobcat class. Creates a new Bobcat instance with the specified parameters.
@@ -20,8 +22,16 @@ public class Bobcat extends Animal {
      * @param simulator The simulator instance managing this bobcat.
      */
     public Bobcat(boolean randomAge, Location location, Gender gender, Simulator simulator) {
-        super(randomAge, location, BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
-                createFoodSources(), Bobcat.class, gender, simulator);
+        super(randomAge, location, simulator.getParameters().forSpecies(Bobcat.class), Bobcat.class, gender, simulator);
+    }
+
+    /**
+     * Returns the parameters a bobcat has unless a simulation is given others.
+     * @return The default breeding, age, litter, vision, pursuit and food parameters of a bobcat.
+     */
+    public static SpeciesParameters defaultParameters() {
+        return new SpeciesParameters(BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
+                SpeciesParameters.VISION ? VISION_RADIUS : 1, SpeciesParameters.PURSUIT && PURSUES, createFoodSources());
     }
 
     /**
@@ -0,0 +1,253 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the spatial structure of every species, such as packs, herds and plant patches, as a
+ * subscriber of the step pipeline. Cells of the same species that touch, diagonally included,
+ * belong to the same cluster. Each frame's clusters are labelled with a union-find over the grid:
+ * stripes of rows are joined up in parallel, the seams between stripes are joined after them, and
+ * a last pass gathers the size of every cluster, so a frame costs about one linear pass over the
+ * field. Plants with an animal standing on them are hidden in the frame, and are not counted.
+ *
+ * For each species and step it records the number of clusters, their mean and largest size, the
+ * distribution of their sizes in powers of two, and the centroid of the species with how far it
+ * has drifted since the previous step. It is used when the simulation is started with
+ * {@code -Dsimulator.clusters=<file>}, and writes one CSV line per species per step.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class ClusterAnalytics implements Consumer<StepFrame>, AutoCloseable {
+    private static final int PARALLEL_CELLS = 1 << 16; // The smallest field whose stripes are joined in parallel.
+    private static final int STRIPE_CELLS = 1 << 14; // The number of cells in a stripe, rounded to whole rows.
+    private static final int SIZE_BUCKETS = 16; // The number of power-of-two size buckets; the last holds every larger cluster.
+
+    /**
+     * The clusters of one species at one step.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @param clusters The number of clusters.
+     * @param meanSize The mean number of cells in a cluster.
+     * @param largest The number of cells in the largest cluster.
+     * @param sizes The number of clusters of each size: bucket b holds sizes from 2^b to 2^(b+1) - 1.
+     * @param centroidRow The mean row of the species' cells, or NaN if it has none.
+     * @param centroidCol The mean column of the species' cells, or NaN if it has none.
+     * @param drift How far the centroid has moved since the previous step, or 0.
+     */
+    public record Clusters(int species, int clusters, double meanSize, int largest, int[] sizes,
+                           double centroidRow, double centroidCol, double drift) {}
+
+    private final BufferedWriter out; // The CSV file being written, or null if only analysing.
+    private int[] parent = new int[0]; // The union-find parent of each cell.
+    private int[] size = new int[0]; // The number of cells in the cluster of each root cell.
+    private double[][] lastCentroid; // The centroid of each species at the previous step, or null.
+    private int lastStep = -1; // The step of the previous frame.
+
+    /**
+     * Create an analyser that only analyses frames handed to {@link #analyse}.
+     */
+    public ClusterAnalytics() {
+        out = null;
+    }
+
+    /**
+     * Create an analyser writing to a file, replacing anything already in it.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be created.
+     */
+    public ClusterAnalytics(Path path) throws IOException {
+        out = Files.newBufferedWriter(path);
+        out.write("step,species,clusters,mean_size,largest,centroid_row,centroid_col,drift,size_buckets");
+        out.newLine();
+    }
+
+    /**
+     * Analyse the clusters of a frame, and write a line for each species.
+     * @param frame The frame of a finished step.
+     */
+    @Override
+    public void accept(StepFrame frame) {
+        Clusters[] result = analyse(frame);
+        if (out == null) return;
+        try {
+            for (Clusters clusters : result) {
+                StringBuilder buckets = new StringBuilder();
+                for (int count : clusters.sizes()) {
+                    buckets.append(buckets.isEmpty() ? "" : " ").append(count);
+                }
+                out.write(String.format(Locale.ROOT, "%d,%s,%d,%.3f,%d,%.2f,%.2f,%.3f,%s", frame.step(),
+                        EventBus.speciesName(clusters.species()), clusters.clusters(), clusters.meanSize(),
+                        clusters.largest(), clusters.centroidRow(), clusters.centroidCol(), clusters.drift(), buckets));
+                out.newLine();
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Label the clusters of every species in a frame and summarise them. Frames must be analysed
+     * in step order for the drift to be measured; a frame that does not follow the previous one
+     * starts the drift afresh.
+     * @param frame The frame to analyse.
+     * @return The clusters of each species, numbered as in {@link Field#getPopulations()}.
+     */
+    public Clusters[] analyse(StepFrame frame) {
+        int depth = frame.depth(), width = frame.width(), cells = depth * width;
+        byte[] species = speciesOfCells(frame.cells());
+        int speciesCount = frame.populations().length;
+        if (parent.length != cells) {
+            parent = new int[cells];
+            size = new int[cells];
+        }
+        if (lastCentroid == null || lastCentroid.length != speciesCount || frame.step() != lastStep + 1) {
+            lastCentroid = new double[speciesCount][];
+        }
+        lastStep = frame.step();
+
+        // Join the cells of each stripe of rows, in parallel, then join across the seams between stripes.
+        int stripeRows = Math.max(1, STRIPE_CELLS / width);
+        int stripes = (depth + stripeRows - 1) / stripeRows;
+        IntStream range = IntStream.range(0, stripes);
+        if (cells >= PARALLEL_CELLS) {
+            range = range.parallel();
+        }
+        range.forEach(stripe -> joinRows(species, width, stripe * stripeRows, Math.min(depth, (stripe + 1) * stripeRows)));
+        for (int row = stripeRows; row < depth; row += stripeRows) {
+            joinSeam(species, width, row);
+        }
+
+        // Gather the size of each cluster at its root, and the position of each species.
+        Arrays.fill(size, 0);
+        long[] rowSum = new long[speciesCount], colSum = new long[speciesCount];
+        for (int cell = 0; cell < cells; cell++) {
+            int s = species[cell];
+            if (s >= 0) {
+                size[find(cell)]++;
+                rowSum[s] += cell / width;
+                colSum[s] += cell % width;
+            }
+        }
+
+        Clusters[] result = new Clusters[speciesCount];
+        int[] count = new int[speciesCount], total = new int[speciesCount], largest = new int[speciesCount];
+        int[][] buckets = new int[speciesCount][SIZE_BUCKETS];
+        for (int cell = 0; cell < cells; cell++) {
+            int s = species[cell];
+            if (s >= 0 && parent[cell] == cell) {
+                int cluster = size[cell];
+                count[s]++;
+                total[s] += cluster;
+                buckets[s][Math.min(SIZE_BUCKETS - 1, 31 - Integer.numberOfLeadingZeros(cluster))]++;
+                largest[s] = Math.max(largest[s], cluster);
+            }
+        }
+        for (int s = 0; s < speciesCount; s++) {
+            double row = Double.NaN, col = Double.NaN, drift = 0;
+            if (total[s] > 0) {
+                row = (double) rowSum[s] / total[s];
+                col = (double) colSum[s] / total[s];
+            }
+            double[] previous = lastCentroid[s];
+            if (previous != null && !Double.isNaN(row)) {
+                drift = Math.hypot(row - previous[0], col - previous[1]);
+            }
+            lastCentroid[s] = Double.isNaN(row) ? null : new double[] {row, col};
+            result[s] = new Clusters(s, count[s], count[s] == 0 ? 0 : (double) total[s] / count[s], largest[s],
+                    buckets[s], row, col, drift);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the species of each cell of a frame, numbered as in {@link Field#getPopulations()}, or -1 for an empty cell.
+     */
+    private static byte[] speciesOfCells(byte[] cells) {
+        byte[] species = new byte[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            species[i] = (byte) StepFrame.speciesOf(cells[i]);
+        }
+        return species;
+    }
+
+    /**
+     * Make every cell of a stripe of rows its own cluster, then join each occupied cell with the
+     * cells of the same species to its right and in the row below, within the stripe.
+     */
+    private void joinRows(byte[] species, int width, int fromRow, int toRow) {
+        for (int cell = fromRow * width; cell < toRow * width; cell++) {
+            parent[cell] = cell;
+        }
+        for (int row = fromRow; row < toRow; row++) {
+            for (int col = 0; col < width; col++) {
+                int cell = row * width + col;
+                byte s = species[cell];
+                if (s < 0) continue;
+                if (col + 1 < width && species[cell + 1] == s) union(cell, cell + 1);
+                if (row + 1 < toRow) {
+                    joinBelow(species, width, cell, col, s);
+                }
+            }
+        }
+    }
+
+    /**
+     * Join the cells of the last row of one stripe with those of the first row of the next.
+     */
+    private void joinSeam(byte[] species, int width, int row) {
+        for (int col = 0; col < width; col++) {
+            int cell = (row - 1) * width + col;
+            byte s = species[cell];
+            if (s >= 0) {
+                joinBelow(species, width, cell, col, s);
+            }
+        }
+    }
+
+    /**
+     * Join a cell with the cells of the same species below it, diagonals included.
+     */
+    private void joinBelow(byte[] species, int width, int cell, int col, byte s) {
+        int below = cell + width;
+        if (col > 0 && species[below - 1] == s) union(cell, below - 1);
+        if (species[below] == s) union(cell, below);
+        if (col + 1 < width && species[below + 1] == s) union(cell, below + 1);
+    }
+
+    /**
+     * Returns the root of a cell's cluster, halving the path to it on the way.
+     */
+    private int find(int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Join the clusters of two cells, rooting them at the lower of their roots.
+     */
+    private void union(int a, int b) {
+        int rootA = find(a), rootB = find(b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+/**
+ * A small HTTP server, bound to the loopback address, for watching and steering a running
+ * simulation. Requests are served on virtual threads and only ever read the latest
+ * {@link StepSnapshot}, built from the frames of the simulation's step pipeline, so serving a
+ * request never blocks the simulation loop. Statistics are available once the first step has run.
+ *
+ * Endpoints:
+ * <ul>
+ *     <li>{@code GET /stats} - the latest snapshot as JSON.</li>
+ *     <li>{@code GET /metrics} - step, populations, step rate and step latency in Prometheus text format.</li>
+ *     <li>{@code POST /pause}, {@code POST /resume} - pause or resume the simulation.</li>
+ *     <li>{@code POST /step?n=10} - run a paused simulation for n steps (1 by default).</li>
+ *     <li>{@code POST /speed?delay=20} - set the pause between steps in milliseconds.</li>
+ * </ul>
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class ControlServer {
+    private static final double RATE_SMOOTHING = 0.1; // Weight of the newest step in the step rate.
+
+    private final HttpServer server; // The HTTP server.
+    private final SimulationControl control; // Pauses and paces the simulation.
+    private final long[] latencyCounts = new long[StepSnapshot.LATENCY_BOUNDS.length + 1]; // Steps in each latency bucket.
+    private long latencyNanos; // The total time taken by every step.
+    private long lastStepEnd; // The time the previous step ended.
+    private int lastStep; // The previous step.
+    private double stepsPerSecond; // The smoothed step rate.
+    private volatile StepSnapshot snapshot; // The latest snapshot of the simulation.
+
+    /**
+     * Start a control server for a simulation.
+     * @param control The control of the simulation.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the server cannot be started.
+     */
+    public ControlServer(SimulationControl control, int port) throws IOException {
+        this.control = control;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/stats", get(exchange -> respond(exchange, 200, "application/json", json(snapshot))));
+        server.createContext("/metrics", get(exchange -> respond(exchange, 200, "text/plain; version=0.0.4", prometheus(snapshot))));
+        server.createContext("/pause", post(exchange -> control.pause()));
+        server.createContext("/resume", post(exchange -> control.resume()));
+        server.createContext("/step", post(exchange -> control.step(queryInt(exchange, "n", 1))));
+        server.createContext("/speed", post(exchange -> control.setDelay(queryInt(exchange, "delay", control.getDelay()))));
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     * @return The port number.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop the server.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * Make the statistics in the frame of a finished step the ones served. Called with the frames
+     * of the simulation's step pipeline, one at a time, in step order.
+     * @param frame The frame of a step that has just finished.
+     */
+    public void publish(StepFrame frame) {
+        int bucket = 0;
+        while (bucket < StepSnapshot.LATENCY_BOUNDS.length && frame.stepNanos() > StepSnapshot.LATENCY_BOUNDS[bucket] * 1e9) {
+            bucket++;
+        }
+        latencyCounts[bucket]++;
+        latencyNanos += frame.stepNanos();
+        long[] cumulative = new long[latencyCounts.length]; // Prometheus buckets count every step at or below their bound.
+        long total = 0;
+        for (int i = 0; i < latencyCounts.length; i++) {
+            total += latencyCounts[i];
+            cumulative[i] = total;
+        }
+
+        if (lastStepEnd != 0 && frame.step() > lastStep) {
+            double rate = 1e9 * (frame.step() - lastStep) / Math.max(1, frame.endNanos() - lastStepEnd);
+            stepsPerSecond = stepsPerSecond == 0 ? rate : stepsPerSecond + RATE_SMOOTHING * (rate - stepsPerSecond);
+        }
+        lastStepEnd = frame.endNanos();
+        lastStep = frame.step();
+
+        Map<String, Integer> populations = new TreeMap<>();
+        for (int species = 0; species < frame.populations().length; species++) {
+            populations.put(EventBus.speciesName(species), frame.populations()[species]);
+        }
+
+        snapshot = new StepSnapshot(frame.step(), frame.time(), frame.weather(), Map.copyOf(populations),
+                frame.infected(), frame.dormant(), frame.stepNanos(), stepsPerSecond, cumulative, latencyNanos);
+    }
+
+    /**
+     * Format a snapshot, and the current pause state and delay, as JSON.
+     */
+    private String json(StepSnapshot s) {
+        if (s == null) {
+            return "{}";
+        }
+        StringBuilder populations = new StringBuilder();
+        new TreeMap<>(s.populations()).forEach((name, count) ->
+                populations.append(populations.isEmpty() ? "" : ",").append('"').append(name).append("\":").append(count));
+        return String.format(java.util.Locale.ROOT,
+                "{\"step\":%d,\"time\":\"%s\",\"weather\":\"%s\",\"populations\":{%s},\"infected\":%d,"
+                        + "\"dormant\":%d,\"lastStepMillis\":%.3f,\"stepsPerSecond\":%.2f,\"paused\":%b,\"delay\":%d}",
+                s.step(), s.time(), s.weather(), populations, s.infected(), s.dormant(),
+                s.lastStepNanos() / 1e6, s.stepsPerSecond(), control.isPaused(), control.getDelay());
+    }
+
+    /**
+     * Format a snapshot, and the current pause state, in the Prometheus text exposition format.
+     */
+    private String prometheus(StepSnapshot s) {
+        if (s == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP predator_prey_step The current simulation step.\n");
+        out.append("# TYPE predator_prey_step gauge\n");
+        out.append("predator_prey_step ").append(s.step()).append('\n');
+        out.append("# HELP predator_prey_population The number of living animals and plants of each species.\n");
+        out.append("# TYPE predator_prey_population gauge\n");
+        new TreeMap<>(s.populations()).forEach((name, count) ->
+                out.append("predator_prey_population{species=\"").append(name).append("\"} ").append(count).append('\n'));
+        out.append("# HELP predator_prey_infected The number of infected animals.\n");
+        out.append("# TYPE predator_prey_infected gauge\n");
+        out.append("predator_prey_infected ").append(s.infected()).append('\n');
+        out.append("# HELP predator_prey_steps_per_second The recent step rate.\n");
+        out.append("# TYPE predator_prey_steps_per_second gauge\n");
+        out.append("predator_prey_steps_per_second ").append(s.stepsPerSecond()).append('\n');
+        out.append("# HELP predator_prey_paused Whether the simulation is paused.\n");
+        out.append("# TYPE predator_prey_paused gauge\n");
+        out.append("predator_prey_paused ").append(control.isPaused() ? 1 : 0).append('\n');
+        out.append("# HELP predator_prey_step_duration_seconds How long each step takes to compute.\n");
+        out.append("# TYPE predator_prey_step_duration_seconds histogram\n");
+        for (int i = 0; i < s.latencyBuckets().length; i++) {
+            String bound = i < StepSnapshot.LATENCY_BOUNDS.length ? Double.toString(StepSnapshot.LATENCY_BOUNDS[i]) : "+Inf";
+            out.append("predator_prey_step_duration_seconds_bucket{le=\"").append(bound).append("\"} ")
+                    .append(s.latencyBuckets()[i]).append('\n');
+        }
+        out.append("predator_prey_step_duration_seconds_sum ").append(s.latencyNanos() / 1e9).append('\n');
+        out.append("predator_prey_step_duration_seconds_count ").append(s.latencyCount()).append('\n');
+        return out.toString();
+    }
+
+    /**
+     * Wrap a handler so that it only answers GET requests.
+     */
+    private static HttpHandler get(HttpHandler handler) {
+        return exchange -> {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, "text/plain", "Use GET\n");
+            } else {
+                handler.handle(exchange);
+            }
+        };
+    }
+
+    /**
+     * Wrap a control action so that it only answers POST requests, replying with the new state.
+     */
+    private HttpHandler post(HttpHandler action) {
+        return exchange -> {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "text/plain", "Use POST\n");
+                return;
+            }
+            try {
+                action.handle(exchange);
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "text/plain", "Bad number: " + e.getMessage() + "\n");
+                return;
+            }
+            respond(exchange, 200, "application/json",
+                    "{\"paused\":" + control.isPaused() + ",\"delay\":" + control.getDelay() + "}");
+        };
+    }
+
+    /**
+     * Returns an integer parameter of a request's query string.
+     */
+    private static int queryInt(HttpExchange exchange, String name, int defaultValue) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return Integer.parseInt(parameter.substring(name.length() + 1));
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Send a response and close the exchange.
+     */
+    private static void respond(HttpExchange exchange, int status, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
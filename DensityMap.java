@@ -0,0 +1,144 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * A map of how densely the field is populated when a simulation starts, scaling the creation
+ * probability of every species cell by cell, so that worlds can have dense and barren regions. A
+ * weight of 1 leaves the probabilities as they are and 0 leaves the cell empty. The map is
+ * stretched over the field, whatever its size, taking the weight of the nearest map cell.
+ *
+ * Maps are read from CSV files, one row of weights per line, or from images, whose brightness
+ * gives the weight: white is 1 and black is 0.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class DensityMap {
+    private final int rows, cols; // The dimensions of the map.
+    private final float[] weights; // The weight of each map cell, row by row.
+
+    /**
+     * Create a map from its weights.
+     * @param rows The number of rows of the map.
+     * @param cols The number of columns of the map.
+     * @param weights The weight of each map cell, row by row. None may be negative.
+     */
+    public DensityMap(int rows, int cols, float[] weights) {
+        if (rows <= 0 || cols <= 0 || weights.length != rows * cols) {
+            throw new IllegalArgumentException("A " + rows + "x" + cols + " map needs " + rows * cols + " weights");
+        }
+        for (float weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Density weights must not be negative: " + weight);
+            }
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Read a map from a CSV file, if its name ends in ".csv", or otherwise from an image.
+     * @param path The file to read.
+     * @return The map.
+     * @throws IOException If the file cannot be read or is not a map.
+     */
+    public static DensityMap load(Path path) throws IOException {
+        return path.getFileName().toString().toLowerCase().endsWith(".csv") ? loadCsv(path) : loadImage(path);
+    }
+
+    /**
+     * Read a map from a CSV file of weights. Every row must have the same number of weights, which
+     * may be separated by commas, semicolons or spaces.
+     */
+    private static DensityMap loadCsv(Path path) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (!line.isBlank()) {
+                lines.add(line.trim().split("[,;\\s]+"));
+            }
+        }
+        if (lines.isEmpty()) {
+            throw new IOException(path + " holds no density weights");
+        }
+        int cols = lines.get(0).length;
+        float[] weights = new float[lines.size() * cols];
+        for (int row = 0; row < lines.size(); row++) {
+            String[] line = lines.get(row);
+            if (line.length != cols) {
+                throw new IOException(path + ": row " + (row + 1) + " has " + line.length + " weights, not " + cols);
+            }
+            for (int col = 0; col < cols; col++) {
+                try {
+                    weights[row * cols + col] = Float.parseFloat(line[col]);
+                } catch (NumberFormatException e) {
+                    throw new IOException(path + ": row " + (row + 1) + " has a weight that is not a number: " + line[col]);
+                }
+            }
+        }
+        try {
+            return new DensityMap(lines.size(), cols, weights);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read a map from an image, weighting each pixel by its brightness.
+     */
+    private static DensityMap loadImage(Path path) throws IOException {
+        BufferedImage image = ImageIO.read(path.toFile());
+        if (image == null) {
+            throw new IOException(path + " is neither a CSV file nor an image");
+        }
+        int rows = image.getHeight(), cols = image.getWidth();
+        float[] weights = new float[rows * cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int rgb = image.getRGB(col, row);
+                int red = (rgb >> 16) & 0xFF, green = (rgb >> 8) & 0xFF, blue = rgb & 0xFF;
+                weights[row * cols + col] = (0.299f * red + 0.587f * green + 0.114f * blue) / 255f;
+            }
+        }
+        return new DensityMap(rows, cols, weights);
+    }
+
+    /**
+     * Returns the weight of a cell of a field the map is stretched over.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @return The weight of the nearest map cell.
+     */
+    public double weightAt(int row, int col, int depth, int width) {
+        return weights[mapRow(row, depth) * cols + (int) ((long) col * cols / width)];
+    }
+
+    /**
+     * Returns the largest weight in a band of rows of a field the map is stretched over.
+     * @param fromRow The first row of the band.
+     * @param toRow The row after the last row of the band.
+     * @param depth The depth of the field.
+     * @return The largest weight of the map cells covering the band.
+     */
+    public double maxWeight(int fromRow, int toRow, int depth) {
+        float max = 0;
+        for (int i = mapRow(fromRow, depth) * cols; i < (mapRow(toRow - 1, depth) + 1) * cols; i++) {
+            max = Math.max(max, weights[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Returns the map row covering a row of a field of the given depth.
+     */
+    private int mapRow(int row, int depth) {
+        return (int) ((long) row * rows / depth);
+    }
+}
@@ -0,0 +1,403 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the reference simulation and an alternative engine, such as a parallel, structure-of-arrays
+ * or array-grid rewrite, on the same seeds and scenario, and checks that the alternative still
+ * simulates the same ecology, reporting the throughput and allocation of both side by side.
+ *
+ * In exact mode the engines must be deterministic: every step of every seed must produce the same
+ * population of every species and the same Zobrist hash of the field, and the first step at which
+ * they do not is reported. In distribution mode, for engines whose results depend on scheduling,
+ * each engine is run over all the seeds and its final populations and run lengths are compared
+ * with the reference's by two-sample Kolmogorov-Smirnov tests.
+ *
+ * An alternative engine implements {@link Engine} with a public no-argument constructor.
+ *
+ * Usage: {@code java DifferentialHarness [engine class] [exact|distribution] [seeds] [steps]}. The
+ * engine defaults to the reference engine itself, which checks that the simulation is deterministic.
+ * Exits with status 1 if the engines are not equivalent.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class DifferentialHarness {
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L; // Spreads seeds apart.
+    private static final int DEPTH = 80; // The depth of the field used from the command line.
+    private static final int WIDTH = 120; // The width of the field used from the command line.
+    private static final double ALPHA = 0.01; // The significance level of each distribution test.
+
+    /**
+     * A way of running the simulation whose results can be compared with the reference's.
+     */
+    public interface Engine {
+        /**
+         * Start a run, populated and ready for its first step.
+         * @param seed The seed of the run.
+         * @param scenario The field size and parameters of the run.
+         * @return The run.
+         */
+        Run start(long seed, Scenario scenario);
+
+        /**
+         * Returns the name the engine is reported under.
+         * @return The name of the engine.
+         */
+        default String name() {
+            return getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * One run of an engine.
+     */
+    public interface Run extends AutoCloseable {
+        /**
+         * Run one step.
+         */
+        void step();
+
+        /**
+         * Returns whether the run can still sustain the simulation.
+         * @return true if the run should carry on.
+         */
+        boolean isViable();
+
+        /**
+         * Returns the population of each species, numbered as in {@link Field#getPopulations()}.
+         * @return A new array holding the populations.
+         */
+        int[] getPopulations();
+
+        /**
+         * Returns the Zobrist hash of the field, as in {@link Field#getStateHash()}.
+         * @return The hash of the field.
+         */
+        long getStateHash();
+
+        /**
+         * Release whatever the run holds once it is finished.
+         */
+        @Override
+        default void close() {}
+    }
+
+    /**
+     * What every engine is run on.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The most steps of each run.
+     * @param parameters The creation densities and species parameters.
+     */
+    public record Scenario(int depth, int width, int steps, SimulationParameters parameters) {}
+
+    /**
+     * The engine every other engine is compared with: the headless {@link Simulator}.
+     */
+    public static class Reference implements Engine {
+        @Override
+        public Run start(long seed, Scenario scenario) {
+            Simulator simulator = new Simulator(scenario.depth(), scenario.width(), true, seed,
+                    new Time(8, 0, 0, 10), scenario.parameters());
+            return new Run() {
+                @Override
+                public void step() {
+                    simulator.simulateOneStep();
+                }
+
+                @Override
+                public boolean isViable() {
+                    return simulator.getField().isViable();
+                }
+
+                @Override
+                public int[] getPopulations() {
+                    return simulator.getField().getPopulations();
+                }
+
+                @Override
+                public long getStateHash() {
+                    return simulator.getField().getStateHash();
+                }
+
+                @Override
+                public void close() {
+                    simulator.close();
+                }
+            };
+        }
+
+        @Override
+        public String name() {
+            return "reference";
+        }
+    }
+
+    /**
+     * How the engines are compared.
+     */
+    public enum Mode {
+        EXACT, // Every step must be identical.
+        DISTRIBUTION // The outcomes must be drawn from the same distribution.
+    }
+
+    /**
+     * Everything recorded about one run.
+     * @param hashes The hash of the field at every step, from step 0.
+     * @param populations The populations at every step, from step 0.
+     * @param nanos The time spent stepping.
+     * @param bytes The bytes allocated by every thread while stepping, or 0 if unknown.
+     */
+    public record Trace(long[] hashes, int[][] populations, long nanos, long bytes) {
+        /**
+         * Returns the number of steps run.
+         * @return The number of steps after step 0.
+         */
+        public int steps() {
+            return hashes.length - 1;
+        }
+    }
+
+    /**
+     * The speed of an engine over every seed.
+     * @param engine The name of the engine.
+     * @param steps The steps run.
+     * @param nanos The time spent stepping.
+     * @param bytes The bytes allocated while stepping.
+     */
+    public record Throughput(String engine, long steps, long nanos, long bytes) {}
+
+    private final Engine reference; // The engine being compared with.
+    private final Engine candidate; // The engine being checked.
+    private final Scenario scenario; // What both engines are run on.
+    private final com.sun.management.ThreadMXBean allocation = StepProfiler.allocationCounter(); // Measures allocation, or null.
+    private final List<String> failures = new ArrayList<>(); // Every difference found.
+
+    /**
+     * Create a harness.
+     * @param reference The engine to compare with.
+     * @param candidate The engine to check.
+     * @param scenario What both engines are run on.
+     */
+    public DifferentialHarness(Engine reference, Engine candidate, Scenario scenario) {
+        this.reference = reference;
+        this.candidate = candidate;
+        this.scenario = scenario;
+    }
+
+    /**
+     * Run an engine on a seed, recording every step until the run stops being viable or reaches the
+     * scenario's number of steps.
+     * @param engine The engine.
+     * @param seed The seed.
+     * @return The trace of the run.
+     */
+    public Trace trace(Engine engine, long seed) {
+        try (Run run = engine.start(seed, scenario)) {
+            List<int[]> populations = new ArrayList<>();
+            long[] hashes = new long[scenario.steps() + 1];
+            populations.add(run.getPopulations());
+            hashes[0] = run.getStateHash();
+
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            int step = 0;
+            while (step < scenario.steps() && run.isViable()) {
+                run.step();
+                step++;
+                populations.add(run.getPopulations());
+                hashes[step] = run.getStateHash();
+            }
+            long nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - bytes;
+            return new Trace(Arrays.copyOf(hashes, step + 1), populations.toArray(int[][]::new), nanos, bytes);
+        }
+    }
+
+    /**
+     * Compare the engines on a number of seeds, recording any difference as a failure.
+     * @param mode How to compare the engines.
+     * @param seeds The number of seeds to run.
+     * @param baseSeed The seed from which the seeds are derived.
+     * @return The throughput of the reference and the candidate engines.
+     */
+    public List<Throughput> compare(Mode mode, int seeds, long baseSeed) {
+        trace(reference, baseSeed); // Warm up both engines before anything is timed.
+        trace(candidate, baseSeed);
+
+        Trace[] expected = new Trace[seeds];
+        Trace[] actual = new Trace[seeds];
+        for (int s = 0; s < seeds; s++) {
+            long seed = baseSeed + s * SEED_STRIDE;
+            expected[s] = trace(reference, seed);
+            actual[s] = trace(candidate, seed);
+            if (mode == Mode.EXACT) {
+                compareExactly(seed, expected[s], actual[s]);
+            }
+        }
+        if (mode == Mode.DISTRIBUTION) {
+            compareDistributions(expected, actual);
+        }
+        return List.of(throughput(reference, expected), throughput(candidate, actual));
+    }
+
+    /**
+     * Record the first step at which two runs from the same seed differ, if they do.
+     */
+    private void compareExactly(long seed, Trace expected, Trace actual) {
+        int steps = Math.min(expected.steps(), actual.steps());
+        for (int step = 0; step <= steps; step++) {
+            if (!Arrays.equals(expected.populations()[step], actual.populations()[step])) {
+                failures.add(String.format(Locale.ROOT, "seed %d: populations differ at step %d: %s != %s", seed, step,
+                        Arrays.toString(actual.populations()[step]), Arrays.toString(expected.populations()[step])));
+                return;
+            }
+            if (expected.hashes()[step] != actual.hashes()[step]) {
+                failures.add(String.format(Locale.ROOT, "seed %d: field hash differs at step %d with the same populations",
+                        seed, step));
+                return;
+            }
+        }
+        if (expected.steps() != actual.steps()) {
+            failures.add(String.format(Locale.ROOT, "seed %d: ran %d steps, not %d", seed, actual.steps(), expected.steps()));
+        }
+    }
+
+    /**
+     * Test that the final populations of each species and the run lengths of two sets of runs
+     * are drawn from the same distributions.
+     */
+    private void compareDistributions(Trace[] expected, Trace[] actual) {
+        int species = expected[0].populations()[0].length;
+        for (int s = 0; s <= species; s++) {
+            double[] first = new double[expected.length];
+            double[] second = new double[actual.length];
+            for (int i = 0; i < expected.length; i++) {
+                first[i] = outcome(expected[i], s);
+                second[i] = outcome(actual[i], s);
+            }
+            double d = ksStatistic(first, second);
+            double p = ksProbability(d, first.length, second.length);
+            String name = s < species ? EventBus.speciesName(s) : "steps";
+            System.out.printf(Locale.ROOT, "  %-10s D = %.3f  p = %.3f%n", name, d, p);
+            if (p < ALPHA) {
+                failures.add(String.format(Locale.ROOT, "%s: distributions differ (D = %.3f, p = %.4f)", name, d, p));
+            }
+        }
+    }
+
+    /**
+     * Returns the final population of a species in a run, or, past the last species, the length of the run.
+     */
+    private static double outcome(Trace trace, int species) {
+        int[] last = trace.populations()[trace.steps()];
+        return species < last.length ? last[species] : trace.steps();
+    }
+
+    /**
+     * Returns the two-sample Kolmogorov-Smirnov statistic: the largest distance between the
+     * empirical distribution functions of two samples.
+     * @param first One sample.
+     * @param second The other sample.
+     * @return The statistic, between 0 and 1.
+     */
+    public static double ksStatistic(double[] first, double[] second) {
+        double[] a = first.clone(), b = second.clone();
+        Arrays.sort(a);
+        Arrays.sort(b);
+        int i = 0, j = 0;
+        double d = 0;
+        while (i < a.length && j < b.length) {
+            double x = Math.min(a[i], b[j]);
+            while (i < a.length && a[i] == x) i++; // Step past ties in both samples together.
+            while (j < b.length && b[j] == x) j++;
+            d = Math.max(d, Math.abs((double) i / a.length - (double) j / b.length));
+        }
+        return d;
+    }
+
+    /**
+     * Returns the asymptotic probability of a two-sample Kolmogorov-Smirnov statistic at least as
+     * large as the one observed, if both samples come from the same distribution.
+     * @param d The statistic.
+     * @param n The size of one sample.
+     * @param m The size of the other sample.
+     * @return The p-value.
+     */
+    public static double ksProbability(double d, int n, int m) {
+        double effective = Math.sqrt((double) n * m / (n + m));
+        double lambda = (effective + 0.12 + 0.11 / effective) * d;
+        double sum = 0;
+        for (int k = 1; k <= 100; k++) {
+            double term = 2 * (k % 2 == 1 ? 1 : -1) * Math.exp(-2 * k * k * lambda * lambda);
+            sum += term;
+            if (Math.abs(term) < 1e-10) break;
+        }
+        return lambda < 1e-3 ? 1 : Math.min(1, Math.max(0, sum));
+    }
+
+    /**
+     * Returns the total throughput of an engine over a set of runs.
+     */
+    private static Throughput throughput(Engine engine, Trace[] traces) {
+        long steps = 0, nanos = 0, bytes = 0;
+        for (Trace trace : traces) {
+            steps += trace.steps();
+            nanos += trace.nanos();
+            bytes += trace.bytes();
+        }
+        return new Throughput(engine.name(), steps, nanos, bytes);
+    }
+
+    /**
+     * Returns every difference found between the engines so far.
+     * @return The differences, empty if the engines are equivalent.
+     */
+    public List<String> getFailures() {
+        return List.copyOf(failures);
+    }
+
+    /**
+     * Returns the bytes allocated so far by every thread, including the pool, pipeline and virtual
+     * threads a parallel engine steps on, or 0 if this cannot be measured.
+     */
+    private long allocatedBytes() {
+        return allocation == null ? 0 : allocation.getTotalThreadAllocatedBytes();
+    }
+
+    /**
+     * Compare an engine with the reference engine from the command line and print the result.
+     * @param args Optional engine class, mode, number of seeds and number of steps.
+     * @throws ReflectiveOperationException If the engine class cannot be created.
+     */
+    public static void main(String[] args) throws ReflectiveOperationException {
+        Engine candidate = args.length > 0 && !args[0].equals("reference")
+                ? (Engine) Class.forName(args[0]).getConstructor().newInstance() : new Reference();
+        Mode mode = args.length > 1 ? Mode.valueOf(args[1].toUpperCase(Locale.ROOT)) : Mode.EXACT;
+        int seeds = args.length > 2 ? Integer.parseInt(args[2]) : mode == Mode.EXACT ? 10 : 50;
+        int steps = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        Scenario scenario = new Scenario(DEPTH, WIDTH, steps, SimulationParameters.defaults());
+        DifferentialHarness harness = new DifferentialHarness(new Reference(), candidate, scenario);
+        System.out.println("Comparing " + candidate.name() + " with the reference engine, " + mode.name().toLowerCase(Locale.ROOT)
+                + ", over " + seeds + " seeds of up to " + steps + " steps");
+        List<Throughput> results = harness.compare(mode, seeds, Randomizer.SEED);
+
+        System.out.println();
+        System.out.println("Engine          Steps   Steps/s   KB/step");
+        for (Throughput result : results) {
+            System.out.printf(Locale.ROOT, "%-12s %8d %9.1f %9.1f%n", result.engine(), result.steps(),
+                    result.steps() * 1e9 / Math.max(1, result.nanos()), result.bytes() / 1024.0 / Math.max(1, result.steps()));
+        }
+        System.out.println();
+        List<String> failures = harness.getFailures();
+        if (failures.isEmpty()) {
+            System.out.println("Equivalent: no differences found.");
+        } else {
+            failures.forEach(failure -> System.out.println("DIFFERENCE " + failure));
+            System.exit(1);
+        }
+    }
+}
@@ -15,7 +15,6 @@ public abstract class Disease {
     protected double transmissionRate; // Probability of infecting another animal
     protected boolean isLethal; // Does the disease kill the host?
 
-    protected static final Random rand = new Random();
 
     /**
      * Constructor for creating a new disease
@@ -50,9 +49,10 @@ public abstract class Disease {
      * Determines whether the disease spreads during a particular interaction
      * based on the transmission rate
      *
+     * @param rand The random number generator of the simulation
      * @return true if the disease spreads, false otherwise
      */
-    public boolean spreads() {
+    public boolean spreads(Random rand) {
         return rand.nextDouble() < transmissionRate;
     }
 
@@ -0,0 +1,200 @@
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs many replicates of a simulation, each with its own seed, concurrently on a thread pool in
+ * one JVM, and aggregates a chosen statistic across them: the mean and 95% confidence interval of
+ * the statistic at every step. Replicates keep being started until the confidence interval of the
+ * statistic at the final step is narrower than a tolerance, or the maximum number has been run.
+ * The tolerance is relative to the mean, or absolute while the mean is below 1.
+ *
+ * A replicate that stops being viable stops stepping, and its statistic stays at its final value
+ * for the remaining steps. With the "viable" statistic the mean at a step is therefore the
+ * fraction of runs in which every species is still alive, and one minus it the extinction probability.
+ *
+ * Usage: {@code java EnsembleRunner [replicates] [steps] [statistic] [threads]}, where the statistic
+ * is "viable" or the name of a species (such as "Wolf"). Prints the per-step results as CSV.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class EnsembleRunner {
+    private static final double Z_95 = 1.959964; // The normal quantile for a two-sided 95% confidence interval.
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L; // Spreads replicate seeds apart.
+    private static final int DEPTH = 80; // The depth of the field used from the command line.
+    private static final int WIDTH = 120; // The width of the field used from the command line.
+
+    /**
+     * The aggregated result of an ensemble.
+     * @param replicates The number of replicates run.
+     * @param converged Whether the statistic converged before the maximum number of replicates.
+     * @param mean The mean of the statistic at each step (index 0 is the initial state).
+     * @param lower The lower bound of the 95% confidence interval at each step.
+     * @param upper The upper bound of the 95% confidence interval at each step.
+     */
+    public record Result(int replicates, boolean converged, double[] mean, double[] lower, double[] upper) {}
+
+    private final LongFunction<Simulator> factory; // Creates a simulation from a seed.
+    private final ToDoubleFunction<Simulator> statistic; // The statistic measured after each step.
+    private final int steps; // The number of steps in each replicate.
+    private final int maxReplicates; // The most replicates to run.
+    private final int minReplicates; // The fewest replicates to run before checking convergence.
+    private final double tolerance; // The relative confidence interval half-width at which the statistic has converged.
+    private final int threads; // The number of replicates run at once.
+
+    private double[] mean; // Running mean of the statistic at each step.
+    private double[] squares; // Running sum of squared differences from the mean at each step.
+    private int count; // The number of replicates aggregated.
+    private volatile boolean converged; // Whether the statistic has converged.
+
+    /**
+     * Create an ensemble runner.
+     * @param factory Creates an independent simulation from a seed.
+     * @param statistic The statistic to measure after each step.
+     * @param steps The number of steps in each replicate.
+     * @param maxReplicates The most replicates to run.
+     * @param minReplicates The fewest replicates to run before the statistic can count as converged.
+     * @param tolerance The half-width of the final step's 95% confidence interval, relative to its mean, at which to stop.
+     * @param threads The number of replicates to run at once.
+     */
+    public EnsembleRunner(LongFunction<Simulator> factory, ToDoubleFunction<Simulator> statistic, int steps,
+                          int maxReplicates, int minReplicates, double tolerance, int threads) {
+        this.factory = factory;
+        this.statistic = statistic;
+        this.steps = steps;
+        this.maxReplicates = maxReplicates;
+        this.minReplicates = Math.max(2, minReplicates);
+        this.tolerance = tolerance;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Run the ensemble. Replicate r uses a seed derived from the base seed and r.
+     * @param baseSeed The seed from which the replicates' seeds are derived.
+     * @return The aggregated result.
+     * @throws InterruptedException If interrupted while waiting for the replicates.
+     */
+    public Result run(long baseSeed) throws InterruptedException {
+        mean = new double[steps + 1];
+        squares = new double[steps + 1];
+        count = 0;
+        converged = false;
+
+        AtomicInteger next = new AtomicInteger(); // The next replicate to start.
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                int replicate;
+                while (!converged && (replicate = next.getAndIncrement()) < maxReplicates) {
+                    add(runReplicate(baseSeed + replicate * SEED_STRIDE));
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        return result();
+    }
+
+    /**
+     * Run one replicate and return its statistic at every step.
+     */
+    private double[] runReplicate(long seed) {
+        try (Simulator simulator = factory.apply(seed)) {
+            double[] trajectory = new double[steps + 1];
+            trajectory[0] = statistic.applyAsDouble(simulator);
+            boolean viable = true;
+            for (int step = 1; step <= steps; step++) {
+                if (viable) {
+                    simulator.simulateOneStep();
+                    viable = simulator.getField().isViable();
+                }
+                trajectory[step] = statistic.applyAsDouble(simulator);
+            }
+            return trajectory;
+        }
+    }
+
+    /**
+     * Add a replicate to the running mean and variance of each step (Welford's method), and check
+     * whether the statistic has converged.
+     */
+    private synchronized void add(double[] trajectory) {
+        count++;
+        for (int step = 0; step <= steps; step++) {
+            double delta = trajectory[step] - mean[step];
+            mean[step] += delta / count;
+            squares[step] += delta * (trajectory[step] - mean[step]);
+        }
+        if (count >= minReplicates && halfWidth(steps) <= tolerance * Math.max(1, Math.abs(mean[steps]))) {
+            converged = true;
+        }
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the mean at a step.
+     */
+    private double halfWidth(int step) {
+        return count < 2 ? Double.POSITIVE_INFINITY : Z_95 * Math.sqrt(squares[step] / (count - 1) / count);
+    }
+
+    /**
+     * Collect the aggregated result.
+     */
+    private synchronized Result result() {
+        double[] lower = new double[steps + 1];
+        double[] upper = new double[steps + 1];
+        for (int step = 0; step <= steps; step++) {
+            double half = count < 2 ? 0 : halfWidth(step);
+            lower[step] = mean[step] - half;
+            upper[step] = mean[step] + half;
+        }
+        return new Result(count, converged, mean.clone(), lower, upper);
+    }
+
+    /**
+     * Returns the statistic with the given name: "viable", or the population of a species.
+     * @param name The name of the statistic.
+     * @return The statistic.
+     * @throws ClassNotFoundException If the name is not "viable" or a species.
+     */
+    public static ToDoubleFunction<Simulator> statistic(String name) throws ClassNotFoundException {
+        if (name.equals("viable")) {
+            return simulator -> simulator.getField().isViable() ? 1 : 0;
+        }
+        Class<?> species = Class.forName(name);
+        if (Plant.class.isAssignableFrom(species)) {
+            return simulator -> simulator.getField().getPlantCount(species.asSubclass(Plant.class));
+        }
+        return simulator -> simulator.getField().getMaleCount(species) + simulator.getField().getFemaleCount(species);
+    }
+
+    /**
+     * Run an ensemble of headless simulations from the command line and print the result as CSV.
+     * @param args Optional replicates, steps, statistic and threads.
+     * @throws Exception If the statistic is unknown or the run is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        int replicates = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        String name = args.length > 2 ? args[2] : "viable";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        EnsembleRunner runner = new EnsembleRunner(
+                seed -> new Simulator(DEPTH, WIDTH, true, seed, new Time(8, 0, 0, 10)),
+                statistic(name), steps, replicates, Math.min(replicates, 20), 0.05, threads);
+        long start = System.nanoTime();
+        Result result = runner.run(Randomizer.SEED);
+        System.out.printf(Locale.ROOT, "# %d replicates of %d steps in %.1f s, %s%n", result.replicates(), steps,
+                (System.nanoTime() - start) / 1e9, result.converged() ? "converged" : "not converged");
+        System.out.println("step,mean_" + name + ",lower,upper");
+        for (int step = 0; step <= steps; step++) {
+            System.out.printf(Locale.ROOT, "%d,%.4f,%.4f,%.4f%n", step, result.mean()[step],
+                    result.lower()[step], result.upper()[step]);
+        }
+    }
+}
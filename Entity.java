@@ -6,10 +6,12 @@
  * @author Mahdi Razzaque
  * @version 10.02.2025
  */
-abstract public class Entity {
+abstract public class Entity implements Cloneable {
     private boolean alive; // Whether the entity is alive or not.
     private Location location; // The entity's position on the field.
     protected Simulator simulator; // The simulator instance this entity is part of.
+    private int wakeStep; // The step at which a dormant entity next needs to act.
+    private final long id; // The entity's id, unique within its simulation and kept for life.
 
     /**
      * Constructor for the Entity class. Initialises a new entity, setting it as alive and
@@ -21,6 +23,32 @@ abstract public class Entity {
         this.alive = true;  // Newly created entities are alive.
         this.location = location;
         this.simulator = simulator;
+        this.id = simulator != null ? simulator.nextEntityId() : 0;
+    }
+
+    /**
+     * Returns the entity's id, which it keeps for life and which no other entity created by its
+     * simulation has. A copy of the entity in a fork keeps the id.
+     * @return The entity's id.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns a copy of this entity belonging to another simulation, for a simulation that has been
+     * forked. The copy is in the same state, and from then on the two change independently.
+     * @param simulator The simulator the copy is part of.
+     * @return The copy.
+     */
+    protected Entity copyFor(Simulator simulator) {
+        try {
+            Entity copy = (Entity) clone();
+            copy.simulator = simulator;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Every entity is cloneable.
+        }
     }
 
     /**
@@ -42,6 +70,9 @@ abstract public class Entity {
      * Marks the entity as no longer alive and removes it from its current location.
      */
     protected void setDead() {
+        if (alive && simulator != null) {
+            simulator.removeEntity(this, location); // Take the entity out of the field's hash and population.
+        }
         alive = false;
         location = null;
     }
@@ -61,4 +92,22 @@ abstract public class Entity {
     protected void setLocation(Location location) {
         this.location = location;
     }
+
+    /**
+     * Asks the simulator to leave this entity dormant until the given step instead of calling
+     * {@link #act} on every step in between. An entity that goes to sleep must not place itself
+     * into the next field state; it stays on its current cell while it sleeps.
+     * @param step The step at which the entity next needs to act.
+     */
+    protected void sleepUntil(int step) {
+        wakeStep = step;
+    }
+
+    /**
+     * Returns the step at which this entity next needs to act.
+     * @return The wake-up step, which is not after the current step unless the entity is dormant.
+     */
+    public int getWakeStep() {
+        return wakeStep;
+    }
 }
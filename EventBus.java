@@ -0,0 +1,250 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock-free bus carrying simulation events (births, deaths, infections, recoveries and
+ * predation) from the simulation thread to any number of consumers running on their own threads.
+ *
+ * Events are written into a ring buffer of primitive arrays, so publishing an event never
+ * allocates and never takes a lock: the simulation thread fills in the next slot and moves
+ * the published cursor on. Each consumer keeps its own position in the buffer and drains every
+ * event published since in one batch. If the slowest consumer falls a whole buffer behind, new
+ * events are dropped and counted rather than holding up the simulation. When nothing is
+ * subscribed, publishing returns straight away, and the buffer is only allocated when the first
+ * consumer subscribes, so a simulation nobody listens to pays nothing for it.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class EventBus {
+    /**
+     * The kinds of event carried by the bus.
+     */
+    public enum Kind {
+        BIRTH, DEATH, INFECTION, RECOVERY, PREDATION
+    }
+
+    /**
+     * The causes of death reported with {@link Kind#DEATH} events.
+     */
+    public enum Cause {
+        AGE, STARVATION, PREDATION, DISEASE, OVERCROWDING
+    }
+
+    /**
+     * Receives the events published on the bus, on the consumer's own thread.
+     */
+    public interface Consumer {
+        /**
+         * Handle one event.
+         * @param kind The kind of event.
+         * @param step The step the event happened at.
+         * @param species The species the event happened to, as a {@link #speciesId} number.
+         * @param detail The cause of a death, the species eaten in a predation, and otherwise 0.
+         * @param row The row of the field the event happened at.
+         * @param col The column of the field the event happened at.
+         */
+        void onEvent(Kind kind, int step, int species, int detail, int row, int col);
+
+        /**
+         * Called after each batch of events has been handled.
+         */
+        default void onBatchEnd() {}
+    }
+
+    private static final Class<?>[] SPECIES = {
+            Wolf.class, Bobcat.class, Squirrel.class, Grouse.class, Seeds.class, Berries.class
+    }; // The species that events can refer to, numbered by position.
+    private static final Kind[] KINDS = Kind.values(); // The kinds of event, by ordinal.
+    private static final long IDLE_NANOS = 200_000; // How long an idle consumer waits before checking again.
+
+    private final int size; // The number of events the buffer holds.
+    private final int mask; // Mask turning a sequence number into a slot of the buffer.
+    private byte[] kinds; // The kind of the event in each slot, or null until the first consumer subscribes.
+    private int[] steps; // The step of the event in each slot.
+    private byte[] species; // The species of the event in each slot.
+    private byte[] details; // The detail of the event in each slot.
+    private int[] rows; // The row of the event in each slot.
+    private int[] cols; // The column of the event in each slot.
+    private final AtomicLong cursor = new AtomicLong(-1); // The sequence number of the last event published.
+    private volatile Subscription[] subscriptions = new Subscription[0]; // The consumers of the bus.
+    private volatile long dropped; // The number of events dropped because the buffer was full.
+    private long next; // The sequence number of the next event to publish.
+    private long gate = -1; // The position of the slowest consumer, as last seen by the publisher.
+
+    /**
+     * Create an event bus.
+     * @param capacity The number of events the buffer holds; rounded up to a power of two.
+     */
+    public EventBus(int capacity) {
+        size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1; // The next power of two.
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the number used for a species in events.
+     * @param type The class of the animal or plant.
+     * @return The species number, or -1 if the class is not a known species.
+     */
+    public static int speciesId(Class<?> type) {
+        for (int i = 0; i < SPECIES.length; i++) {
+            if (SPECIES[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the name of a species number used in events.
+     * @param id The species number.
+     * @return The name of the species.
+     */
+    public static String speciesName(int id) {
+        return id >= 0 && id < SPECIES.length ? SPECIES[id].getSimpleName() : "Unknown";
+    }
+
+    /**
+     * Returns whether anything is listening to the bus.
+     * @return true if at least one consumer is subscribed.
+     */
+    public boolean hasConsumers() {
+        return subscriptions.length > 0;
+    }
+
+    /**
+     * Publish an event. Only the simulation thread may publish. Never blocks and never allocates.
+     * @param kind The kind of event.
+     * @param step The step the event happened at.
+     * @param type The class of the animal or plant the event happened to.
+     * @param detail The cause of a death, the species eaten in a predation, and otherwise 0.
+     * @param location The location the event happened at.
+     */
+    public void publish(Kind kind, int step, Class<?> type, int detail, Location location) {
+        Subscription[] current = subscriptions;
+        if (current.length == 0) {
+            return; // Nobody is listening.
+        }
+        long sequence = next;
+        if (sequence - size > gate) {
+            gate = slowest(current); // Look again at how far the consumers have got.
+            if (sequence - size > gate) {
+                dropped++; // The buffer is full: drop the event rather than wait.
+                return;
+            }
+        }
+        int slot = (int) (sequence & mask);
+        kinds[slot] = (byte) kind.ordinal();
+        steps[slot] = step;
+        species[slot] = (byte) speciesId(type);
+        details[slot] = (byte) detail;
+        rows[slot] = location.row();
+        cols[slot] = location.col();
+        next = sequence + 1;
+        cursor.lazySet(sequence); // Make the event visible to the consumers.
+    }
+
+    /**
+     * Start a consumer on its own daemon thread. It receives the events published from now on.
+     * @param name A name for the consumer's thread.
+     * @param consumer The consumer.
+     */
+    public synchronized void subscribe(String name, Consumer consumer) {
+        if (kinds == null) { // Written before the subscription is published, so the publisher sees the buffer.
+            kinds = new byte[size];
+            steps = new int[size];
+            species = new byte[size];
+            details = new byte[size];
+            rows = new int[size];
+            cols = new int[size];
+        }
+        Subscription subscription = new Subscription(consumer, cursor.get());
+        Subscription[] current = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        current[current.length - 1] = subscription;
+        subscription.thread = Thread.ofPlatform().name("events-" + name).daemon().unstarted(subscription);
+        subscriptions = current;
+        subscription.thread.start();
+    }
+
+    /**
+     * Wait until every consumer has handled every event published so far.
+     */
+    public void flush() {
+        long published = cursor.get();
+        for (Subscription subscription : subscriptions) {
+            while (subscription.sequence.get() < published && subscription.thread.isAlive()) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Let every consumer handle the events already published, then stop the consumers.
+     */
+    public synchronized void close() {
+        Subscription[] current = subscriptions;
+        subscriptions = new Subscription[0];
+        for (Subscription subscription : current) {
+            subscription.running = false;
+            try {
+                subscription.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events dropped because a consumer fell too far behind.
+     * @return The number of dropped events.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Returns the position of the slowest consumer.
+     */
+    private static long slowest(Subscription[] current) {
+        long slowest = Long.MAX_VALUE;
+        for (Subscription subscription : current) {
+            slowest = Math.min(slowest, subscription.sequence.get());
+        }
+        return slowest;
+    }
+
+    /**
+     * A consumer together with its position in the buffer and its thread.
+     */
+    private class Subscription implements Runnable {
+        private final Consumer consumer; // The consumer being fed.
+        private final AtomicLong sequence; // The sequence number of the last event handled.
+        private volatile boolean running = true; // Whether the consumer should wait for more events.
+        private Thread thread; // The thread draining the buffer for the consumer.
+
+        private Subscription(Consumer consumer, long start) {
+            this.consumer = consumer;
+            this.sequence = new AtomicLong(start);
+        }
+
+        @Override
+        public void run() {
+            long handled = sequence.get();
+            while (running || handled < cursor.get()) {
+                long available = cursor.get();
+                if (available == handled) {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                for (long s = handled + 1; s <= available; s++) {
+                    int slot = (int) (s & mask);
+                    consumer.onEvent(KINDS[kinds[slot]], steps[slot], species[slot], details[slot], rows[slot], cols[slot]);
+                }
+                consumer.onBatchEnd();
+                handled = available;
+                sequence.lazySet(handled); // Free the handled slots for the publisher.
+            }
+        }
+    }
+}
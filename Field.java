@@ -1,28 +1,106 @@
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a rectangular grid of field positions. Each position is able to store a single
- * entity (e.g., an animal or a plant).  Provides methods for managing entities within the field,
- * including placing, retrieving, and moving them.
+ * animal, and may also hold a plant from the field's plant layer.  Provides methods for managing
+ * entities within the field, including placing, retrieving, and moving them.
  *
  * @author David J. Barnes and Michael Kölling and Mahdi Razzaque
  * @version 10.02.2025
  */
 public class Field {
+    /**
+     * The number of animal species counted in the population signature: the animal species
+     * numbered by {@link EventBus#speciesId}. The plant species follow them in the signature.
+     */
+    public static final int ANIMAL_SPECIES = 4;
 
-    private static final Random rand = Randomizer.getRandom(); // A random number generator for providing random locations.
+    private final Random rand; // A random number generator for providing random locations.
     private final int depth, width; // The dimensions of the field.
-    private final Map<Location, Entity> field = new HashMap<>(); // Entities mapped by location.
-    private final List<Entity> entity = new ArrayList<>(); // List of all entities in the field
+    private final Map<Location, Entity> field; // Entities mapped by location.
+    private final List<Entity> entity; // List of all entities in the field
+    private final PlantLayer plants; // The plants growing in the field, shared between field states.
+    private final ActivityScheduler scheduler; // The dormant entities resting in the field, shared between field states.
+    private long hash; // Zobrist hash of the living entities placed into this field state.
+    private final int[] population = new int[ANIMAL_SPECIES]; // Living entities placed into this field state, by species.
+
+    /**
+     * Represent a field of the given dimensions without any plant life.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param rand The random number generator of the simulation.
+     */
+    public Field(int depth, int width, Random rand) {
+        this(depth, width, new PlantLayer(depth, width, rand), new ActivityScheduler(), rand);
+    }
 
     /**
-     * Represent a field of the given dimensions.
+     * Represent a field of the given dimensions, covered by the given plant layer and holding
+     * the dormant entities of the given scheduler.
      * @param depth The depth of the field.
      * @param width The width of the field.
+     * @param plants The plant layer of the field.
+     * @param scheduler The scheduler holding the entities that are dormant on the field.
+     * @param rand The random number generator of the simulation.
      */
-    public Field(int depth, int width) {
+    public Field(int depth, int width, PlantLayer plants, ActivityScheduler scheduler, Random rand) {
         this.depth = depth;
+        this.rand = rand;
         this.width = width;
+        this.plants = plants;
+        this.scheduler = scheduler;
+        field = new HashMap<>();
+        entity = new ArrayList<>();
+    }
+
+    /**
+     * Represent the same entities as another field state, held in the same collections, covered
+     * by another plant layer.
+     * @param other The field state whose entities are shared.
+     * @param plants The plant layer of the new field state.
+     */
+    private Field(Field other, PlantLayer plants) {
+        depth = other.depth;
+        rand = other.rand;
+        width = other.width;
+        this.plants = plants;
+        scheduler = other.scheduler;
+        field = other.field;
+        entity = other.entity;
+        hash = other.hash;
+        System.arraycopy(other.population, 0, population, 0, population.length);
+    }
+
+    /**
+     * Returns a copy of this field state, holding a replacement for each of its entities on the
+     * same cell and in the same order, covered by the given plant layer and dormant entities.
+     * @param plants The plant layer of the copy.
+     * @param scheduler The scheduler holding the entities that are dormant on the copy.
+     * @param rand The random number generator of the copy's simulation.
+     * @param replacement Returns the entity to hold in the copy in place of an entity of this field.
+     * @return The copy.
+     */
+    public Field copy(PlantLayer plants, ActivityScheduler scheduler, Random rand, UnaryOperator<Entity> replacement) {
+        Field copy = new Field(depth, width, plants, scheduler, rand);
+        field.forEach((location, anEntity) -> copy.field.put(location, replacement.apply(anEntity)));
+        for (Entity anEntity : entity) {
+            copy.entity.add(replacement.apply(anEntity));
+        }
+        copy.hash = hash;
+        System.arraycopy(population, 0, copy.population, 0, population.length);
+        return copy;
+    }
+
+    /**
+     * Returns a field state that shares this one's entities, without copying them, but is covered
+     * by the given plant layer. Neither field state may be changed while the other is in use; a
+     * simulation forking this state takes a {@link #copy} before it changes it.
+     * @param plants The plant layer of the shared field state.
+     * @return The shared field state.
+     */
+    public Field share(PlantLayer plants) {
+        return new Field(this, plants);
     }
 
     /**
@@ -33,21 +111,117 @@ public class Field {
      */
     public void placeEntity(Entity anEntity, Location location) {
         assert location != null;
-        Object other = field.get(location);
+        Entity other = field.get(location);
         if(other != null) {
             entity.remove(other); // Remove any existing entity at the location.
+            if(other.isAlive()) {
+                account(other, location, -1); // A dead entity was already taken out of the hash.
+            }
         }
         field.put(location, anEntity); // Place the new entity in the field.
         entity.add(anEntity); // Add entity to list.
+        account(anEntity, location, 1);
+    }
+
+    /**
+     * Takes an entity that is dying out of the hash and population of this field state, if it
+     * was placed into it. The entity itself stays in place, dead, as it always has.
+     * @param anEntity The entity that is dying, which must still be alive.
+     * @param location The location the entity is dying at.
+     */
+    public void removeEntity(Entity anEntity, Location location) {
+        if (location != null && field.get(location) == anEntity) {
+            account(anEntity, location, -1);
+        }
+    }
+
+    /**
+     * Add an entity to, or take it out of, the hash and population of this field state.
+     * @param anEntity The entity.
+     * @param location The location of the entity.
+     * @param sign 1 to add the entity, -1 to take it out.
+     */
+    private void account(Entity anEntity, Location location, int sign) {
+        if (anEntity instanceof Animal animal) {
+            hash ^= Zobrist.animalKey(animal, location);
+            population[EventBus.speciesId(animal.getClass())] += sign;
+        }
     }
 
     /**
-     * Returns the entity at the specified location in the field.
+     * Returns the Zobrist hash of the field's state: the species, gender and cell of every living
+     * animal, awake or dormant, and the species and cell of every plant. The hash is kept up to
+     * date as entities are placed and die, so reading it costs nothing. Field states holding the
+     * same animals and plants in the same cells have the same hash.
+     * @return The hash of the field's state.
+     */
+    public long getStateHash() {
+        return hash ^ scheduler.getHash() ^ plants.getHash();
+    }
+
+    /**
+     * Returns the population signature of the field: the number of living animals of each species,
+     * awake or dormant, numbered as in {@link EventBus#speciesId}, followed by the number of plants
+     * of each species in the plant layer. The counts are kept up to date as entities are placed and die.
+     * @return A new array holding the population of each species.
+     */
+    public int[] getPopulations() {
+        Plant[] types = plants.getTypes();
+        int[] populations = new int[ANIMAL_SPECIES + types.length];
+        for (int s = 0; s < ANIMAL_SPECIES; s++) {
+            populations[s] = population[s] + scheduler.getPopulation(s);
+        }
+        for (int t = 0; t < types.length; t++) {
+            populations[ANIMAL_SPECIES + t] = plants.getCount(types[t].getClass());
+        }
+        return populations;
+    }
+
+    /**
+     * Returns the entity at the specified location in the field, including dormant entities.
      * @param location The location to check.
      * @return The entity at the given location, or `null` if the location is empty.
      */
     public Entity getEntityAt(Location location) {
-        return field.get(location);
+        Entity anEntity = field.get(location);
+        if (anEntity == null) {
+            anEntity = scheduler.getDormantAt(location); // Dormant entities stay on their cell while they sleep.
+        }
+        return anEntity;
+    }
+
+    /**
+     * Returns the plant growing at the specified location in the field.
+     * @param location The location to check.
+     * @return The plant species at the given location, or `null` if no plant grows there.
+     */
+    public Plant getPlantAt(Location location) {
+        return plants.getPlantAt(location);
+    }
+
+    /**
+     * Mark the cell of every living animal in the field, awake or dormant, in an array: 0 for no
+     * animal, otherwise one more than the animal's species as numbered by {@link EventBus#speciesId}.
+     * @param target The array to mark, row by row, at least as long as the number of cells.
+     */
+    public void copyAnimalSpeciesTo(byte[] target) {
+        Arrays.fill(target, 0, depth * width, (byte) 0);
+        for (Iterable<Entity> entities : List.of(entity, scheduler.getDormantEntities())) {
+            for (Entity anEntity : entities) {
+                if (anEntity instanceof Animal && anEntity.isAlive()) {
+                    Location location = anEntity.getLocation();
+                    target[location.row() * width + location.col()] = (byte) (EventBus.speciesId(anEntity.getClass()) + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the plant layer of the field.
+     * @return The plant layer shared by this field state.
+     */
+    public PlantLayer getPlants() {
+        return plants;
     }
 
     /**
@@ -59,7 +233,7 @@ public class Field {
         List<Location> free = new LinkedList<>();
         List<Location> adjacent = getAdjacentLocations(location);
         for(Location next : adjacent) {
-            Entity anEntity = field.get(next);
+            Entity anEntity = getEntityAt(next);
             if(anEntity == null) {
                 free.add(next);
             }
@@ -113,11 +287,11 @@ public class Field {
         int numBobcatMales = 0, numBobcatFemales = 0;  // Counters for male and female bobcats
         int numSquirrelMales = 0, numSquirrelFemales = 0;  // Counters for male and female squirrels
         int numGrouseMales = 0, numGrouseFemales = 0;  // Counters for male and female grouse
-        int numSeeds = 0;  // Counter for seeds
-        int numBerries = 0;  // Counter for berries
+        int numSeeds = plants.getCount(Seeds.class);  // Counter for seeds
+        int numBerries = plants.getCount(Berries.class);  // Counter for berries
 
-        // Iterate through all entities in the field
-        for (Entity anEntity : field.values()) {
+        // Iterate through all entities in the field, awake and dormant
+        for (Entity anEntity : getResidents()) {
             if (!anEntity.isAlive()) continue;
 
             switch (anEntity) {
@@ -149,14 +323,25 @@ public class Field {
                         numGrouseFemales++;
                     }
                 }
-                case Seeds seeds -> numSeeds++;
-                case Berries berries -> numBerries++;
                 default ->
                     // Warn if an unexpected entity type is encountered
                         System.err.println("Warning: Unexpected entity type in field: " + anEntity.getClass().getSimpleName());
             }
         }
 
+        printStats(new int[] {numWolfMales, numBobcatMales, numSquirrelMales, numGrouseMales},
+                new int[] {numWolfFemales, numBobcatFemales, numSquirrelFemales, numGrouseFemales}, numSeeds, numBerries);
+    }
+
+    /**
+     * Prints tables of the number of each type of animal, with the number of males and females,
+     * and of each type of plant.
+     * @param males The number of males of each animal species, numbered as in {@link EventBus#speciesId}.
+     * @param females The number of females of each animal species, numbered as in {@link EventBus#speciesId}.
+     * @param numSeeds The number of seeds.
+     * @param numBerries The number of berries.
+     */
+    public static void printStats(int[] males, int[] females, int numSeeds, int numBerries) {
         String headerSeparator = "+-----------------+----------+--------+--------+\n";  // Separator for the animal table
         String rowFormat = "| %-15s | %-8s | %-6s | %-6s |\n"; // Format string for the animal table rows
 
@@ -165,10 +350,10 @@ public class Field {
         System.out.print(headerSeparator);
 
         // Animals table
-        System.out.printf(rowFormat, "Wolves", numWolfMales + numWolfFemales, numWolfMales, numWolfFemales);
-        System.out.printf(rowFormat, "Bobcats", numBobcatMales + numBobcatFemales, numBobcatMales, numBobcatFemales);
-        System.out.printf(rowFormat, "Squirrels", numSquirrelMales + numSquirrelFemales, numSquirrelMales, numSquirrelFemales);
-        System.out.printf(rowFormat, "Grouse", numGrouseMales + numGrouseFemales, numGrouseMales, numGrouseFemales);
+        String[] names = {"Wolves", "Bobcats", "Squirrels", "Grouse"}; // Numbered as in EventBus.speciesId.
+        for (int s = 0; s < names.length; s++) {
+            System.out.printf(rowFormat, names[s], males[s] + females[s], males[s], females[s]);
+        }
 
         System.out.print(headerSeparator);
 
@@ -190,16 +375,7 @@ public class Field {
      * @return The number of living male entities of the specified class.
      */
     public int getMaleCount(Class<?> entityClass) {
-        int count = 0;
-        for (Entity entity : field.values()) {
-            if (entityClass.isInstance(entity) && // Checks if entity is an instance of the given class
-                    entity instanceof Animal animal && // Checks if the entity is an Animal
-                    animal.isAlive() && // Checks if the animal is alive
-                    animal.getGender() == Gender.MALE) { // Checks if the animal is male
-                count++; // Increment count if conditions are met
-            }
-        }
-        return count; // Return the total count
+        return getCount(entityClass, Gender.MALE);
     }
 
     /**
@@ -208,38 +384,65 @@ public class Field {
      * @return The number of living female entities of the specified class.
      */
     public int getFemaleCount(Class<?> entityClass) {
+        return getCount(entityClass, Gender.FEMALE);
+    }
+
+    /**
+     * Returns the number of living entities of a given class and gender in the field,
+     * counting both awake and dormant entities.
+     * @param entityClass The class of the entity to count.
+     * @param gender The gender of the entities to count.
+     * @return The number of living entities of the specified class and gender.
+     */
+    private int getCount(Class<?> entityClass, Gender gender) {
         int count = 0;
-        for (Entity entity : field.values()) {
-            if (entityClass.isInstance(entity) &&  // Checks if entity is an instance of the given class
+        for (Entity entity : getResidents()) {
+            if (entityClass.isInstance(entity) && // Checks if entity is an instance of the given class
                     entity instanceof Animal animal && // Checks if the entity is an Animal
                     animal.isAlive() && // Checks if the animal is alive
-                    animal.getGender() == Gender.FEMALE) { // Checks if the animal is female
+                    animal.getGender() == gender) { // Checks if the animal has the given gender
                 count++; // Increment count if conditions are met
             }
         }
         return count; // Return the total count
     }
 
+    /**
+     * Returns every entity resident in the field: those placed into this field state followed by
+     * those lying dormant on it.
+     * @return The awake and dormant entities of the field.
+     */
+    private Iterable<Entity> getResidents() {
+        Collection<Entity> awake = field.values();
+        Collection<Entity> dormant = scheduler.getDormantEntities();
+        if (dormant.isEmpty()) {
+            return awake;
+        }
+        List<Entity> residents = new ArrayList<>(awake.size() + dormant.size());
+        residents.addAll(awake);
+        residents.addAll(dormant);
+        return residents;
+    }
+
     /**
      * Returns the number of living plants of a given class in the field.
      * @param plantClass The class of the plant to count.
      * @return The number of living plants of the specified class.
      */
     public int getPlantCount(Class<? extends Plant> plantClass) {
-        int count = 0;
-        for (Entity entity : field.values()) {
-            if (plantClass.isInstance(entity) && entity.isAlive()) { // Checks if entity is an instance of the given class and alive
-                count++; // Increment count if conditions are met
-            }
-        }
-        return count; // Return the total count
+        return plants.getCount(plantClass); // The plant layer keeps its counts up to date
     }
 
     /**
-     * Empty the field.
+     * Empty the field, including its plant layer and dormant entities.
      */
     public void clear() {
         field.clear();
+        entity.clear();
+        hash = 0;
+        Arrays.fill(population, 0);
+        plants.clear();
+        scheduler.clear();
     }
 
     /**
@@ -257,7 +460,7 @@ public class Field {
         boolean grouseFound = false;    // Flag to indicate if a grouse has been found.   Initialise to false.
 
         // Iterate through the entities list to find at least one of each animal
-        Iterator<Entity> it = entity.iterator(); // Use the class's 'entities' list
+        Iterator<Entity> it = getResidents().iterator(); // Use the field's awake and dormant entities
         while (it.hasNext() && !(wolfFound && bobcatFound && squirrelFound && grouseFound)) { // Stop if all animals have been found
             Entity anEntity = it.next();
 
@@ -275,7 +478,15 @@ public class Field {
     }
     
     /**
-     * Get the list of entity.
+     * Returns the scheduler holding the entities that are dormant on the field.
+     * @return The activity scheduler shared by this field state.
+     */
+    public ActivityScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Get the list of entities placed into this field state. Dormant entities are not included.
      */
     public List<Entity> getEntities() {
         return entity;
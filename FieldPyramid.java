@@ -0,0 +1,136 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Summaries of a frame's field at ever coarser resolutions, for drawing fields that have more
+ * cells than the screen has pixels. Level k divides the field into blocks of 2^k by 2^k cells and
+ * records, for each block, its most common species and how densely it is occupied, so a block can
+ * be drawn as a single pixel in the most common species' colour, faded towards the empty colour
+ * where the block is sparse. Level 0 is the frame itself, which is read directly and never copied.
+ *
+ * A level is built only when it is first asked for after a frame arrives, so a view that is
+ * zoomed in builds none, and one that is zoomed out builds only the level it draws. It is counted
+ * straight from the frame's cells in a single pass, in parallel bands of block rows on large
+ * fields, each cell costing a table lookup and an increment.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class FieldPyramid {
+    private static final int PARALLEL_CELLS = 1 << 16; // The smallest field whose levels are built in parallel.
+    private static final int BAND_CELLS = 1 << 16; // The number of cells counted in a band, rounded to whole rows of blocks.
+    private static final byte[] SPECIES_CODES = new byte[256]; // One more than the species of each cell code, or 0 if empty.
+
+    static {
+        for (int code = 0; code < SPECIES_CODES.length; code++) {
+            SPECIES_CODES[code] = (byte) (StepFrame.speciesOf(code) + 1);
+        }
+    }
+
+    /**
+     * One level of the pyramid.
+     * @param depth The number of rows of blocks.
+     * @param width The number of columns of blocks.
+     * @param dominant One more than the most common species of each block, or 0 if the block is empty.
+     * @param density How densely each block is occupied, from 0 for empty to 255 for full, as an unsigned byte.
+     */
+    public record Level(int depth, int width, byte[] dominant, byte[] density) {}
+
+    private final int depth, width; // The dimensions of the field.
+    private final int species; // The number of species.
+    private final Level[] levels; // Every level above level 0, from level 1.
+    private final boolean[] built; // Whether each level has been built from the current frame.
+    private byte[] cells; // The cells of the current frame, or null before the first.
+
+    /**
+     * Create a pyramid for a field, with as many levels as it takes to summarise the whole field in one block.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param species The number of species, numbered as in {@link Field#getPopulations()}.
+     */
+    public FieldPyramid(int depth, int width, int species) {
+        this.depth = depth;
+        this.width = width;
+        this.species = species;
+        int count = 0;
+        while ((Math.max(depth, width) - 1) >> count > 0) {
+            count++;
+        }
+        levels = new Level[count];
+        built = new boolean[count];
+        for (int k = 1; k <= count; k++) {
+            int rows = ((depth - 1) >> k) + 1, cols = ((width - 1) >> k) + 1;
+            levels[k - 1] = new Level(rows, cols, new byte[rows * cols], new byte[rows * cols]);
+        }
+    }
+
+    /**
+     * Summarise a new frame. The levels are rebuilt from it as they are next asked for.
+     * @param frame The frame, of a field of this pyramid's size.
+     */
+    public void update(StepFrame frame) {
+        cells = frame.cells();
+        Arrays.fill(built, false);
+    }
+
+    /**
+     * Returns the number of levels above level 0.
+     * @return The highest level there is.
+     */
+    public int getLevels() {
+        return levels.length;
+    }
+
+    /**
+     * Returns a level of the current frame, building it if need be.
+     * @param k The level, from 1 to {@link #getLevels()}.
+     * @return The level.
+     */
+    public Level getLevel(int k) {
+        if (cells == null) {
+            throw new IllegalStateException("No frame to summarise");
+        }
+        if (!built[k - 1]) {
+            Level level = levels[k - 1];
+            int bandRows = Math.max(1, (BAND_CELLS >> 2 * k) / level.width());
+            IntStream bands = IntStream.range(0, (level.depth() + bandRows - 1) / bandRows);
+            if ((long) depth * width >= PARALLEL_CELLS) {
+                bands = bands.parallel();
+            }
+            bands.forEach(band -> buildRows(k, band * bandRows, Math.min(level.depth(), (band + 1) * bandRows)));
+            built[k - 1] = true;
+        }
+        return levels[k - 1];
+    }
+
+    /**
+     * Count the cells of each species in some rows of blocks of a level.
+     */
+    private void buildRows(int k, int fromRow, int toRow) {
+        Level level = levels[k - 1];
+        int codes = species + 1;
+        int[] counts = new int[level.width() * codes]; // The cells of each code in each block of a row of blocks.
+        for (int row = fromRow; row < toRow; row++) {
+            Arrays.fill(counts, 0);
+            int firstCell = row << k, lastCell = Math.min(depth, (row + 1) << k);
+            for (int r = firstCell; r < lastCell; r++) {
+                for (int c = 0, i = r * width; c < width; c++, i++) {
+                    counts[(c >> k) * codes + SPECIES_CODES[cells[i] & 0xFF]]++;
+                }
+            }
+            for (int col = 0; col < level.width(); col++) {
+                int base = col * codes, area = (lastCell - firstCell) * (Math.min(width, (col + 1) << k) - (col << k));
+                int dominant = 0, most = 0, occupied = 0;
+                for (int code = 1; code < codes; code++) {
+                    occupied += counts[base + code];
+                    if (counts[base + code] > most) {
+                        dominant = code;
+                        most = counts[base + code];
+                    }
+                }
+                level.dominant()[row * level.width() + col] = (byte) dominant;
+                level.density()[row * level.width() + col] = (byte) (occupied * 255L / area);
+            }
+        }
+    }
+}
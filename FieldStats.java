@@ -123,12 +123,18 @@ public class FieldStats {
         reset();
         for (int row = 0; row < field.getDepth(); row++) {
             for (int col = 0; col < field.getWidth(); col++) {
-                Entity entity = field.getEntityAt(new Location(row, col));
+                Location location = new Location(row, col);
+                Plant plant = field.getPlantAt(location);
+                if (plant != null) {
+                    incrementCount(plant.getClass());
+                }
+
+                Entity entity = field.getEntityAt(location);
                 if (entity != null) {
                     incrementCount(entity.getClass());
 
                     // If the entity is an infected animal, count it
-                    if (entity instanceof Animal animal && animal.disease != null) {
+                    if (entity instanceof Animal animal && animal.getCurrentDisease() != null) {
                         incrementInfectedCount();
                     }
                 }
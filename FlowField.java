@@ -0,0 +1,141 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Flow fields leading every cell of the field to the nearest member of a species, rebuilt once per
+ * step, so that any number of predators can chase their nearest prey across the whole field for
+ * the cost of one breadth-first search per prey species. Each search starts from every cell the
+ * species is in at once, and moves between adjacent cells, diagonals included, as the animals do.
+ * It records, for every cell, the number of moves to the nearest member of the species and the
+ * direction of the first of them, so a predator reads its next move in constant time.
+ *
+ * The searches ignore the animals standing in the way, which move every step; a predator whose
+ * next cell is taken makes do with another adjacent cell that is closer to its prey.
+ *
+ * Species are numbered as in {@link Field#getPopulations()}: the animal species as in
+ * {@link EventBus#speciesId}, followed by the plant species in plant layer order.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class FlowField {
+    /**
+     * The distance of a cell from which no member of a species can be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int PARALLEL_CELLS = 1 << 16; // The smallest field whose searches run in parallel.
+    private static final byte NONE = -1; // The direction of a cell holding the species, or from which it cannot be reached.
+    private static final int[] ROW_STEP = {-1, -1, -1, 0, 0, 1, 1, 1}; // The row offset of each direction.
+    private static final int[] COL_STEP = {-1, 0, 1, -1, 1, -1, 0, 1}; // The column offset of each direction.
+
+    private final int depth, width; // The dimensions of the field.
+    private final int[] species; // The species that have flow fields.
+    private final int[][] distance; // The moves from each cell to the nearest member of each species, or null.
+    private final byte[][] direction; // The direction of the first of those moves from each cell, or null.
+    private final int[][] queues; // Scratch queue of cells for the search of each species, or null.
+
+    /**
+     * Create empty flow fields for some species of a field.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param speciesCount The number of species, animals and plants, on the field.
+     * @param species The species to build flow fields towards.
+     */
+    public FlowField(int depth, int width, int speciesCount, int... species) {
+        this.depth = depth;
+        this.width = width;
+        this.species = species.clone();
+        int cells = depth * width;
+        distance = new int[speciesCount][];
+        direction = new byte[speciesCount][];
+        queues = new int[speciesCount][];
+        for (int s : species) {
+            distance[s] = new int[cells];
+            direction[s] = new byte[cells];
+            queues[s] = new int[cells];
+        }
+    }
+
+    /**
+     * Rebuild the flow fields from a field state: its living animals, awake or dormant, and its
+     * plants. On large fields the species are searched in parallel.
+     * @param grid The species on every cell of the field state to search, brought up to date with it.
+     */
+    public void build(SpeciesGrid grid) {
+        IntStream searches = Arrays.stream(species);
+        if ((long) depth * width >= PARALLEL_CELLS) {
+            searches = searches.parallel();
+        }
+        searches.forEach(s -> search(s, grid));
+    }
+
+    /**
+     * Run the breadth-first search of one species, starting from every cell it is in.
+     */
+    private void search(int s, SpeciesGrid grid) {
+        int[] dist = distance[s];
+        byte[] dir = direction[s];
+        int[] queue = queues[s];
+        byte[] cells = s < Field.ANIMAL_SPECIES ? grid.getAnimals() : grid.getPlants();
+        byte code = (byte) (s < Field.ANIMAL_SPECIES ? s + 1 : s - Field.ANIMAL_SPECIES + 1);
+
+        int tail = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] == code) {
+                dist[cell] = 0;
+                queue[tail++] = cell;
+            } else {
+                dist[cell] = UNREACHABLE;
+            }
+        }
+        Arrays.fill(dir, NONE);
+
+        for (int head = 0; head < tail; head++) {
+            int cell = queue[head];
+            int row = cell / width, col = cell % width;
+            int next = dist[cell] + 1;
+            for (int d = 0; d < ROW_STEP.length; d++) {
+                int r = row + ROW_STEP[d], c = col + COL_STEP[d];
+                if (r >= 0 && r < depth && c >= 0 && c < width) {
+                    int neighbour = r * width + c;
+                    if (dist[neighbour] == UNREACHABLE) {
+                        dist[neighbour] = next;
+                        dir[neighbour] = (byte) (ROW_STEP.length - 1 - d); // The opposite direction, back towards the cell.
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether there is a flow field towards a species.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @return true if the species' flow field is built each step.
+     */
+    public boolean hasSpecies(int species) {
+        return species >= 0 && species < distance.length && distance[species] != null;
+    }
+
+    /**
+     * Returns the number of moves from a location to the nearest member of a species.
+     * @param species The species, which must have a flow field.
+     * @param location The location to move from.
+     * @return The number of moves, 0 if the species is at the location, or {@link #UNREACHABLE}.
+     */
+    public int getDistance(int species, Location location) {
+        return distance[species][location.row() * width + location.col()];
+    }
+
+    /**
+     * Returns the adjacent location on a shortest path from a location to the nearest member of a species.
+     * @param species The species, which must have a flow field.
+     * @param location The location to move from.
+     * @return The next location on the path, or null if the species is at the location or cannot be reached.
+     */
+    public Location getNextHop(int species, Location location) {
+        int d = direction[species][location.row() * width + location.col()];
+        return d == NONE ? null : new Location(location.row() + ROW_STEP[d], location.col() + COL_STEP[d]);
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.stream.IntStream;
+
+/**
+ * Summed-area tables of where each species is on the field, rebuilt once per step, so that an
+ * animal can ask how much of a food species lies within any radius of it, and on which side, in
+ * constant time however large the radius is. Without them, looking further than the adjacent cells
+ * would cost every animal time in proportion to the area it looks over.
+ *
+ * Species are numbered as in {@link Field#getPopulations()}: the animal species as in
+ * {@link EventBus#speciesId}, followed by the plant species in plant layer order. Entry
+ * {@code (r, c)} of a species' table holds the number of that species in the cells above row
+ * {@code r} and left of column {@code c}, so the count in any rectangle is found from its four
+ * corners.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class FoodDensity {
+    private static final int PARALLEL_CELLS = 1 << 16; // The smallest field whose tables are built in parallel.
+
+    private final int depth, width; // The dimensions of the field.
+    private final int stride; // The length of a row of a table, one more than the width of the field.
+    private final int[][] tables; // The summed-area table of each species.
+
+    /**
+     * Create empty tables for a field.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param species The number of species, animals and plants, on the field.
+     */
+    public FoodDensity(int depth, int width, int species) {
+        this.depth = depth;
+        this.width = width;
+        this.stride = width + 1;
+        tables = new int[species][(depth + 1) * stride];
+    }
+
+    /**
+     * Rebuild the tables from a field state: its living animals, awake or dormant, and its plants.
+     * Each species' table is built in a single pass over the field, and on large fields the
+     * species are built in parallel.
+     * @param grid The species on every cell of the field state to count, brought up to date with it.
+     */
+    public void build(SpeciesGrid grid) {
+        IntStream species = IntStream.range(0, tables.length);
+        if ((long) depth * width >= PARALLEL_CELLS) {
+            species = species.parallel();
+        }
+        species.forEach(s -> sum(s, grid));
+    }
+
+    /**
+     * Fill the summed-area table of one species from the marked cells. The first row and column
+     * of the table are never written, and stay zero.
+     */
+    private void sum(int species, SpeciesGrid grid) {
+        int[] table = tables[species];
+        byte[] cells = species < Field.ANIMAL_SPECIES ? grid.getAnimals() : grid.getPlants();
+        byte code = (byte) (species < Field.ANIMAL_SPECIES ? species + 1 : species - Field.ANIMAL_SPECIES + 1);
+        for (int row = 0; row < depth; row++) {
+            int rowSum = 0; // The count in this row, left of and including the current column.
+            int above = row * stride + 1, here = above + stride, cell = row * width;
+            for (int col = 0; col < width; col++) {
+                rowSum += cells[cell + col] == code ? 1 : 0;
+                table[here + col] = table[above + col] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of a species in a rectangle of the field, clipped to the field.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @param top The first row of the rectangle.
+     * @param left The first column of the rectangle.
+     * @param bottom The last row of the rectangle.
+     * @param right The last column of the rectangle.
+     * @return The number of the species in the rectangle, or 0 if it lies outside the field.
+     */
+    public int count(int species, int top, int left, int bottom, int right) {
+        top = Math.max(top, 0);
+        left = Math.max(left, 0);
+        bottom = Math.min(bottom, depth - 1);
+        right = Math.min(right, width - 1);
+        if (top > bottom || left > right) {
+            return 0;
+        }
+        int[] table = tables[species];
+        return table[(bottom + 1) * stride + right + 1] - table[top * stride + right + 1]
+                - table[(bottom + 1) * stride + left] + table[top * stride + left];
+    }
+
+    /**
+     * Returns the number of a species within a radius of a location, in the square of cells that
+     * are at most the radius away in both directions.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @param centre The location at the centre of the square.
+     * @param radius The radius of the square.
+     * @return The number of the species in the square.
+     */
+    public int countWithin(int species, Location centre, int radius) {
+        return count(species, centre.row() - radius, centre.col() - radius, centre.row() + radius, centre.col() + radius);
+    }
+
+    /**
+     * Returns how many more of a species lie below a location than above it, within a radius.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @param centre The location looked from.
+     * @param radius The radius looked over.
+     * @return The count in the rows below the location less the count in the rows above it.
+     */
+    public int rowBalance(int species, Location centre, int radius) {
+        int row = centre.row(), left = centre.col() - radius, right = centre.col() + radius;
+        return count(species, row + 1, left, row + radius, right) - count(species, row - radius, left, row - 1, right);
+    }
+
+    /**
+     * Returns how many more of a species lie to the right of a location than to its left, within a radius.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @param centre The location looked from.
+     * @param radius The radius looked over.
+     * @return The count in the columns right of the location less the count in the columns left of it.
+     */
+    public int colBalance(int species, Location centre, int radius) {
+        int col = centre.col(), top = centre.row() - radius, bottom = centre.row() + radius;
+        return count(species, top, col + 1, bottom, col + radius) - count(species, top, col - radius, bottom, col - 1);
+    }
+}
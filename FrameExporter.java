@@ -0,0 +1,224 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders frames into PNG images, one per step, to be made into a video. It renders at any
+ * resolution, stretching the field over the image by taking each pixel's colour from the nearest
+ * cell, and with any colour for each species. Frames are rendered and encoded on a pool of worker
+ * threads, several at once, so that encoding never holds up the simulation or the replay feeding
+ * them; only a few frames per worker are kept waiting at a time, so memory stays bounded however
+ * long the run.
+ *
+ * It is used live as a subscriber of the step pipeline when the simulation is started with
+ * {@code -Dsimulator.frames=<dir>}, or offline to render a run recorded by a {@link FrameRecorder}:
+ * <pre>
+ *   java FrameExporter run.frames frames/ 1920 1080 "Wolf=#202020,empty=#F0E8D0"
+ * </pre>
+ * Images are named {@code frame-<step>.png}, with the step padded to six digits.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class FrameExporter implements Consumer<StepFrame>, AutoCloseable {
+    private static final int FRAMES_PER_WORKER = 2; // The number of frames each worker can have waiting.
+
+    private final Path directory; // The directory the images are written to.
+    private final int imageWidth, imageHeight; // The dimensions of the images.
+    private final IndexColorModel colours; // The colour of an empty cell followed by that of each species.
+    private final ExecutorService workers; // Renders and encodes the frames.
+    private final Semaphore waiting; // Bounds the number of frames waiting to be written.
+    private final int permits; // The number of frames that may be waiting at once.
+    private volatile IOException failure; // The first failure to write an image, or null.
+
+    /**
+     * Create an exporter writing to a directory, which is created if need be.
+     * @param directory The directory to write to.
+     * @param imageWidth The width of the images in pixels.
+     * @param imageHeight The height of the images in pixels.
+     * @param palette The colour of an empty cell, followed by the colour of each species numbered
+     *                as in {@link Field#getPopulations()}; see {@link #palette(String)}.
+     * @param threads The number of frames to render at once.
+     * @throws IOException If the directory cannot be created.
+     */
+    public FrameExporter(Path directory, int imageWidth, int imageHeight, Color[] palette, int threads) throws IOException {
+        if (imageWidth <= 0 || imageHeight <= 0) {
+            throw new IllegalArgumentException("Frames must be at least one pixel across: " + imageWidth + "x" + imageHeight);
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        byte[] red = new byte[palette.length], green = new byte[palette.length], blue = new byte[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            red[i] = (byte) palette[i].getRed();
+            green[i] = (byte) palette[i].getGreen();
+            blue[i] = (byte) palette[i].getBlue();
+        }
+        colours = new IndexColorModel(8, palette.length, red, green, blue);
+        threads = Math.max(1, threads);
+        workers = Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().factory()); // Never keeps the program running.
+        permits = threads * FRAMES_PER_WORKER;
+        waiting = new Semaphore(permits);
+    }
+
+    /**
+     * Returns a palette: the colours the window uses, with any of them replaced as given.
+     * @param overrides Replacement colours, as comma-separated {@code name=colour} pairs, where the
+     *                  name is a species or {@code empty} and the colour is as read by
+     *                  {@link Color#decode}, such as {@code #FF8000}. May be null or empty.
+     * @return The colour of an empty cell, followed by the colour of each species.
+     * @throws IllegalArgumentException If a pair names no species or has no valid colour.
+     */
+    public static Color[] palette(String overrides) {
+        Color[] palette = {Color.white, Color.gray, Color.yellow, Color.lightGray, Color.green,
+                new Color(0, 0, 128), new Color(255, 0, 0)}; // Empty, then wolves, bobcats, squirrels, grouse, seeds and berries.
+        if (overrides == null || overrides.isBlank()) {
+            return palette;
+        }
+        for (String pair : overrides.split(",")) {
+            String[] parts = pair.split("=", 2);
+            int index = parts[0].trim().equalsIgnoreCase("empty") ? 0 : -1;
+            for (int s = 0; s < palette.length - 1 && index < 0; s++) {
+                if (EventBus.speciesName(s).equalsIgnoreCase(parts[0].trim())) {
+                    index = s + 1;
+                }
+            }
+            if (index < 0 || parts.length < 2) {
+                throw new IllegalArgumentException("Not a species colour: " + pair);
+            }
+            try {
+                palette[index] = Color.decode(parts[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a colour: " + parts[1]);
+            }
+        }
+        return palette;
+    }
+
+    /**
+     * Queue a frame to be rendered and written. Waits while the workers are too far behind.
+     * @param frame The frame of a finished step.
+     */
+    @Override
+    public void accept(StepFrame frame) {
+        waiting.acquireUninterruptibly();
+        workers.execute(() -> {
+            try {
+                write(frame);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                waiting.release();
+            }
+        });
+    }
+
+    /**
+     * Render a frame and write it as a PNG image. The image holds the palette index of each pixel
+     * rather than its colour, which makes it a third of the size to compress.
+     */
+    private void write(StepFrame frame) throws IOException {
+        BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_BYTE_INDEXED, colours);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        byte[] cells = frame.cells();
+        int depth = frame.depth(), width = frame.width();
+        int[] colOf = new int[imageWidth]; // The column of the cell each pixel column shows.
+        for (int x = 0; x < imageWidth; x++) {
+            colOf[x] = (int) ((long) x * width / imageWidth);
+        }
+        int lastRow = -1;
+        for (int y = 0; y < imageHeight; y++) {
+            int row = (int) ((long) y * depth / imageHeight);
+            if (row == lastRow) {
+                System.arraycopy(pixels, (y - 1) * imageWidth, pixels, y * imageWidth, imageWidth); // The same cells as the line above.
+                continue;
+            }
+            for (int x = 0, i = y * imageWidth, cell = row * width; x < imageWidth; x++, i++) {
+                pixels[i] = (byte) (StepFrame.speciesOf(cells[cell + colOf[x]]) + 1);
+            }
+            lastRow = row;
+        }
+        ImageIO.write(image, "png", directory.resolve(String.format(Locale.ROOT, "frame-%06d.png", frame.step())).toFile());
+    }
+
+    /**
+     * Wait until every frame queued so far has been written.
+     * @throws IOException If any frame could not be written.
+     */
+    public void awaitWritten() throws IOException {
+        waiting.acquireUninterruptibly(permits);
+        waiting.release(permits);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write every queued frame, then stop the workers.
+     * @throws IOException If any frame could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitWritten();
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Render a recorded run from the command line.
+     * @param args The recording and the directory to write to, then optionally the width and
+     *             height of the images (by default 4 pixels per cell), the palette overrides and
+     *             the number of threads.
+     * @throws IOException If the recording cannot be read or a frame cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java FrameExporter <recording> <directory> [width height] [palette] [threads]");
+            System.exit(2);
+        }
+        Path recording = Path.of(args[0]), directory = Path.of(args[1]);
+        Color[] palette = palette(args.length > 4 ? args[4] : null);
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        FrameExporter[] exporter = new FrameExporter[1]; // Created from the first frame, once the field's size is known.
+        int frames;
+        try {
+            frames = FrameRecorder.replay(recording, frame -> {
+                if (exporter[0] == null) {
+                    try {
+                        exporter[0] = new FrameExporter(directory,
+                                args.length > 3 ? Integer.parseInt(args[2]) : frame.width() * 4,
+                                args.length > 3 ? Integer.parseInt(args[3]) : frame.depth() * 4, palette, threads);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                exporter[0].accept(frame);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (exporter[0] != null) {
+                exporter[0].close();
+            }
+        }
+        System.out.printf(Locale.ROOT, "Wrote %d frames to %s in %.1f s on %d threads%n", frames, directory,
+                (System.nanoTime() - start) / 1e9, threads);
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records every frame of a run to a file, as a subscriber of the step pipeline, so the run can be
+ * replayed later, for instance to render it with a {@link FrameExporter}. It is used when the
+ * simulation is started with {@code -Dsimulator.recordFrames=<file>}.
+ *
+ * The file is gzip-compressed and holds the int {@code 0x4652414D} ("FRAM"), the format version
+ * (1), the depth and the width, then each frame in turn: its step, days, time, day, weather and
+ * weather emoji, its cells, its populations, females, infected, dormant and step duration. Each
+ * frame is flushed as it is written, so a recording cut short by the end of the program can still
+ * be replayed up to its last whole frame.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class FrameRecorder implements Consumer<StepFrame>, AutoCloseable {
+    private static final int MAGIC = 0x4652414D; // Starts a recording: "FRAM".
+    private static final int VERSION = 1; // The version of the recording format.
+
+    private final DataOutputStream out; // The recording being written.
+    private boolean header; // Whether the header has been written.
+
+    /**
+     * Create a recorder writing to a file, replacing anything already in it.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be created.
+     */
+    public FrameRecorder(Path path) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path), true)));
+    }
+
+    /**
+     * Write a frame, and flush it.
+     * @param frame The frame of a finished step.
+     */
+    @Override
+    public void accept(StepFrame frame) {
+        try {
+            if (!header) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(frame.depth());
+                out.writeInt(frame.width());
+                header = true;
+            }
+            out.writeInt(frame.step());
+            out.writeInt(frame.days());
+            out.writeUTF(frame.time());
+            out.writeBoolean(frame.day());
+            out.writeUTF(frame.weather());
+            out.writeUTF(frame.weatherEmoji());
+            out.write(frame.cells());
+            writeInts(frame.populations());
+            writeInts(frame.females());
+            out.writeInt(frame.infected());
+            out.writeInt(frame.dormant());
+            out.writeLong(frame.stepNanos());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write an array of ints, preceded by its length.
+     */
+    private void writeInts(int[] values) throws IOException {
+        out.writeShort(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Read a recording and hand each of its frames, in step order, to a consumer.
+     * @param path The recording.
+     * @param consumer Receives each frame on the calling thread.
+     * @return The number of frames read.
+     * @throws IOException If the file cannot be read or is not a recording.
+     */
+    public static int replay(Path path, Consumer<StepFrame> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a frame recording");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(path + " is a version " + version + " recording; only version " + VERSION + " can be read");
+            }
+            int depth = in.readInt(), width = in.readInt();
+            int frames = 0;
+            try {
+                while (true) {
+                    int step = in.readInt(), days = in.readInt();
+                    String time = in.readUTF();
+                    boolean day = in.readBoolean();
+                    String weather = in.readUTF();
+                    String weatherEmoji = in.readUTF();
+                    byte[] cells = new byte[depth * width];
+                    in.readFully(cells);
+                    int[] populations = readInts(in);
+                    int[] females = readInts(in);
+                    int infected = in.readInt(), dormant = in.readInt();
+                    long stepNanos = in.readLong();
+                    consumer.accept(new StepFrame(step, days, time, day, weather, weatherEmoji, depth, width, cells,
+                            populations, females, infected, dormant, stepNanos, 0));
+                    frames++;
+                }
+            } catch (EOFException e) {
+                return frames; // The end of the recording, or of its last whole frame if it was cut short.
+            }
+        }
+    }
+
+    /**
+     * Read an array of ints written by {@link #writeInts}.
+     */
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readUnsignedShort()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Finish and close the file.
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -18,8 +18,7 @@ public enum Gender {
      *
      * @return MALE or FEMALE, chosen randomly.
      */
-    public static Gender getRandomGender() {
-        Random rand = Randomizer.getRandom();
+    public static Gender getRandomGender(Random rand) {
         if (rand.nextDouble() < 0.5) {
             return MALE; // Return MALE if the random number is less than 0.5
         } else {
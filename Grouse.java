@@ -15,6 +15,11 @@ public class Grouse extends Animal{
     private static final int MAX_AGE = 130;         // The maximum age a grouse can live to (in simulation steps).
     private static final double BREEDING_PROBABILITY = 0.09; // The probability of a grouse breeding during a simulation step (0.0 to 1.0).
     private static final int MAX_LITTER_SIZE = 6;       // The maximum number of offspring a grouse can produce in a single breeding.
+    private static final int VISION_RADIUS = 3;       // How far away a grouse can see food under -Dsimulator.vision (otherwise 1).
+    private static final boolean PURSUES = false;       // Whether a grouse chases the nearest of its food across the field.
+    private static final double NIGHT_BREEDING_PROBABILITY = 0.001; // The probability of a grouse trying to breed during a night step.
+
+    private int nightBreedingStep = -1; // The step of the grouse's next breeding attempt during the night.
 
     /**
      * Creates a new Grouse.
@@ -25,8 +30,16 @@ public class Grouse extends Animal{
      * @param simulator The simulator instance.
      */
     public Grouse(boolean randomAge, Location location, Gender gender, Simulator simulator) {
-        super(randomAge, location, BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
-                createFoodSources(), Grouse.class, gender, simulator);
+        super(randomAge, location, simulator.getParameters().forSpecies(Grouse.class), Grouse.class, gender, simulator);
+    }
+
+    /**
+     * Returns the parameters a grouse has unless a simulation is given others.
+     * @return The default breeding, age, litter, vision, pursuit and food parameters of a grouse.
+     */
+    public static SpeciesParameters defaultParameters() {
+        return new SpeciesParameters(BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
+                SpeciesParameters.VISION ? VISION_RADIUS : 1, PURSUES, createFoodSources());
     }
 
     /**
@@ -43,36 +56,38 @@ public class Grouse extends Animal{
 
     /**
      * Represents the behaviour of the grouse in each step of the simulation.
-     * The grouse ages, potentially decreases its food level, and then,
-     * depending on the time of day, either attempts to breed (at a reduced rate during the night)
-     * or moves to find food and/or breed (during the day).
+     * Depending on the time of day, the grouse either attempts to breed (at a reduced rate during the night)
+     * or moves to find food and/or breed (during the day). At night the grouse stays dormant
+     * until its next breeding attempt or daybreak, whichever comes first.
      *
      * @param currentField The field the grouse is currently in.
      * @param nextFieldState The field representing the next state of the simulation.
      */
     @Override
     public void act(Field currentField, Field nextFieldState) {
-        incrementAge(); // Increase the grouse's age.
-        if (!FOOD_SOURCES.isEmpty()) {
-            decreaseFoodLevel(); // Decrease the grouse's food level, if it has food sources.
-        }
-
         if (!isAlive())
             return; // If the grouse is not alive, exit the method.
 
         // Movement and finding food disabled at night. Birth rate heavily reduced
         if (simulator.getTime().isNight()) { // Check if it is night.
-            if (rand.nextDouble() < 0.001) { // Reduced breeding probability at night.
+            int step = simulator.getStep();
+            if (nightBreedingStep < step) {
+                nightBreedingStep = step + stepsUntilNightBreeding() - 1; // Draw the step of the next breeding attempt.
+            }
+            if (nightBreedingStep == step) { // Reduced breeding probability at night.
                 List<Location> freeLocations = nextFieldState.getFreeAdjacentLocations(getLocation());
                 if (!freeLocations.isEmpty()) {
                     giveBirth(nextFieldState, freeLocations, currentField); // Attempt to give birth if there are free locations.
                 }
-            } else {
-                Location currentLocation = getLocation();
-                nextFieldState.placeEntity(this, currentLocation); // Stay in the same location.
+                nightBreedingStep = step + stepsUntilNightBreeding(); // Draw the step of the attempt after this one.
             }
+            // Nothing happens before the next breeding attempt or daybreak, so stay in the same
+            // location without acting until then. The death queue still applies while asleep.
+            int wakeStep = step + simulator.getTime().stepsUntilDay();
+            sleepInPlace(nextFieldState, Math.min(nightBreedingStep, wakeStep));
             return; // Exit the method after nighttime actions.
         }
+        nightBreedingStep = -1; // Night-time breeding attempts are drawn afresh each night.
 
         List<Location> freeLocations = nextFieldState.getFreeAdjacentLocations(getLocation());
         if (!freeLocations.isEmpty()) {
@@ -81,15 +96,27 @@ public class Grouse extends Animal{
         // Move towards a source of food if found
         Location nextLocation = findFood(currentField);
         if (nextLocation == null && !freeLocations.isEmpty()) {
-            // No food found - try to move to a free location.
-            nextLocation = freeLocations.remove(0); // Move to a free location if no food is found.
+            // No food found - try to move to a free location, towards food if there is any in sight.
+            nextLocation = chooseMove(freeLocations);
         }
         // See if it was possible to move.
         if (nextLocation != null) {
             setLocation(nextLocation); // Set the new location.
             nextFieldState.placeEntity(this, nextLocation); // Place the grouse in the new location
         } else {
-            setDead(); // If it was not possible to move, the grouse dies.
+            die(EventBus.Cause.OVERCROWDING); // If it was not possible to move, the grouse dies.
         }
     }
+
+    /**
+     * Draws how many night steps pass until the grouse next tries to breed, counting the step of
+     * the attempt. This is the number of trials until the first success with the night-time
+     * breeding probability, drawn at once rather than rolled on every step.
+     *
+     * @return The number of steps until the next night-time breeding attempt (at least 1).
+     */
+    private int stepsUntilNightBreeding() {
+        double trials = Math.log(1.0 - rand.nextDouble()) / Math.log(1.0 - NIGHT_BREEDING_PROBABILITY);
+        return (int) Math.min(Integer.MAX_VALUE / 2, 1 + (long) trials);
+    }
 }
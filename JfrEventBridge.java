@@ -0,0 +1,95 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An event bus consumer that turns simulation events into JDK Flight Recorder events, so they
+ * can be recorded alongside the JVM's own events and analysed in JDK Mission Control.
+ * Start the simulation with {@code -Dsimulator.jfr=true -XX:StartFlightRecording=filename=run.jfr}
+ * to record them. The JFR events are built on the consumer's thread, never the simulation's.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class JfrEventBridge implements EventBus.Consumer {
+    private static final EventBus.Cause[] CAUSES = EventBus.Cause.values(); // The causes of death, by ordinal.
+
+    @Override
+    public void onEvent(EventBus.Kind kind, int step, int species, int detail, int row, int col) {
+        SimulationEvent event = switch (kind) {
+            case BIRTH -> new BirthEvent();
+            case DEATH -> {
+                DeathEvent death = new DeathEvent();
+                death.cause = CAUSES[detail].name();
+                yield death;
+            }
+            case INFECTION -> new InfectionEvent();
+            case RECOVERY -> new RecoveryEvent();
+            case PREDATION -> {
+                PredationEvent predation = new PredationEvent();
+                predation.prey = EventBus.speciesName(detail);
+                yield predation;
+            }
+        };
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.species = EventBus.speciesName(species);
+            event.row = row;
+            event.column = col;
+            event.commit();
+        }
+    }
+
+    /**
+     * The fields shared by every simulation event.
+     */
+    @Category("Predator-Prey Simulation")
+    @StackTrace(false) // The stack would only show the consumer thread.
+    abstract static class SimulationEvent extends Event {
+        @Label("Step")
+        int step;
+
+        @Label("Species")
+        String species;
+
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int column;
+    }
+
+    @Name("predatorprey.Birth")
+    @Label("Birth")
+    @Description("An animal was born.")
+    static class BirthEvent extends SimulationEvent {}
+
+    @Name("predatorprey.Death")
+    @Label("Death")
+    @Description("An animal died.")
+    static class DeathEvent extends SimulationEvent {
+        @Label("Cause")
+        String cause;
+    }
+
+    @Name("predatorprey.Infection")
+    @Label("Infection")
+    @Description("An animal caught a disease.")
+    static class InfectionEvent extends SimulationEvent {}
+
+    @Name("predatorprey.Recovery")
+    @Label("Recovery")
+    @Description("An animal recovered from a disease.")
+    static class RecoveryEvent extends SimulationEvent {}
+
+    @Name("predatorprey.Predation")
+    @Label("Predation")
+    @Description("A predator ate another animal.")
+    static class PredationEvent extends SimulationEvent {
+        @Label("Prey")
+        String prey;
+    }
+}
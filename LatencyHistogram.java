@@ -0,0 +1,110 @@
+/**
+ * A fixed-size histogram of durations in nanoseconds, used for step latency percentiles.
+ * Values are grouped into log-linear buckets: every power of two is split into 16 equal buckets,
+ * so each recorded value is kept to within about 6% and recording never allocates.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4; // Bits of precision kept below the leading bit.
+    private static final int SUB_BUCKETS = 1 << SUB_BITS; // Buckets per power of two.
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS; // Enough buckets for any long.
+
+    private final long[] counts = new long[BUCKETS]; // The number of values in each bucket.
+    private long count; // The number of values recorded.
+    private long total; // The sum of the values recorded.
+    private long max; // The largest value recorded.
+
+    /**
+     * Record one duration.
+     * @param nanos The duration in nanoseconds. Negative durations are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Returns the duration below which the given fraction of the recorded durations fall.
+     * @param fraction The fraction of durations, between 0.0 and 1.0 (for example 0.99).
+     * @return The duration at that percentile in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count)); // The rank of the value wanted.
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, middleOf(bucket));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     * @return The mean duration in nanoseconds, or 0 if nothing has been recorded.
+     */
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Returns the longest recorded duration.
+     * @return The largest duration in nanoseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Forget every recorded duration.
+     */
+    public void reset() {
+        java.util.Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Returns the bucket that a value falls into.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value; // Small values have a bucket each.
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // Position of the leading bit.
+        int sub = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1)); // The bits below it.
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns a value in the middle of a bucket.
+     */
+    private static long middleOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS); // The smallest value in the bucket.
+        long width = 1L << (exponent - SUB_BITS); // The number of values in the bucket.
+        return lower + width / 2;
+    }
+}
@@ -1,14 +1,20 @@
 /**
  * Main class to start the predator-prey simulation.
- * This class initialises and runs the simulation.
+ * This class initialises and runs the simulation, or with {@code --server [port]} serves
+ * simulations to external drivers through a {@link SimulationServer}.
  *
  * @author Mahdi Razzaque
  * @version 10.02.2025
  */
 public class Main {
-    public static Simulator simulator;
-    public static void main(String[] args) {
-        simulator = new Simulator();
+    public static void main(String[] args) throws java.io.IOException {
+        if(args.length > 0 && args[0].equals("--server")) {
+            SimulationServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        Simulator simulator = new Simulator();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close)); // Finish the recordings if the program is stopped mid-run.
         simulator.runLongSimulation();
+        simulator.close();
     }
 }
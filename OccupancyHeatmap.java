@@ -0,0 +1,264 @@
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Counts, for every species and every cell, the number of steps the species has spent in the cell
+ * over a whole run, to show where each species lives. The counts are kept in one primitive array
+ * per species and brought up to date after every step, tile by tile, with the tiles of large
+ * fields updated in parallel, from the simulation's {@link SpeciesGrid} rather than a copy of its own.
+ *
+ * Snapshots of the counts can be exported as a heatmap image per species, shaded on a logarithmic
+ * scale from black through red and yellow to white for the most visited cell, or as one binary
+ * file holding every count: the int {@code 0x4F434355} ("OCCU"), the format version (1), the
+ * depth, the width, the number of species and the number of steps counted, then for each species
+ * its name (as {@link DataOutputStream#writeUTF}) and its counts row by row, all big-endian.
+ * {@link #exportInBackground} copies the counts and writes them on the heatmap's own thread, so the
+ * simulation only waits for the files if the previous snapshot is still being written.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class OccupancyHeatmap implements AutoCloseable {
+    private static final int MAGIC = 0x4F434355; // Starts a binary snapshot: "OCCU".
+    private static final int VERSION = 1; // The version of the binary snapshot format.
+    private static final int PARALLEL_CELLS = 1 << 16; // The smallest field whose tiles are updated in parallel.
+    private static final int TILE_CELLS = 1 << 14; // The number of cells in a tile, rounded to whole rows.
+
+    private final int depth, width; // The dimensions of the field.
+    private final String[] names; // The name of each species.
+    private final int[][] counts; // The steps each species has spent in each cell.
+    private final int tileRows; // The number of rows in a tile.
+    private int steps; // The number of steps counted.
+    private final ExecutorService exporter = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("heatmap-export").daemon().factory()); // Writes snapshots off the simulation thread.
+    private Future<?> export; // The snapshot being written in the background, or null.
+
+    /**
+     * Create empty counts for a field.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param names The name of each species, numbered as in {@link Field#getPopulations()}.
+     */
+    public OccupancyHeatmap(int depth, int width, String[] names) {
+        this.depth = depth;
+        this.width = width;
+        this.names = names.clone();
+        counts = new int[names.length][depth * width];
+        tileRows = Math.max(1, TILE_CELLS / width);
+    }
+
+    /**
+     * Count a step: add one to the count of every species in every cell it occupies, animals
+     * awake or dormant and plants alike.
+     * @param grid The species on every cell of the field state at the end of the step.
+     */
+    public void accumulate(SpeciesGrid grid) {
+        IntStream tiles = IntStream.range(0, (depth + tileRows - 1) / tileRows);
+        if ((long) depth * width >= PARALLEL_CELLS) {
+            tiles = tiles.parallel();
+        }
+        tiles.forEach(tile -> accumulateTile(tile, grid.getAnimals(), grid.getPlants()));
+        steps++;
+    }
+
+    /**
+     * Count the occupants of the cells of one tile.
+     */
+    private void accumulateTile(int tile, byte[] animals, byte[] plants) {
+        int from = tile * tileRows * width, to = Math.min(depth, (tile + 1) * tileRows) * width;
+        for (int cell = from; cell < to; cell++) {
+            int animal = animals[cell];
+            if (animal != 0) {
+                counts[animal - 1][cell]++;
+            }
+            int plant = plants[cell];
+            if (plant != 0) {
+                counts[Field.ANIMAL_SPECIES + plant - 1][cell]++;
+            }
+        }
+    }
+
+    /**
+     * Forget every count, to start a new run.
+     */
+    public void clear() {
+        for (int[] species : counts) {
+            Arrays.fill(species, 0);
+        }
+        steps = 0;
+    }
+
+    /**
+     * Returns the number of steps counted.
+     * @return The number of steps counted since the counts were cleared.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the steps a species has spent in each cell.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @return A copy of the counts, row by row.
+     */
+    public int[] getCounts(int species) {
+        return counts[species].clone();
+    }
+
+    /**
+     * Export a snapshot of the counts to a directory: a binary file of every count and a PNG
+     * heatmap per species, named after the step they were taken at.
+     * @param directory The directory to write to, which is created if need be.
+     * @param step The step the snapshot is taken at.
+     * @throws IOException If the files cannot be written.
+     */
+    public void export(Path directory, int step) throws IOException {
+        write(directory, step, counts, steps);
+    }
+
+    /**
+     * Export a snapshot of the counts like {@link #export}, but write it on the heatmap's own
+     * thread. The counts are copied first, so counting can go on while the files are written. If
+     * the previous snapshot is still being written, waits for it first, so at most one snapshot
+     * is ever waiting to be written.
+     * @param directory The directory to write to, which is created if need be.
+     * @param step The step the snapshot is taken at.
+     * @throws IOException If the previous snapshot could not be written.
+     */
+    public void exportInBackground(Path directory, int step) throws IOException {
+        awaitExport();
+        int[][] snapshot = new int[counts.length][];
+        for (int s = 0; s < counts.length; s++) {
+            snapshot[s] = counts[s].clone();
+        }
+        int snapshotSteps = steps;
+        export = exporter.submit(() -> {
+            write(directory, step, snapshot, snapshotSteps);
+            return null;
+        });
+    }
+
+    /**
+     * Wait until the snapshot being written in the background, if any, has been written.
+     * @throws IOException If it could not be written.
+     */
+    public void awaitExport() throws IOException {
+        if (export == null) {
+            return;
+        }
+        try {
+            export.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the heatmap");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            export = null;
+        }
+    }
+
+    /**
+     * Finish writing any snapshot in the background and stop the heatmap's thread.
+     * @throws IOException If the last snapshot could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitExport();
+        } finally {
+            exporter.shutdown();
+        }
+    }
+
+    /**
+     * Write a snapshot of some counts to a directory.
+     */
+    private void write(Path directory, int step, int[][] snapshot, int snapshotSteps) throws IOException {
+        Files.createDirectories(directory);
+        writeBinary(directory.resolve("occupancy-" + step + ".bin"), snapshot, snapshotSteps);
+        for (int s = 0; s < names.length; s++) {
+            writePng(directory.resolve(names[s] + "-" + step + ".png"), snapshot[s]);
+        }
+    }
+
+    /**
+     * Write every count to a binary file in the format described above.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeBinary(Path path) throws IOException {
+        writeBinary(path, counts, steps);
+    }
+
+    /**
+     * Write some counts to a binary file in the format described above.
+     */
+    private void writeBinary(Path path, int[][] snapshot, int snapshotSteps) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(depth);
+            out.writeInt(width);
+            out.writeInt(names.length);
+            out.writeInt(snapshotSteps);
+            for (int s = 0; s < names.length; s++) {
+                out.writeUTF(names[s]);
+                for (int count : snapshot[s]) {
+                    out.writeInt(count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the heatmap of a species as a PNG image with one pixel per cell.
+     * @param path The file to write.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writePng(Path path, int species) throws IOException {
+        writePng(path, counts[species]);
+    }
+
+    /**
+     * Write the heatmap of some counts as a PNG image with one pixel per cell.
+     */
+    private void writePng(Path path, int[] cells) throws IOException {
+        int max = 0;
+        for (int count : cells) {
+            max = Math.max(max, count);
+        }
+        double scale = max == 0 ? 0 : 1 / Math.log1p(max);
+        int[] pixels = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            pixels[i] = heat(Math.log1p(cells[i]) * scale);
+        }
+        BufferedImage image = new BufferedImage(width, depth, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, depth, pixels, 0, width);
+        ImageIO.write(image, "png", path.toFile());
+    }
+
+    /**
+     * Returns the colour of a heat between 0 and 1: black, then red, yellow and finally white.
+     */
+    private static int heat(double value) {
+        int level = (int) Math.round(Math.max(0, Math.min(1, value)) * 3 * 255);
+        int red = Math.min(255, level);
+        int green = Math.max(0, Math.min(255, level - 255));
+        int blue = Math.max(0, level - 510);
+        return red << 16 | green << 8 | blue;
+    }
+}
@@ -0,0 +1,327 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches for simulation parameters under which all four animal species coexist stably.
+ * It explores the creation densities and each species' breeding age, maximum age, breeding
+ * probability, litter size, vision radius and food values, evaluating candidates in parallel in this JVM.
+ *
+ * The search starts with the default parameters and a batch of uniformly random candidates, then
+ * improves on the best of them with a (mu + lambda) evolution strategy: each generation mutates
+ * the best candidates found so far with Gaussian noise, widening or narrowing the mutations by
+ * the one-fifth success rule.
+ *
+ * A candidate is run on the same seeds as every other candidate, one replicate after another,
+ * and is dropped the moment {@link Field#isViable()} fails in any replicate. A replicate that
+ * settles into a cycle or a steady state with every species alive is stopped early and counted as
+ * coexisting for all of its steps. Candidates are scored by how long all species coexisted, as a
+ * fraction of the steps run, less a penalty for how much the populations fluctuated (their mean
+ * coefficient of variation).
+ *
+ * Usage: {@code java ParameterSearch [candidates] [generations] [steps] [replicates] [threads]}.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class ParameterSearch {
+    private static final int DEPTH = 80; // The depth of the field the candidates are run on.
+    private static final int WIDTH = 120; // The width of the field the candidates are run on.
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L; // Spreads replicate seeds apart.
+    private static final double VARIATION_WEIGHT = 0.25; // How much population fluctuation lowers a score.
+    private static final double INITIAL_SIGMA = 0.15; // The initial mutation size, as a fraction of each range.
+    private static final List<Class<? extends Animal>> SPECIES = List.of(Wolf.class, Bobcat.class, Squirrel.class, Grouse.class);
+
+    /**
+     * The result of evaluating a candidate.
+     * @param point The candidate's position in the search space, every coordinate between 0 and 1.
+     * @param parameters The candidate's parameters.
+     * @param coexistence The number of steps all species coexisted in the worst replicate run.
+     * @param variation The mean coefficient of variation of the species' populations.
+     * @param dropped Whether the candidate stopped being viable.
+     * @param score The stability score; higher is better.
+     */
+    public record Evaluation(double[] point, SimulationParameters parameters, int coexistence,
+                             double variation, boolean dropped, double score) {}
+
+    /**
+     * One tunable parameter: its name and range.
+     */
+    private record Dimension(String name, double lower, double upper, boolean integer) {
+        double decode(double x) {
+            double value = lower + Math.min(1, Math.max(0, x)) * (upper - lower);
+            return integer ? Math.round(value) : value;
+        }
+
+        double encode(double value) {
+            return (value - lower) / (upper - lower);
+        }
+    }
+
+    private final SimulationParameters template; // The defaults, which also fix the food sources searched.
+    private final List<Dimension> dimensions = new ArrayList<>(); // The parameters being searched.
+    private final int steps; // The number of steps each replicate runs for.
+    private final int replicates; // The number of replicates each candidate runs.
+    private final long baseSeed; // The seed the replicates' seeds are derived from.
+    private final Random rand; // Random number generator for sampling and mutating candidates.
+    private final int threads; // The number of candidates evaluated at once.
+
+    /**
+     * Create a parameter search.
+     * @param steps The number of steps each replicate runs for.
+     * @param replicates The number of replicates each candidate runs.
+     * @param seed The seed for the search and its replicates.
+     * @param threads The number of candidates evaluated at once.
+     */
+    public ParameterSearch(int steps, int replicates, long seed, int threads) {
+        this.template = SimulationParameters.defaults();
+        this.steps = steps;
+        this.replicates = replicates;
+        this.baseSeed = seed;
+        this.rand = new Random(seed);
+        this.threads = Math.max(1, threads);
+
+        for (Class<? extends Animal> species : SPECIES) {
+            dimensions.add(new Dimension(species.getSimpleName() + ".creationProbability", 0.001, 0.15, false));
+        }
+        dimensions.add(new Dimension("Seeds.creationProbability", 0.005, 0.3, false));
+        dimensions.add(new Dimension("Berries.creationProbability", 0.005, 0.3, false));
+        for (Class<? extends Animal> species : SPECIES) {
+            String name = species.getSimpleName();
+            dimensions.add(new Dimension(name + ".breedingAge", 1, 40, true));
+            dimensions.add(new Dimension(name + ".maxAge", 20, 400, true));
+            dimensions.add(new Dimension(name + ".breedingProbability", 0.005, 0.4, false));
+            dimensions.add(new Dimension(name + ".maxLitterSize", 1, 12, true));
+            dimensions.add(new Dimension(name + ".visionRadius", 1, 12, true));
+            for (String food : template.forSpecies(species).foodSources().keySet()) {
+                dimensions.add(new Dimension(name + ".food." + food, 1, 40, true));
+            }
+        }
+    }
+
+    /**
+     * Run the search.
+     * @param candidates The number of random candidates to start from, which is also the number of
+     *                   offspring in each generation.
+     * @param generations The number of generations of the evolution strategy.
+     * @return Every candidate evaluated, best first.
+     * @throws InterruptedException If interrupted while evaluating.
+     * @throws ExecutionException If a candidate's simulation failed.
+     */
+    public List<Evaluation> search(int candidates, int generations) throws InterruptedException, ExecutionException {
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) { // Shut down however the search ends.
+            List<double[]> points = new ArrayList<>();
+            points.add(encode(template)); // Always consider the current parameters.
+            for (int i = 1; i < candidates; i++) {
+                double[] point = new double[dimensions.size()];
+                for (int d = 0; d < point.length; d++) {
+                    point[d] = rand.nextDouble();
+                }
+                points.add(point);
+            }
+            List<Evaluation> all = evaluateAll(points, pool);
+            report(0, all);
+
+            int parents = Math.max(1, candidates / 4);
+            double sigma = INITIAL_SIGMA;
+            for (int generation = 1; generation <= generations; generation++) {
+                all.sort(Comparator.comparingDouble(Evaluation::score).reversed());
+                List<Evaluation> best = all.subList(0, Math.min(parents, all.size()));
+                List<Evaluation> mothers = new ArrayList<>();
+                points = new ArrayList<>();
+                for (int i = 0; i < candidates; i++) {
+                    Evaluation mother = best.get(rand.nextInt(best.size()));
+                    double[] child = mother.point().clone();
+                    for (int d = 0; d < child.length; d++) {
+                        child[d] = Math.min(1, Math.max(0, child[d] + sigma * rand.nextGaussian()));
+                    }
+                    mothers.add(mother);
+                    points.add(child);
+                }
+                List<Evaluation> children = evaluateAll(points, pool);
+                int successes = 0;
+                for (int i = 0; i < children.size(); i++) {
+                    successes += children.get(i).score() > mothers.get(i).score() ? 1 : 0;
+                }
+                sigma *= successes > children.size() / 5 ? 1.22 : 0.82; // The one-fifth success rule.
+                all.addAll(children);
+                report(generation, all);
+            }
+            all.sort(Comparator.comparingDouble(Evaluation::score).reversed());
+            return all;
+        }
+    }
+
+    /**
+     * Returns the searched parameters of a candidate, by name.
+     * @param evaluation The candidate.
+     * @return The value of each searched parameter.
+     */
+    public Map<String, Double> describe(Evaluation evaluation) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (int d = 0; d < dimensions.size(); d++) {
+            values.put(dimensions.get(d).name(), dimensions.get(d).decode(evaluation.point()[d]));
+        }
+        return values;
+    }
+
+    /**
+     * Evaluate candidates in parallel on the search's pool.
+     */
+    private List<Evaluation> evaluateAll(List<double[]> points, ExecutorService pool) throws InterruptedException, ExecutionException {
+        List<Callable<Evaluation>> tasks = new ArrayList<>();
+        for (double[] point : points) {
+            tasks.add(() -> evaluate(point));
+        }
+        List<Evaluation> evaluations = new ArrayList<>();
+        for (Future<Evaluation> result : pool.invokeAll(tasks)) {
+            evaluations.add(result.get());
+        }
+        return evaluations;
+    }
+
+    /**
+     * Run a candidate's replicates one after another, dropping it as soon as it stops being viable.
+     */
+    private Evaluation evaluate(double[] point) {
+        SimulationParameters parameters = decode(point);
+        double variation = 0;
+        int measured = 0;
+        for (int r = 0; r < replicates; r++) {
+            try (Simulator simulator = new Simulator(DEPTH, WIDTH, true, baseSeed + r * SEED_STRIDE,
+                    new Time(8, 0, 0, 10), parameters)) {
+                double[] mean = new double[SPECIES.size()];
+                double[] squares = new double[SPECIES.size()];
+                int step = 0;
+                // A replicate that has settled with every species alive would coexist for the remaining steps.
+                while (step < steps && !simulator.getSteadyState().isSettled()) {
+                    if (!simulator.getField().isViable()) {
+                        return new Evaluation(point, parameters, step, 1, true, score(step, 1));
+                    }
+                    simulator.simulateOneStep();
+                    step++;
+                    int[] populations = simulator.getField().getPopulations(); // The animals come first, in SPECIES order.
+                    for (int s = 0; s < mean.length; s++) {
+                        double delta = populations[s] - mean[s];
+                        mean[s] += delta / step;
+                        squares[s] += delta * (populations[s] - mean[s]);
+                    }
+                }
+                if (!simulator.getField().isViable()) {
+                    return new Evaluation(point, parameters, step, 1, true, score(step, 1));
+                }
+                for (int s = 0; s < mean.length; s++) {
+                    variation += mean[s] == 0 ? 1 : Math.min(1, Math.sqrt(squares[s] / step) / mean[s]);
+                    measured++;
+                }
+            }
+        }
+        variation /= Math.max(1, measured);
+        return new Evaluation(point, parameters, steps, variation, false, score(steps, variation));
+    }
+
+    /**
+     * Returns the stability score for a coexistence length and population variation.
+     */
+    private double score(int coexistence, double variation) {
+        return (double) coexistence / steps - VARIATION_WEIGHT * variation;
+    }
+
+    /**
+     * Returns the position of a set of parameters in the search space.
+     */
+    private double[] encode(SimulationParameters parameters) {
+        List<Double> values = new ArrayList<>(List.of(parameters.wolfCreationProbability(),
+                parameters.bobcatCreationProbability(), parameters.squirrelCreationProbability(),
+                parameters.grouseCreationProbability(), parameters.seedsCreationProbability(),
+                parameters.berriesCreationProbability()));
+        for (Class<? extends Animal> species : SPECIES) {
+            SpeciesParameters p = parameters.forSpecies(species);
+            values.addAll(List.of((double) p.breedingAge(), (double) p.maxAge(), p.breedingProbability(), (double) p.maxLitterSize(),
+                    (double) p.visionRadius()));
+            for (int value : p.foodSources().values()) {
+                values.add((double) value);
+            }
+        }
+        double[] point = new double[dimensions.size()];
+        for (int d = 0; d < point.length; d++) {
+            point[d] = dimensions.get(d).encode(values.get(d));
+        }
+        return point;
+    }
+
+    /**
+     * Returns the parameters at a position in the search space.
+     */
+    private SimulationParameters decode(double[] point) {
+        int d = 0;
+        double[] creation = new double[6];
+        for (int i = 0; i < creation.length; i++, d++) {
+            creation[i] = dimensions.get(d).decode(point[d]);
+        }
+        Map<Class<? extends Animal>, SpeciesParameters> species = new HashMap<>();
+        for (Class<? extends Animal> animalClass : SPECIES) {
+            int breedingAge = (int) dimensions.get(d).decode(point[d++]);
+            int maxAge = (int) dimensions.get(d).decode(point[d++]);
+            double breedingProbability = dimensions.get(d).decode(point[d++]);
+            int maxLitterSize = (int) dimensions.get(d).decode(point[d++]);
+            int visionRadius = (int) dimensions.get(d).decode(point[d++]);
+            boolean pursues = template.forSpecies(animalClass).pursues(); // Not searched.
+            HashMap<String, Integer> foodSources = new HashMap<>(); // Filled in the same order as the defaults.
+            for (String food : template.forSpecies(animalClass).foodSources().keySet()) {
+                foodSources.put(food, (int) dimensions.get(d).decode(point[d++]));
+            }
+            species.put(animalClass, new SpeciesParameters(breedingAge, maxAge, breedingProbability, maxLitterSize, visionRadius, pursues, foodSources));
+        }
+        return new SimulationParameters(creation[0], creation[1], creation[2], creation[3], creation[4], creation[5],
+                template.diseaseProbability(), Map.copyOf(species));
+    }
+
+    /**
+     * Print the progress of the search.
+     */
+    private void report(int generation, List<Evaluation> all) {
+        Evaluation best = all.stream().max(Comparator.comparingDouble(Evaluation::score)).orElseThrow();
+        long survivors = all.stream().filter(evaluation -> !evaluation.dropped()).count();
+        System.out.printf(Locale.ROOT, "Generation %d: best score %.3f (coexisted %d/%d steps), %d of %d candidates never dropped%n",
+                generation, best.score(), best.coexistence(), steps, survivors, all.size());
+    }
+
+    /**
+     * Search from the command line and print the ten best parameter sets, and the best in full.
+     * @param args Optional candidates, generations, steps, replicates and threads.
+     * @throws Exception If the search is interrupted or a simulation fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int candidates = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int replicates = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        ParameterSearch search = new ParameterSearch(steps, replicates, Randomizer.SEED, threads);
+        List<Evaluation> ranked = search.search(candidates, generations);
+
+        System.out.println();
+        System.out.println("Rank  Score   Coexistence  Variation");
+        for (int i = 0; i < Math.min(10, ranked.size()); i++) {
+            Evaluation evaluation = ranked.get(i);
+            System.out.printf(Locale.ROOT, "%4d  %6.3f  %5d/%-5d  %9.3f%s%n", i + 1, evaluation.score(),
+                    evaluation.coexistence(), steps, evaluation.variation(), evaluation.dropped() ? "  (dropped)" : "");
+        }
+        System.out.println();
+        System.out.println("Best parameters:");
+        search.describe(ranked.get(0)).forEach((name, value) ->
+                System.out.printf(Locale.ROOT, "  %-32s %s%n", name, value == Math.rint(value) && !name.contains("Probability") ? String.valueOf(value.intValue()) : String.format(Locale.ROOT, "%.4f", value)));
+    }
+}
@@ -1,28 +1,24 @@
-import java.util.List;
-
 /**
- * Abstract class representing a plant within the simulation. Extends the `Entity` class,
- * adding plant-specific attributes like growth rate, reproduction rate, lifespan, and growth stages.
+ * Describes a species of plant within the simulation, such as its growth rate, reproduction rate,
+ * lifespan and growth stages. Individual plants are not objects of their own; they live as cells
+ * of the {@link PlantLayer}, which looks up its per-species behaviour from these descriptions.
  * Plant classes should inherit from this class.
  *
  * @author Ozgur Dorunay and Mahdi Razzaque
- * @version 10.02.2025
+ * @version 19.10.2026
  */
 
-public class Plant extends Entity{
+public class Plant {
     protected final String name; // The name of the plant.
     protected final int growthRate; // The rate at which the plant grows.
     protected final int reproductionRate; // The rate at which the plant reproduces.
     protected final int lifespan; // The lifespan of the plant in days.
     protected final int spreadRate; // The rate at which the plant spreads.
-    protected int age; // The current age of the plant.
     protected final int growthStartHour; // The hour when the plant starts growing.
     protected final int growthEndHour; // The hour when the plant stops growing.
-    protected int growthStage; // The current growth stage of the plant.
-    protected final Class<? extends Plant> PLANT_TYPE; // The type of the plant.
-    protected Time time; // The time of the simulation.
+    protected final Simulator simulator; // The simulator instance the plant species is part of.
 
-    // Constructor that initializes the Plant with its characteristics and environment.
+    // Constructor that initializes the Plant species with its characteristics and environment.
     public Plant(String name,
                  int growthRate,
                  int reproductionRate,
@@ -30,72 +26,24 @@ public class Plant extends Entity{
                  int spreadRate,
                  int growthStartHour,
                  int growthEndHour,
-                 int growthStage ,
-                 Location location,
-                 Simulator simulator,
-                 Time time,
-                 Class<? extends Plant> plantType) {
-        super (location, simulator);
+                 Simulator simulator) {
         this.name = name;
         this.growthRate = growthRate;
         this.reproductionRate = reproductionRate;
         this.lifespan = lifespan;
         this.spreadRate = spreadRate;
-        this.age = 0;
-        this.time = time;
         this.growthStartHour = growthStartHour;
         this.growthEndHour = growthEndHour;
-        this.growthStage = 0;
-        this.PLANT_TYPE = plantType;
-    }
-
-    /**
-     * Plants grow, reproduce and die based on different properties
-     * @param currentField The field currently occupied
-     * @param nextFieldState The updated field
-     */
-    @Override
-    protected void act(Field currentField, Field nextFieldState) {
-        if (!isAlive()) {
-            return; // Don't act if the plant is dead
-        }
-    
-        age++;
-
-        //Check if plant should die
-        if (lifespan != -1 && age >= lifespan) {
-            setDead();
-            return;
-        }
-
-        //Check if it's the correct time for growth
-        if (canGrow() && age % growthRate == 0){
-            grow();
-        }
-
-        //Reproduce at reproduction interval
-        if (age % reproductionRate == 0) {
-            reproduce(currentField, nextFieldState);
-        }
-
-
-        //Plants remain in same location
-        nextFieldState.placeEntity(this, getLocation());
-    }
-
-    /**
-     * Handles plant growth at the specified interval
-     */
-    private void grow() {
-        growthStage++;
+        this.simulator = simulator;
     }
 
     /**
-     * Determines if the plant can grow at the current time.
+     * Determines if the plant species can grow at the current time.
+     * This is evaluated once per step for the whole species rather than once per plant.
      * @return {@code true} if the plant can grow, {@code false} otherwise.
      */
     protected boolean canGrow() {
-        int currentHour = time.getHour();
+        int currentHour = simulator.getTime().getHour();
         if (growthStartHour < currentHour) {
             return currentHour >= growthStartHour && currentHour < growthEndHour;
         }
@@ -104,43 +52,43 @@ public class Plant extends Entity{
         }
     }
 
-
-
     /**
-     * Attempts to reproduce by creating new plants in available locations.
-     * @param currentField The field currently occupied.
-     * @param nextFieldState The updated field.
+     * Returns the name of the plant.
+     * @return The name of the plant.
      */
-    private void reproduce(Field currentField, Field nextFieldState) {
-        List<Location> freeLocations = nextFieldState.getFreeAdjacentLocations(getLocation());
-        int spreadCount = Math.min(freeLocations.size(), spreadRate); // Ensure we don't exceed available free locations
+    public String getName() {
+        return name;
+    }
 
-        for (int i = 0; i < spreadCount; i++) {
-            Location newLocation = freeLocations.remove(0);
-            try {
-                Plant newPlant = PLANT_TYPE.getDeclaredConstructor(Location.class, Simulator.class, Time.class)
-                        .newInstance(newLocation, simulator, time);
-                nextFieldState.placeEntity(newPlant, newLocation);
-            } catch (Exception e) {
-                System.err.println("Failed to create new " + PLANT_TYPE.getSimpleName());
-            }
-        }
+    /**
+     * Returns the number of steps between growth stages.
+     * @return The growth rate of the plant.
+     */
+    public int getGrowthRate() {
+        return growthRate;
     }
 
+    /**
+     * Returns the number of steps between reproductions.
+     * @return The reproduction rate of the plant.
+     */
+    public int getReproductionRate() {
+        return reproductionRate;
+    }
 
     /**
-     * Returns the name of the plant.
-     * @return The name of the plant.
+     * Returns the lifespan of the plant.
+     * @return The lifespan of the plant in steps, or -1 if it lives indefinitely.
      */
-    public String getName() {
-        return name;
+    public int getLifespan() {
+        return lifespan;
     }
 
     /**
-     * Returns the plant's growth stage.
-     * @return The growth stage of the plant.
+     * Returns how many neighbouring cells the plant seeds when it reproduces.
+     * @return The spread rate of the plant.
      */
-    public int getGrowthStage() {
-        return growthStage;
+    public int getSpreadRate() {
+        return spreadRate;
     }
 }
@@ -0,0 +1,372 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A layer of plant life covering the whole field, stored as primitive arrays rather than as one
+ * object per plant. Each cell holds a species byte (0 for no plant), an age and a growth stage.
+ * The layer is shared between the current and next field states, so plants no longer need to
+ * re-place themselves every step, and animals can stand on the same cell as a plant.
+ * The whole layer is updated with a bulk pass per step, which ages, grows and kills plants and
+ * lists those that reproduce. Each reproducing plant then seeds up to its spread rate of the
+ * neighbouring cells that hold no plant, chosen at random, as plants did when they were entities.
+ *
+ * The cells are stored in bands of whole rows, which are copied on write: a layer forked for
+ * another simulation shares every band with the layer it was forked from, and each layer copies a
+ * band only when it first changes a plant in it. Plants store the step they were placed at rather
+ * than their age, so a step writes only the cells where plants appear, grow or die.
+ *
+ * @author Ozgur Dorunay and Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class PlantLayer {
+    private static final byte NONE = 0; // Species byte used for cells without a plant.
+    private static final int NEIGHBOURS = 8; // The number of cells in a neighbourhood.
+    private static final int BAND_CELLS = 1 << 12; // The number of cells in a band, rounded to whole rows.
+
+    private final Random rand; // A random number generator for seed spread.
+    private final int depth, width; // The dimensions of the layer.
+    private final Plant[] types; // The plant species, indexed by species byte (index 0 is unused).
+
+    private final int bandCells; // The number of cells in each band but the last.
+    private byte[][] species; // The species of plant in each cell, band by band.
+    private int[][] born; // The step at which the plant in each cell was placed, band by band.
+    private int[][] growthStage; // The growth stage of the plant in each cell, band by band.
+    private boolean[] owned; // Whether each band belongs to this layer alone, or null if the bands are shared with a fork.
+    private int[] parents = new int[0]; // Scratch buffer holding the cells of the plants that reproduce this step.
+    private final int[] free = new int[NEIGHBOURS]; // Scratch buffer holding the free cells around a reproducing plant.
+    private final int[] counts; // The number of living plants of each species.
+    private int clock; // The number of steps the layer has been advanced by.
+    private long hash; // Zobrist hash of the plants in the layer.
+
+    /**
+     * Create an empty plant layer of the given dimensions.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param rand The random number generator of the simulation.
+     * @param plantTypes The plant species that can grow in this layer.
+     */
+    public PlantLayer(int depth, int width, Random rand, Plant... plantTypes) {
+        if (plantTypes.length >= Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many plant species: " + plantTypes.length);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.rand = rand;
+        this.types = new Plant[plantTypes.length + 1];
+        System.arraycopy(plantTypes, 0, types, 1, plantTypes.length);
+
+        bandCells = Math.max(1, BAND_CELLS / width) * width;
+        int bands = (depth * width + bandCells - 1) / bandCells;
+        species = new byte[bands][];
+        born = new int[bands][];
+        growthStage = new int[bands][];
+        owned = new boolean[bands];
+        for (int b = 0; b < bands; b++) {
+            allocate(b);
+        }
+        counts = new int[types.length];
+    }
+
+    /**
+     * Create a layer for a forked simulation that shares every band of another layer. Neither
+     * layer changes a shared band; each copies a band the first time it places, grows or removes
+     * a plant in it.
+     * @param original The layer to fork.
+     * @param rand The random number generator of the forked simulation.
+     * @param plantTypes The plant species of the forked simulation, in the same order as the original's.
+     */
+    private PlantLayer(PlantLayer original, Random rand, Plant... plantTypes) {
+        depth = original.depth;
+        width = original.width;
+        this.rand = rand;
+        types = new Plant[plantTypes.length + 1];
+        System.arraycopy(plantTypes, 0, types, 1, plantTypes.length);
+        bandCells = original.bandCells;
+        species = original.species;
+        born = original.born;
+        growthStage = original.growthStage;
+        counts = original.counts.clone();
+        clock = original.clock;
+        hash = original.hash;
+    }
+
+    /**
+     * Fork the layer for another simulation. The fork starts with the same plants and shares
+     * their storage with this layer until either of them changes it, so forking costs the same
+     * however large the field.
+     * @param rand The random number generator of the forked simulation.
+     * @param plantTypes The plant species of the forked simulation, in the same order as this layer's.
+     * @return The forked layer.
+     */
+    public PlantLayer fork(Random rand, Plant... plantTypes) {
+        if (plantTypes.length != types.length - 1) {
+            throw new IllegalArgumentException("Expected " + (types.length - 1) + " plant species, not " + plantTypes.length);
+        }
+        owned = null; // This layer must no longer change the bands it now shares.
+        return new PlantLayer(this, rand, plantTypes);
+    }
+
+    /**
+     * Advance every plant in the layer by one step. Plants age, die at the end of their lifespan,
+     * grow inside their growth window and spread seeds into free neighbouring cells at their
+     * reproduction interval.
+     */
+    public void act() {
+        // Decide once per species, rather than once per plant, whether it may grow this step.
+        boolean[] grows = new boolean[types.length];
+        for (int s = 1; s < types.length; s++) {
+            grows[s] = types[s].canGrow();
+        }
+
+        // Every plant ages by a step. A plant's age is the number of steps since it was placed.
+        clock++;
+
+        int parentCount = 0; // The number of plants that reproduce this step.
+        for (int b = 0; b < species.length; b++) {
+            byte[] bandSpecies = species[b]; // Still the band as it was if a change below copies it.
+            for (int j = 0, i = b * bandCells; j < bandSpecies.length; j++, i++) {
+                int s = bandSpecies[j];
+                if (s == NONE) continue;
+
+                Plant type = types[s];
+                int plantAge = clock - born[b][j];
+                if (type.lifespan != -1 && plantAge >= type.lifespan) {
+                    removePlant(i); // The plant dies of old age.
+                    continue;
+                }
+                if (grows[s] && plantAge % type.growthRate == 0) {
+                    own(b);
+                    growthStage[b][j]++;
+                }
+                if (plantAge % type.reproductionRate == 0) {
+                    if (parentCount == parents.length) {
+                        parents = Arrays.copyOf(parents, Math.max(64, parentCount * 2));
+                    }
+                    parents[parentCount++] = i;
+                }
+            }
+        }
+
+        // Plants seeded this step are not in the list, so they never reproduce in the step they appear.
+        for (int p = 0; p < parentCount; p++) {
+            spread(parents[p]);
+        }
+    }
+
+    /**
+     * Seed new plants around a reproducing plant: up to its spread rate of the neighbouring cells
+     * that hold no plant, chosen at random.
+     * @param index The cell of the reproducing plant.
+     */
+    private void spread(int index) {
+        byte s = speciesAt(index);
+        int row = index / width, col = index % width;
+        int count = 0;
+        for (int roffset = -1; roffset <= 1; roffset++) {
+            int nextRow = row + roffset;
+            if (nextRow < 0 || nextRow >= depth) continue;
+            for (int coffset = -1; coffset <= 1; coffset++) {
+                int nextCol = col + coffset;
+                if (nextCol < 0 || nextCol >= width || (roffset == 0 && coffset == 0)) continue;
+
+                int next = nextRow * width + nextCol;
+                if (speciesAt(next) == NONE) {
+                    free[count++] = next;
+                }
+            }
+        }
+        int seeds = Math.min(count, types[s].spreadRate);
+        for (int k = 0; k < seeds; k++) {
+            int pick = k + rand.nextInt(count - k); // Draw without replacement from the cells not yet picked.
+            int next = free[pick];
+            free[pick] = free[k];
+            placePlant(next, s);
+        }
+    }
+
+    /**
+     * Place a new plant of the given species at a location. Any plant already there is replaced.
+     * @param plantClass The species of plant to place.
+     * @param location The location of the new plant.
+     */
+    public void placePlant(Class<? extends Plant> plantClass, Location location) {
+        byte s = speciesOf(plantClass);
+        if (s == NONE) {
+            throw new IllegalArgumentException("Unknown plant species: " + plantClass.getSimpleName());
+        }
+        int index = indexOf(location);
+        if (speciesAt(index) != NONE) {
+            removePlant(index);
+        }
+        placePlant(index, s);
+    }
+
+    /**
+     * Remove the plant at a location, for example when it is eaten.
+     * @param location The location of the plant to remove.
+     */
+    public void removePlant(Location location) {
+        int index = indexOf(location);
+        if (speciesAt(index) != NONE) {
+            removePlant(index);
+        }
+    }
+
+    /**
+     * Returns the species of plant at a location.
+     * @param location The location to check.
+     * @return The plant species at the given location, or {@code null} if there is no plant there.
+     */
+    public Plant getPlantAt(Location location) {
+        int s = speciesAt(indexOf(location));
+        return s == NONE ? null : types[s];
+    }
+
+    /**
+     * Returns the growth stage of the plant at a location.
+     * @param location The location to check.
+     * @return The growth stage of the plant, or 0 if there is no plant there.
+     */
+    public int getGrowthStage(Location location) {
+        int index = indexOf(location);
+        return speciesAt(index) == NONE ? 0 : growthStage[index / bandCells][index % bandCells];
+    }
+
+    /**
+     * Returns the number of living plants of a given species.
+     * @param plantClass The species of plant to count.
+     * @return The number of living plants of that species.
+     */
+    public int getCount(Class<? extends Plant> plantClass) {
+        return counts[speciesOf(plantClass)];
+    }
+
+    /**
+     * Copy the species byte of every cell, row by row, into an array: 0 for no plant, otherwise
+     * one more than the index of the plant's species in {@link #getTypes()}.
+     * @param target The array to copy into, at least as long as the number of cells.
+     */
+    public void copySpeciesTo(byte[] target) {
+        for (int b = 0; b < species.length; b++) {
+            System.arraycopy(species[b], 0, target, b * bandCells, species[b].length);
+        }
+    }
+
+    /**
+     * Returns the plant species that can grow in this layer.
+     * @return The plant species, in species byte order.
+     */
+    public Plant[] getTypes() {
+        return Arrays.copyOfRange(types, 1, types.length);
+    }
+
+    /**
+     * Remove every plant from the layer.
+     */
+    public void clear() {
+        for (int b = 0; b < species.length; b++) {
+            if (owned != null && owned[b]) {
+                Arrays.fill(species[b], NONE);
+            } else {
+                own();
+                allocate(b); // A shared band is left to the layers still using it.
+            }
+        }
+        Arrays.fill(counts, 0);
+        hash = 0;
+    }
+
+    /**
+     * Returns the Zobrist hash of the layer: the species and cell of every plant.
+     * @return The exclusive or of the keys of every plant in the layer.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Place a plant of the given species byte into an empty cell.
+     */
+    private void placePlant(int index, byte s) {
+        int b = index / bandCells, j = index % bandCells;
+        own(b);
+        species[b][j] = s;
+        born[b][j] = clock;
+        growthStage[b][j] = 0;
+        counts[s]++;
+        hash ^= Zobrist.plantKey(s, index / width, index % width);
+    }
+
+    /**
+     * Remove the plant in an occupied cell.
+     */
+    private void removePlant(int index) {
+        int b = index / bandCells, j = index % bandCells;
+        own(b);
+        counts[species[b][j]]--;
+        hash ^= Zobrist.plantKey(species[b][j], index / width, index % width);
+        species[b][j] = NONE;
+    }
+
+    /**
+     * Returns the species byte of a cell.
+     */
+    private byte speciesAt(int index) {
+        return species[index / bandCells][index % bandCells];
+    }
+
+    /**
+     * Make sure this layer has tables of bands of its own, copying the shared tables if need be.
+     */
+    private void own() {
+        if (owned == null) {
+            species = species.clone();
+            born = born.clone();
+            growthStage = growthStage.clone();
+            owned = new boolean[species.length];
+        }
+    }
+
+    /**
+     * Make sure a band belongs to this layer alone before changing it, copying it if it is shared.
+     */
+    private void own(int b) {
+        if (owned == null || !owned[b]) {
+            own();
+            species[b] = species[b].clone();
+            born[b] = born[b].clone();
+            growthStage[b] = growthStage[b].clone();
+            owned[b] = true;
+        }
+    }
+
+    /**
+     * Give this layer a new, empty band.
+     */
+    private void allocate(int b) {
+        int cells = Math.min(bandCells, depth * width - b * bandCells);
+        species[b] = new byte[cells];
+        born[b] = new int[cells];
+        growthStage[b] = new int[cells];
+        owned[b] = true;
+    }
+
+    /**
+     * Returns the species byte for a plant class, or 0 if the class is not part of this layer.
+     */
+    private byte speciesOf(Class<? extends Plant> plantClass) {
+        for (int s = 1; s < types.length; s++) {
+            if (types[s].getClass() == plantClass) {
+                return (byte) s;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the cell index of a location.
+     */
+    private int indexOf(Location location) {
+        return location.row() * width + location.col();
+    }
+}
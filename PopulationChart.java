@@ -0,0 +1,210 @@
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * A live chart of the population of every species over the most recent steps of the simulation.
+ * Each species' populations are kept in a fixed-capacity ring buffer of primitive ints, so the
+ * chart's memory stays the same however long the simulation runs, and older steps scroll off the
+ * left of the chart.
+ *
+ * When there are more steps in the buffers than pixels across the chart, the steps are grouped
+ * into one bucket per pixel column and each bucket is drawn as a vertical line from its lowest to
+ * its highest population (min/max downsampling). Peaks and troughs stay visible, and the cost of
+ * drawing depends on the width of the chart rather than on the number of steps.
+ *
+ * Animals and plants are drawn in separate bands, each scaled to its own highest population, since
+ * plants usually outnumber animals many times over.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public final class PopulationChart extends JPanel {
+    private static final long serialVersionUID = 1L; // The version of the chart's serialised form.
+    private static final int DEFAULT_CAPACITY = 4096; // The number of steps the chart remembers.
+    private static final int PREFERRED_HEIGHT = 180; // The height the chart asks for, in pixels.
+    private static final int MARGIN = 4; // The space around and between the bands, in pixels.
+    private static final Color AXIS_COLOR = Color.lightGray; // The colour of the band outlines.
+
+    private final String[] names; // The name of each species.
+    private final Color[] colors; // The colour each species is drawn in.
+    private final int animalSpecies; // The number of species drawn in the animal band; the rest are plants.
+    private final int capacity; // The number of steps each ring buffer holds.
+    private final int[][] series; // The ring buffer of populations of each species.
+    private final int[] steps; // The ring buffer of the steps the populations were recorded at.
+    private int head; // The index of the oldest entry in the ring buffers.
+    private int size; // The number of entries in the ring buffers.
+
+    /**
+     * Create a chart remembering the default number of steps.
+     * @param names The name of each species, in the order their populations are recorded.
+     * @param colors The colour to draw each species in.
+     * @param animalSpecies The number of leading species that are animals; the rest are plants.
+     */
+    public PopulationChart(String[] names, Color[] colors, int animalSpecies) {
+        this(names, colors, animalSpecies, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a chart.
+     * @param names The name of each species, in the order their populations are recorded.
+     * @param colors The colour to draw each species in.
+     * @param animalSpecies The number of leading species that are animals; the rest are plants.
+     * @param capacity The number of steps the chart remembers.
+     */
+    public PopulationChart(String[] names, Color[] colors, int animalSpecies, int capacity) {
+        this.names = names.clone();
+        this.colors = colors.clone();
+        this.animalSpecies = animalSpecies;
+        this.capacity = capacity;
+        this.series = new int[names.length][capacity];
+        this.steps = new int[capacity];
+        setBackground(Color.white);
+    }
+
+    /**
+     * Record the populations at a step and redraw the chart. Recording a step that is not after
+     * the last recorded step, as happens when the simulation is reset, starts the chart afresh.
+     * @param step The step the populations were counted at.
+     * @param populations The population of each species.
+     */
+    public synchronized void record(int step, int[] populations) {
+        if (size > 0 && step <= steps[(head + size - 1) % capacity]) {
+            head = 0;
+            size = 0;
+        }
+        int index;
+        if (size < capacity) {
+            index = (head + size) % capacity;
+            size++;
+        } else {
+            index = head; // Overwrite the oldest entry.
+            head = (head + 1) % capacity;
+        }
+        steps[index] = step;
+        for (int s = 0; s < series.length; s++) {
+            series[s][index] = s < populations.length ? populations[s] : 0;
+        }
+        repaint();
+    }
+
+    /**
+     * Tell the GUI manager how big we would like to be.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(super.getPreferredSize().width, PREFERRED_HEIGHT);
+    }
+
+    /**
+     * Draw the animal and plant bands, the legend and the range of steps shown.
+     */
+    @Override
+    protected synchronized void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (size == 0) return;
+
+        FontMetrics metrics = g.getFontMetrics();
+        int textHeight = metrics.getHeight();
+        int width = getWidth() - 2 * MARGIN;
+        int height = getHeight() - 2 * MARGIN - textHeight;
+        boolean plants = animalSpecies < series.length;
+        int animalHeight = plants ? (height - MARGIN) * 2 / 3 : height;
+        if (width < 2 || animalHeight < 2) return;
+
+        drawBand(g, 0, animalSpecies, new Rectangle(MARGIN, MARGIN, width, animalHeight));
+        if (plants) {
+            drawBand(g, animalSpecies, series.length,
+                    new Rectangle(MARGIN, 2 * MARGIN + animalHeight, width, height - MARGIN - animalHeight));
+        }
+
+        // The legend, then the range of steps shown, along the bottom.
+        int x = MARGIN;
+        int baseline = getHeight() - MARGIN - metrics.getDescent();
+        for (int s = 0; s < series.length; s++) {
+            g.setColor(colors[s]);
+            g.fillRect(x, baseline - metrics.getAscent() + 2, 8, 8);
+            g.setColor(Color.darkGray);
+            String label = names[s] + " " + series[s][(head + size - 1) % capacity];
+            g.drawString(label, x + 11, baseline);
+            x += 11 + metrics.stringWidth(label) + 2 * MARGIN;
+        }
+        String range = "Steps " + steps[head] + "–" + steps[(head + size - 1) % capacity];
+        g.drawString(range, Math.max(x, getWidth() - MARGIN - metrics.stringWidth(range)), baseline);
+    }
+
+    /**
+     * Draw the populations of a range of species in a band, scaled to the highest of them.
+     */
+    private void drawBand(Graphics g, int from, int to, Rectangle band) {
+        g.setColor(AXIS_COLOR);
+        g.drawRect(band.x, band.y, band.width, band.height);
+
+        int max = 1;
+        for (int s = from; s < to; s++) {
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, series[s][(head + i) % capacity]);
+            }
+        }
+        g.drawString(String.valueOf(max), band.x + 2, band.y + g.getFontMetrics().getAscent());
+
+        for (int s = from; s < to; s++) {
+            g.setColor(colors[s]);
+            if (size <= band.width) {
+                drawLine(g, series[s], max, band);
+            } else {
+                drawBuckets(g, series[s], max, band);
+            }
+        }
+    }
+
+    /**
+     * Draw every recorded population of a species as a line, when there are few enough to fit.
+     */
+    private void drawLine(Graphics g, int[] ring, int max, Rectangle band) {
+        int previousX = 0, previousY = 0;
+        for (int i = 0; i < size; i++) {
+            int x = band.x + (size == 1 ? 0 : (int) ((long) i * band.width / (size - 1)));
+            int y = yOf(ring[(head + i) % capacity], max, band);
+            if (i > 0) {
+                g.drawLine(previousX, previousY, x, y);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+    /**
+     * Draw the populations of a species as one min/max bucket per pixel column, joining each
+     * bucket to the next so the line stays continuous.
+     */
+    private void drawBuckets(Graphics g, int[] ring, int max, Rectangle band) {
+        int previousY = 0;
+        for (int column = 0; column < band.width; column++) {
+            int start = (int) ((long) column * size / band.width);
+            int end = (int) ((long) (column + 1) * size / band.width);
+            int low = Integer.MAX_VALUE, high = Integer.MIN_VALUE;
+            for (int i = start; i < end; i++) {
+                int value = ring[(head + i) % capacity];
+                low = Math.min(low, value);
+                high = Math.max(high, value);
+            }
+            int x = band.x + column;
+            int top = yOf(high, max, band);
+            int bottom = yOf(low, max, band);
+            if (column > 0) {
+                // Join to the previous bucket so a step change is not drawn as a gap.
+                top = Math.min(top, previousY);
+                bottom = Math.max(bottom, previousY);
+            }
+            g.drawLine(x, top, x, bottom);
+            previousY = yOf(ring[(head + end - 1) % capacity], max, band);
+        }
+    }
+
+    /**
+     * Returns the vertical pixel position of a population in a band.
+     */
+    private static int yOf(int value, int max, Rectangle band) {
+        return band.y + band.height - (int) ((long) value * band.height / max);
+    }
+}
@@ -0,0 +1,66 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Records the populations of every step to a CSV file, as a subscriber of the step pipeline. It
+ * is used when the simulation is started with {@code -Dsimulator.record=<file>}, and writes on the
+ * pipeline's thread, so recording never slows the simulation down unless it falls a whole buffer
+ * of steps behind.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class PopulationRecorder implements Consumer<StepFrame>, AutoCloseable {
+    private final BufferedWriter out; // The CSV file being written.
+    private boolean header; // Whether the header line has been written.
+
+    /**
+     * Create a recorder writing to a file, replacing anything already in it.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be created.
+     */
+    public PopulationRecorder(Path path) throws IOException {
+        out = Files.newBufferedWriter(path);
+    }
+
+    /**
+     * Write a line for the step of a frame, and flush it so the file can be followed during a run.
+     * @param frame The frame of a finished step.
+     */
+    @Override
+    public void accept(StepFrame frame) {
+        try {
+            if (!header) {
+                out.write("step,time,weather");
+                for (int species = 0; species < frame.populations().length; species++) {
+                    out.write("," + EventBus.speciesName(species));
+                }
+                out.write(",infected,dormant,step_nanos");
+                out.newLine();
+                header = true;
+            }
+            out.write(frame.step() + "," + frame.time() + "," + frame.weather());
+            for (int population : frame.populations()) {
+                out.write("," + population);
+            }
+            out.write("," + frame.infected() + "," + frame.dormant() + "," + frame.stepNanos());
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close the file.
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -1,21 +1,20 @@
 import java.util.Random;
 
 /**
- * Provide control over the randomization of the simulation. By using the shared, fixed-seed 
- * randomizer, repeated runs will perform exactly the same (which helps with testing). Set 
- * 'useShared' to false to get different random behaviour every time.
- * 
+ * Provide control over the randomization of the simulation. Each simulation owns its own
+ * random generator, created here from a seed, so simulations running side by side never share
+ * random state. By using fixed seeds, repeated runs will perform exactly the same (which helps
+ * with testing). Set 'useSeed' to false to get different random behaviour every time.
+ *
  * @author David J. Barnes and Michael Kölling
  * @version 7.0
  */
 public class Randomizer
 {
     // The default seed for control of randomization.
-    private static final int SEED = 1111;
-    // A shared Random object, if required.
-    private static final Random rand = new Random(SEED);
-    // Determine whether a shared random generator is to be provided.
-    private static final boolean useShared = true;
+    public static final long SEED = 1111;
+    // Determine whether simulations are given generators with a fixed seed.
+    private static final boolean useSeed = true;
 
     /**
      * Constructor for objects of class Randomizer
@@ -25,28 +24,17 @@ public class Randomizer
     }
 
     /**
-     * Provide a random generator.
-     * @return A random object.
+     * Provide a random generator for one simulation.
+     * @param seed The seed of the generator.
+     * @return A new random object.
      */
-    public static Random getRandom()
+    public static Random getRandom(long seed)
     {
-        if(useShared) {
-            return rand;
+        if(useSeed) {
+            return new Random(seed);
         }
         else {
             return new Random();
         }
     }
-    
-    /**
-     * Reset the randomization.
-     * This will have no effect if randomization is not 
-     * through a shared Random generator.
-     */
-    public static void reset()
-    {
-        if(useShared) {
-            rand.setSeed(SEED);
-        }
-    }
 }
@@ -14,10 +14,9 @@ public class Seeds extends Plant {
     private static final int SPREAD_RATE = 3; // The rate at which the plant spreads.
     private static final int GROWTH_START_HOUR = 6; // The hour when the plant starts growing (6 AM).
     private static final int GROWTH_END_HOUR = 18; // The hour when the plant stops growing (6 PM).
-    private static final int GROWTH_STAGE = 0; // The initial growth stage of the plant.
 
-    // Constructor that initializes the Seeds plant with its characteristics and environment.
-    public Seeds(Location location, Simulator simulator, Time time) {
-        super(NAME, GROWTH_RATE, REPRODUCTION_RATE, LIFE_SPAN, SPREAD_RATE, GROWTH_START_HOUR, GROWTH_END_HOUR, GROWTH_STAGE, location, simulator, time, Seeds.class);
+    // Constructor that initializes the Seeds species with its characteristics and environment.
+    public Seeds(Simulator simulator) {
+        super(NAME, GROWTH_RATE, REPRODUCTION_RATE, LIFE_SPAN, SPREAD_RATE, GROWTH_START_HOUR, GROWTH_END_HOUR, simulator);
     }
 }
@@ -0,0 +1,89 @@
+/**
+ * Lets other threads pause, resume, single-step and change the speed of a running simulation.
+ * The simulation loop asks for permission before each step; everything else only flips flags,
+ * so controlling the simulation never has to wait for a step to finish.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class SimulationControl {
+    private boolean paused; // Whether the simulation is paused.
+    private int stepsAllowed; // The number of steps that may run while paused.
+    private volatile int delay; // The pause between steps, in milliseconds.
+
+    /**
+     * Create a control for a running simulation.
+     * @param delay The initial pause between steps, in milliseconds.
+     */
+    public SimulationControl(int delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Called by the simulation loop before each step. Waits while the simulation is paused,
+     * unless some single steps have been requested.
+     */
+    public synchronized void awaitStep() {
+        while (paused && stepsAllowed == 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return; // Let the simulation loop carry on so it can finish.
+            }
+        }
+        if (paused) {
+            stepsAllowed--; // Use up one of the requested single steps.
+        }
+    }
+
+    /**
+     * Pause the simulation before its next step.
+     */
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    /**
+     * Resume a paused simulation.
+     */
+    public synchronized void resume() {
+        paused = false;
+        stepsAllowed = 0;
+        notifyAll();
+    }
+
+    /**
+     * Let a paused simulation run for a number of steps and then pause again.
+     * @param steps The number of steps to run.
+     */
+    public synchronized void step(int steps) {
+        paused = true;
+        stepsAllowed += Math.max(0, steps);
+        notifyAll();
+    }
+
+    /**
+     * Returns whether the simulation is paused.
+     * @return true if the simulation is paused.
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Returns the pause between steps.
+     * @return The delay in milliseconds.
+     */
+    public int getDelay() {
+        return delay;
+    }
+
+    /**
+     * Change the pause between steps.
+     * @param delay The new delay in milliseconds; negative values are treated as 0.
+     */
+    public void setDelay(int delay) {
+        this.delay = Math.max(0, delay);
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Map;
+
+/**
+ * The tunable parameters of a simulation: how densely each species is created when the field is
+ * populated, how likely a new predator is to start infected, and the life-history parameters of
+ * each animal species. The defaults are the values the simulation has always used.
+ *
+ * @param wolfCreationProbability The probability of a cell starting with a wolf.
+ * @param bobcatCreationProbability The probability of a cell starting with a bobcat.
+ * @param squirrelCreationProbability The probability of a cell starting with a squirrel.
+ * @param grouseCreationProbability The probability of a cell starting with a grouse.
+ * @param seedsCreationProbability The probability of a cell starting with seeds.
+ * @param berriesCreationProbability The probability of a cell starting with berries.
+ * @param diseaseProbability The probability of a wolf or bobcat starting infected.
+ * @param species The parameters of each animal species.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public record SimulationParameters(double wolfCreationProbability, double bobcatCreationProbability,
+                                   double squirrelCreationProbability, double grouseCreationProbability,
+                                   double seedsCreationProbability, double berriesCreationProbability,
+                                   double diseaseProbability,
+                                   Map<Class<? extends Animal>, SpeciesParameters> species) {
+
+    private static final double WOLF_CREATION_PROBABILITY = 0.005;
+    private static final double BOBCAT_CREATION_PROBABILITY = 0.02;
+    private static final double SQUIRREL_CREATION_PROBABILITY = 0.045;
+    private static final double GROUSE_CREATION_PROBABILITY = 0.05;
+    private static final double SEEDS_CREATION_PROBABILITY = 0.08;
+    private static final double BERRIES_CREATION_PROBABILITY = 0.05;
+    private static final double DISEASE_PROBABILITY = 0.05; // 5% chance an animal starts infected
+
+    /**
+     * Returns the parameters the simulation uses unless told otherwise.
+     * @return The default parameters.
+     */
+    public static SimulationParameters defaults() {
+        return new SimulationParameters(WOLF_CREATION_PROBABILITY, BOBCAT_CREATION_PROBABILITY,
+                SQUIRREL_CREATION_PROBABILITY, GROUSE_CREATION_PROBABILITY, SEEDS_CREATION_PROBABILITY,
+                BERRIES_CREATION_PROBABILITY, DISEASE_PROBABILITY,
+                Map.of(Wolf.class, Wolf.defaultParameters(),
+                        Bobcat.class, Bobcat.defaultParameters(),
+                        Squirrel.class, Squirrel.defaultParameters(),
+                        Grouse.class, Grouse.defaultParameters()));
+    }
+
+    /**
+     * Returns the parameters of an animal species.
+     * @param animalClass The class of the species.
+     * @return The species' parameters.
+     * @throws IllegalArgumentException If the species has no parameters.
+     */
+    public SpeciesParameters forSpecies(Class<? extends Animal> animalClass) {
+        SpeciesParameters parameters = species.get(animalClass);
+        if (parameters == null) {
+            throw new IllegalArgumentException("No parameters for " + animalClass.getSimpleName());
+        }
+        return parameters;
+    }
+
+    /**
+     * Returns the furthest any animal species can see food.
+     * @return The largest vision radius of any species, and at least 1.
+     */
+    public int maxVisionRadius() {
+        int radius = 1;
+        for (SpeciesParameters parameters : species.values()) {
+            radius = Math.max(radius, parameters.visionRadius());
+        }
+        return radius;
+    }
+}
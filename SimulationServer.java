@@ -0,0 +1,617 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serves headless simulations to external programs, such as tuning scripts, so that they can run
+ * many short simulations in one warm JVM instead of starting a new JVM, and parsing its console
+ * tables, for every run. A driver sends one JSON object per line and gets one JSON object per line
+ * back, over standard input and output, or over a socket on the loopback address when a port is
+ * given:
+ * <pre>
+ *   java SimulationServer          # standard input and output
+ *   java SimulationServer 7070     # a socket; each connection has its own simulation
+ * </pre>
+ * In standard input and output mode anything the simulation prints goes to standard error, so
+ * standard output only carries responses.
+ *
+ * Each request names a command in {@code "cmd"}, and may carry an {@code "id"} that is copied
+ * into its response. Every response has {@code "ok"}, and an {@code "error"} message if it is false.
+ * <ul>
+ *     <li>{@code {"cmd":"configure","depth":80,"width":120,"parameters":{"Wolf.breedingAge":12}}} -
+ *     change the field size and any parameters, and start again from step 0 with the current seed.
+ *     Parameters are named as {@code diseaseProbability}, {@code <Species>.creationProbability},
+ *     {@code <Animal>.breedingAge}, {@code maxAge}, {@code breedingProbability},
+ *     {@code maxLitterSize}, {@code visionRadius}, {@code pursues} and {@code food.<Food>}.
+ *     The response lists every parameter's value.</li>
+ *     <li>{@code {"cmd":"reset","seed":42}} - start again from step 0, with a new seed if one is given.</li>
+ *     <li>{@code {"cmd":"run","steps":500}} - run for up to that many steps, stopping early if the
+ *     field stops being viable, and return the step reached and the populations. With
+ *     {@code "buffer":"<file>"} the populations of every step run are also written to a
+ *     memory-mapped file as little-endian ints, one row of species per step, which the response
+ *     gives the shape of.</li>
+ *     <li>{@code {"cmd":"stats"}} - the populations, females, infections, time, weather, state
+ *     hash and whether the populations have settled.</li>
+ *     <li>{@code {"cmd":"quit"}} - end the session.</li>
+ * </ul>
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class SimulationServer {
+    private static final int DEFAULT_DEPTH = 80; // The depth of the field until configured.
+    private static final int DEFAULT_WIDTH = 120; // The width of the field until configured.
+    private static final List<Class<? extends Animal>> ANIMALS = List.of(Wolf.class, Bobcat.class, Squirrel.class, Grouse.class);
+
+    private int depth = DEFAULT_DEPTH, width = DEFAULT_WIDTH; // The dimensions of the field.
+    private SimulationParameters parameters = SimulationParameters.defaults(); // The parameters simulated with.
+    private long seed = Randomizer.SEED; // The seed of the simulation.
+    private Simulator simulator; // The simulation of this session.
+    private long lastStepNanos; // How long the last step took.
+
+    /**
+     * Create a session with the default field size, parameters and seed.
+     */
+    public SimulationServer() {
+        reset();
+    }
+
+    /**
+     * Start the simulation again from step 0 with the session's settings.
+     */
+    private void reset() {
+        if (simulator != null) {
+            simulator.close();
+        }
+        simulator = new Simulator(depth, width, true, seed, new Time(8, 0, 0, 10), parameters);
+        lastStepNanos = 0;
+    }
+
+    /**
+     * Answer requests, one per line, until the input ends or a quit command arrives, then close
+     * the session's simulation.
+     * @param in The requests.
+     * @param out Where the responses are written.
+     * @throws IOException If the requests cannot be read.
+     */
+    public void serve(BufferedReader in, PrintStream out) throws IOException {
+        try {
+            answer(in, out);
+        } finally {
+            simulator.close();
+        }
+    }
+
+    /**
+     * Answer requests until the input ends or a quit command arrives.
+     */
+    private void answer(BufferedReader in, PrintStream out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) continue;
+            Map<String, Object> response = new LinkedHashMap<>();
+            boolean quit = false;
+            try {
+                if (!(new Json(line).parse() instanceof Map<?, ?> request)) {
+                    throw new IllegalArgumentException("A request must be a JSON object");
+                }
+                if (request.containsKey("id")) {
+                    response.put("id", request.get("id"));
+                }
+                response.put("ok", true);
+                quit = "quit".equals(request.get("cmd"));
+                handle(request, response);
+            } catch (RuntimeException | IOException e) {
+                response.put("ok", false);
+                response.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+            out.println(Json.write(response));
+            out.flush();
+            if (quit) return;
+        }
+    }
+
+    /**
+     * Carry out a request and fill in its response.
+     */
+    private void handle(Map<?, ?> request, Map<String, Object> response) throws IOException {
+        switch (String.valueOf(request.get("cmd"))) {
+            case "configure" -> {
+                int newDepth = positive(request, "depth", depth), newWidth = positive(request, "width", width);
+                SimulationParameters newParameters = parameters;
+                if (request.get("parameters") instanceof Map<?, ?> changes) {
+                    newParameters = configure(parameters, changes);
+                } else if (request.containsKey("parameters")) {
+                    throw new IllegalArgumentException("parameters must be an object");
+                }
+                depth = newDepth; // Only once every change is known to be valid.
+                width = newWidth;
+                parameters = newParameters;
+                reset();
+                response.put("depth", depth);
+                response.put("width", width);
+                response.put("parameters", describe(parameters));
+            }
+            case "reset" -> {
+                if (request.containsKey("seed")) {
+                    seed = number(request.get("seed"), "seed").longValue();
+                }
+                reset();
+                response.put("seed", seed);
+                response.put("step", simulator.getStep());
+                response.put("populations", populations(simulator.getField().getPopulations()));
+            }
+            case "run" -> {
+                Object buffer = request.get("buffer");
+                if (buffer != null && !(buffer instanceof String)) {
+                    throw new IllegalArgumentException("buffer must be a file name");
+                }
+                run(positive(request, "steps", 1), (String) buffer, response);
+            }
+            case "stats" -> stats(response);
+            case "quit" -> {}
+            default -> throw new IllegalArgumentException("Unknown command: " + request.get("cmd"));
+        }
+    }
+
+    /**
+     * Run up to a number of steps, stopping early if the field stops being viable.
+     */
+    private void run(int steps, String buffer, Map<String, Object> response) throws IOException {
+        IntBuffer rows = null;
+        int species = simulator.getField().getPopulations().length;
+        if (buffer != null) {
+            try (FileChannel channel = FileChannel.open(Path.of(buffer), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                rows = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) steps * species * Integer.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(); // The mapping outlives the channel.
+            }
+        }
+        long start = System.nanoTime();
+        int ran = 0;
+        boolean viable = simulator.getField().isViable();
+        while (ran < steps && viable) {
+            long stepStart = System.nanoTime();
+            simulator.simulateOneStep();
+            lastStepNanos = System.nanoTime() - stepStart;
+            ran++;
+            if (rows != null) {
+                rows.put(simulator.getField().getPopulations());
+            }
+            viable = simulator.getField().isViable();
+        }
+        response.put("step", simulator.getStep());
+        response.put("ran", ran);
+        response.put("viable", viable);
+        response.put("settled", simulator.getSteadyState().isSettled());
+        response.put("millis", Math.round((System.nanoTime() - start) / 1e3) / 1e3);
+        response.put("populations", populations(simulator.getField().getPopulations()));
+        if (rows != null) {
+            Map<String, Object> shape = new LinkedHashMap<>();
+            shape.put("path", buffer);
+            shape.put("rows", ran);
+            shape.put("cols", species);
+            response.put("buffer", shape);
+        }
+    }
+
+    /**
+     * Describe the current state of the simulation.
+     */
+    private void stats(Map<String, Object> response) {
+        StepFrame frame = StepFrame.capture(simulator, lastStepNanos);
+        response.put("step", frame.step());
+        response.put("days", frame.days());
+        response.put("time", frame.time());
+        response.put("weather", frame.weather());
+        response.put("populations", populations(frame.populations()));
+        Map<String, Object> females = new LinkedHashMap<>();
+        for (int s = 0; s < frame.females().length; s++) {
+            females.put(EventBus.speciesName(s), frame.females()[s]);
+        }
+        response.put("females", females);
+        response.put("infected", frame.infected());
+        response.put("dormant", frame.dormant());
+        response.put("hash", Long.toHexString(simulator.getField().getStateHash()));
+        response.put("viable", simulator.getField().isViable());
+        response.put("settled", simulator.getSteadyState().isSettled());
+        response.put("lastStepMillis", Math.round(lastStepNanos / 1e3) / 1e3);
+    }
+
+    /**
+     * Returns populations by species name.
+     */
+    private static Map<String, Object> populations(int[] populations) {
+        Map<String, Object> named = new LinkedHashMap<>();
+        for (int s = 0; s < populations.length; s++) {
+            named.put(EventBus.speciesName(s), populations[s]);
+        }
+        return named;
+    }
+
+    /**
+     * Returns every configurable parameter's value, by name.
+     */
+    private static Map<String, Object> describe(SimulationParameters p) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        double[] creation = creationProbabilities(p);
+        for (int s = 0; s < creation.length; s++) {
+            values.put(EventBus.speciesName(s) + ".creationProbability", creation[s]);
+        }
+        values.put("diseaseProbability", p.diseaseProbability());
+        for (Class<? extends Animal> animal : ANIMALS) {
+            String name = animal.getSimpleName();
+            SpeciesParameters s = p.forSpecies(animal);
+            values.put(name + ".breedingAge", s.breedingAge());
+            values.put(name + ".maxAge", s.maxAge());
+            values.put(name + ".breedingProbability", s.breedingProbability());
+            values.put(name + ".maxLitterSize", s.maxLitterSize());
+            values.put(name + ".visionRadius", s.visionRadius());
+            values.put(name + ".pursues", s.pursues());
+            s.foodSources().forEach((food, value) -> values.put(name + ".food." + food, value));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the creation probability of every species, numbered as in {@link Field#getPopulations()}.
+     */
+    private static double[] creationProbabilities(SimulationParameters p) {
+        return new double[] {p.wolfCreationProbability(), p.bobcatCreationProbability(), p.squirrelCreationProbability(),
+                p.grouseCreationProbability(), p.seedsCreationProbability(), p.berriesCreationProbability()};
+    }
+
+    /**
+     * Returns parameters with some of them changed.
+     * @throws IllegalArgumentException If a parameter does not exist or its value is of the wrong kind.
+     */
+    private static SimulationParameters configure(SimulationParameters p, Map<?, ?> changes) {
+        double[] creation = creationProbabilities(p);
+        double disease = p.diseaseProbability();
+        Map<Class<? extends Animal>, SpeciesParameters> species = new HashMap<>(p.species());
+        for (Map.Entry<?, ?> change : changes.entrySet()) {
+            String name = String.valueOf(change.getKey());
+            Object value = change.getValue();
+            int dot = name.indexOf('.');
+            if (name.equals("diseaseProbability")) {
+                disease = probability(value, name);
+            } else if (dot > 0 && name.endsWith(".creationProbability")) {
+                creation[speciesIndex(name.substring(0, dot), name)] = probability(value, name);
+            } else if (dot > 0) {
+                Class<? extends Animal> animal = ANIMALS.get(speciesIndex(name.substring(0, dot), name));
+                species.put(animal, configure(species.get(animal), name.substring(dot + 1), value, name));
+            } else {
+                throw new IllegalArgumentException("Unknown parameter: " + name);
+            }
+        }
+        return new SimulationParameters(creation[0], creation[1], creation[2], creation[3], creation[4], creation[5],
+                disease, Map.copyOf(species));
+    }
+
+    /**
+     * Returns an animal species' parameters with one of them changed.
+     */
+    private static SpeciesParameters configure(SpeciesParameters s, String field, Object value, String name) {
+        int breedingAge = s.breedingAge(), maxAge = s.maxAge(), maxLitterSize = s.maxLitterSize(), visionRadius = s.visionRadius();
+        double breedingProbability = s.breedingProbability();
+        boolean pursues = s.pursues();
+        HashMap<String, Integer> foodSources = s.foodSources();
+        switch (field) {
+            case "breedingAge" -> breedingAge = count(value, name, 0);
+            case "maxAge" -> maxAge = count(value, name, 1);
+            case "breedingProbability" -> breedingProbability = probability(value, name);
+            case "maxLitterSize" -> maxLitterSize = count(value, name, 1);
+            case "visionRadius" -> visionRadius = count(value, name, 1);
+            case "pursues" -> {
+                if (!(value instanceof Boolean flag)) {
+                    throw new IllegalArgumentException(name + " must be true or false");
+                }
+                pursues = flag;
+            }
+            default -> {
+                String food = field.startsWith("food.") ? field.substring(5) : null;
+                if (food == null || !foodSources.containsKey(food)) {
+                    throw new IllegalArgumentException("Unknown parameter: " + name);
+                }
+                foodSources = new HashMap<>(foodSources); // The same keys, so the same iteration order.
+                foodSources.put(food, count(value, name, 0));
+            }
+        }
+        return new SpeciesParameters(breedingAge, maxAge, breedingProbability, maxLitterSize, visionRadius, pursues, foodSources);
+    }
+
+    /**
+     * Returns the number of a species named in a parameter, among the animals if the parameter is
+     * an animal's, and otherwise among every species.
+     */
+    private static int speciesIndex(String species, String name) {
+        int count = name.endsWith(".creationProbability") ? Field.ANIMAL_SPECIES + 2 : ANIMALS.size();
+        for (int s = 0; s < count; s++) {
+            if (EventBus.speciesName(s).equals(species)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Unknown parameter: " + name);
+    }
+
+    /**
+     * Returns a request's value as a number.
+     */
+    private static Number number(Object value, String name) {
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return number;
+    }
+
+    /**
+     * Returns a request's value as a probability.
+     */
+    private static double probability(Object value, String name) {
+        double p = number(value, name).doubleValue();
+        if (!(p >= 0 && p <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+        return p;
+    }
+
+    /**
+     * Returns a request's value as a whole number of at least a minimum.
+     */
+    private static int count(Object value, String name, int minimum) {
+        Number number = number(value, name);
+        if (number.doubleValue() != number.longValue() || number.longValue() < minimum || number.longValue() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(name + " must be a whole number of at least " + minimum);
+        }
+        return number.intValue();
+    }
+
+    /**
+     * Returns a request's positive whole number, or a default if it has none.
+     */
+    private static int positive(Map<?, ?> request, String name, int otherwise) {
+        return request.containsKey(name) ? count(request.get(name), name, 1) : otherwise;
+    }
+
+    /**
+     * Serve sessions over a socket on the loopback address, each connection on its own virtual
+     * thread with its own simulation.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be listened on.
+     */
+    public static void serveSocket(int port) throws IOException {
+        try (ServerSocket listener = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.err.println("Simulation server listening on 127.0.0.1:" + listener.getLocalPort());
+            while (true) {
+                Socket socket = listener.accept();
+                Thread.ofVirtual().start(() -> {
+                    try (socket) {
+                        new SimulationServer().serve(
+                                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)),
+                                new PrintStream(socket.getOutputStream(), false, StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        System.err.println("Simulation session ended: " + e.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Serve one session over standard input and output, or sessions over a socket.
+     * @param args Optionally the port to listen on.
+     * @throws IOException If the requests cannot be read or the port cannot be listened on.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            serveSocket(Integer.parseInt(args[0]));
+            return;
+        }
+        PrintStream out = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+        System.setOut(System.err); // Keep whatever the simulation prints out of the responses.
+        new SimulationServer().serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), out);
+    }
+
+    /**
+     * Just enough JSON for the protocol: parses objects, arrays, strings, numbers (whole numbers
+     * as longs), booleans and null, and writes maps, lists, strings, numbers and booleans.
+     */
+    private static final class Json {
+        private final String text; // The text being parsed.
+        private int pos; // The position of the next character to parse.
+
+        Json(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Returns the value the whole text holds.
+         */
+        Object parse() {
+            Object value = value();
+            skipSpace();
+            if (pos < text.length()) {
+                throw error("Unexpected text after the value");
+            }
+            return value;
+        }
+
+        private Object value() {
+            skipSpace();
+            if (pos >= text.length()) {
+                throw error("Unexpected end of the request");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': {
+                    Map<String, Object> object = new LinkedHashMap<>();
+                    pos++;
+                    skipSpace();
+                    if (peek('}')) return object;
+                    do {
+                        skipSpace();
+                        String key = string();
+                        skipSpace();
+                        expect(':');
+                        object.put(key, value());
+                        skipSpace();
+                    } while (peek(','));
+                    expect('}');
+                    return object;
+                }
+                case '[': {
+                    List<Object> array = new ArrayList<>();
+                    pos++;
+                    skipSpace();
+                    if (peek(']')) return array;
+                    do {
+                        array.add(value());
+                        skipSpace();
+                    } while (peek(','));
+                    expect(']');
+                    return array;
+                }
+                case '"':
+                    return string();
+                default:
+                    for (String word : new String[] {"true", "false", "null"}) {
+                        if (text.startsWith(word, pos)) {
+                            pos += word.length();
+                            return word.equals("null") ? null : Boolean.valueOf(word);
+                        }
+                    }
+                    return number();
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder s = new StringBuilder();
+            while (pos < text.length() && text.charAt(pos) != '"') {
+                char c = text.charAt(pos++);
+                if (c == '\\' && pos < text.length()) {
+                    char escaped = text.charAt(pos++);
+                    switch (escaped) {
+                        case 'n' -> s.append('\n');
+                        case 't' -> s.append('\t');
+                        case 'r' -> s.append('\r');
+                        case 'b' -> s.append('\b');
+                        case 'f' -> s.append('\f');
+                        case 'u' -> {
+                            if (pos + 4 > text.length()) throw error("Bad escape");
+                            s.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            pos += 4;
+                        }
+                        default -> s.append(escaped);
+                    }
+                } else {
+                    s.append(c);
+                }
+            }
+            expect('"');
+            return s.toString();
+        }
+
+        private Number number() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            try {
+                return number.matches("-?\\d+") ? (Number) Long.parseLong(number) : (Number) Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                throw error("Not a JSON value");
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean peek(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at character " + (pos + 1));
+        }
+
+        /**
+         * Returns a value as compact JSON.
+         */
+        static String write(Object value) {
+            StringBuilder out = new StringBuilder();
+            write(value, out);
+            return out.toString();
+        }
+
+        private static void write(Object value, StringBuilder out) {
+            if (value instanceof Map<?, ?> map) {
+                out.append('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!first) out.append(',');
+                    write(String.valueOf(entry.getKey()), out);
+                    out.append(':');
+                    write(entry.getValue(), out);
+                    first = false;
+                }
+                out.append('}');
+            } else if (value instanceof List<?> list) {
+                out.append('[');
+                for (int i = 0; i < list.size(); i++) {
+                    if (i > 0) out.append(',');
+                    write(list.get(i), out);
+                }
+                out.append(']');
+            } else if (value instanceof String s) {
+                out.append('"');
+                for (char c : s.toCharArray()) {
+                    if (c == '"' || c == '\\') {
+                        out.append('\\').append(c);
+                    } else if (c < 0x20) {
+                        out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+                out.append('"');
+            } else if (value instanceof Double d) {
+                out.append(Double.isFinite(d) ? d.toString() : "null");
+            } else {
+                out.append(value); // Whole numbers, booleans and null.
+            }
+        }
+    }
+}
@@ -1,4 +1,7 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 /**
  * A simple predator-prey simulator, based on a rectangular field containing
@@ -8,25 +11,56 @@ import java.util.*;
  * @author David J. Barnes and Michael Kölling and Mahdi Razzaque and Ozgur Dorunay
  * @version 10.02.2025
  */
-public class Simulator
+public class Simulator implements AutoCloseable
 {
     // Constants representing configuration information for the simulation.
     private static final int DEFAULT_WIDTH = 120; // The default width of the simulation grid.
     private static final int DEFAULT_DEPTH = 80;  // The default depth of the simulation grid.
 
-    private static final double WOLF_CREATION_PROBABILITY = 0.005;
-    private static final double BOBCAT_CREATION_PROBABILITY = 0.02;
-    private static final double SQUIRREL_CREATION_PROBABILITY = 0.045;
-    private static final double GROUSE_CREATION_PROBABILITY = 0.05;
-    private static final double SEEDS_CREATION_PROBABILITY = 0.08;
-    private static final double BERRIES_CREATION_PROBABILITY = 0.05;
+    private static final int EVENT_BUFFER_SIZE = 1 << 16; // The number of events the event bus can hold.
+    private static final int STEP_DELAY = 50; // The pause between steps when the simulation is shown, in milliseconds.
+    private static final int FRAME_BUFFER_SIZE = 16; // The number of steps a step pipeline subscriber can fall behind by.
+    private static final int STEADY_STATE_WINDOW = 200; // The number of steps a run must have settled over.
+    private static final double STEADY_STATE_TOLERANCE = 0.05; // The relative change in mean populations that counts as settled.
+    private static final long PARALLEL_POPULATE_CELLS = 1 << 20; // The smallest field populated by the parallel world generator.
+    private static final int HEATMAP_INTERVAL = Integer.getInteger("simulator.heatmapEvery", 100); // The steps between heatmap snapshots.
+    private static final boolean STOP_WHEN_SETTLED = Boolean.getBoolean("simulator.stopWhenSettled"); // End runs that have settled.
+    private static final boolean KEEP_HASH_HISTORY = Boolean.getBoolean("simulator.hashHistory"); // Keep the hash of every step.
 
 
     private Field field; // Represents the current state of the simulation field, containing all entities.
+    private Field nextField; // The state of the field being built during a step, or null between steps.
+    private PlantLayer plants; // The plant life of the field, shared by every field state.
+    private ActivityScheduler scheduler; // The dormant entities of the field, shared by every field state.
+    private final String[] speciesNames; // The name of each species, numbered as in the population signature.
+    private FoodDensity foodDensity; // Where each species is at the start of the step, or null if no animal looks that far.
+    private FlowField flowField; // The way to the nearest of each pursued species, or null if no animal pursues its food.
+    private SpeciesGrid speciesGrid; // The species on every cell, shared by the tables, flow fields and heatmap, or null until needed.
+    private OccupancyHeatmap heatmap; // Where each species has spent the run, or null if not recorded.
+    private Path heatmapDirectory; // The directory heatmap snapshots are exported to, or null.
+    private FrameExporter frameExporter; // Renders every step to an image, or null if not exporting frames.
+    private TrajectoryRecorder trajectories; // Records every animal at every step, or null if not recording them.
+    private TimingWheel<Animal> deathQueue = new TimingWheel<>(); // Animals queued to check their natural death, by step.
+    private boolean shared; // Whether the field state, dormant entities and death queue are shared with a fork.
+    private boolean reparameterise; // Whether the shared animals take this simulation's parameters when they are copied.
+    private boolean forked; // Whether this is a fork that has yet to create its food density tables and flow fields.
+    private boolean closed; // Whether the simulation has been closed.
     private int step; // Represents the current simulation step or iteration.
-    private final SimulatorView view; // Provides a graphical representation of the simulation.
+    private long nextEntityId; // The id the next entity created in the simulation gets.
+    private final SimulatorView view; // Provides a graphical representation of the simulation, or null when headless.
+    private final boolean headless; // Whether the simulation runs without a window or console reports.
     private Time time; // Represents the current time in the simulation.
     private Weather weather; // Represents the current weather conditions in the simulation.
+    private final Random rand; // The random number generator of this simulation, used by everything in it.
+    private final SimulationParameters parameters; // The creation densities and species parameters of the simulation.
+    private final StepProfiler profiler = new StepProfiler(); // Times the phases of each step when profiling is on.
+    private final EventBus events = new EventBus(EVENT_BUFFER_SIZE); // Carries births, deaths and other events to consumers; its buffer is allocated on the first subscription.
+    private final SimulationControl control; // Pauses and paces the simulation loop.
+    private ControlServer server; // Serves live statistics and control over HTTP, or null if not started.
+    private final StepPipeline pipeline = new StepPipeline(FRAME_BUFFER_SIZE); // Hands each finished step to its observers.
+    private DensityMap densityMap; // Scales the creation probabilities cell by cell, or null for a uniform world.
+    private final SteadyStateDetector steadyState = new SteadyStateDetector(STEADY_STATE_WINDOW, STEADY_STATE_TOLERANCE,
+            KEEP_HASH_HISTORY); // Detects cycles and steady states.
 
     /**
      * Constructs a simulation with default dimensions.
@@ -34,8 +68,8 @@ public class Simulator
      * and sets the initial time to 17:00 with a time step of 10 minutes.
      */
     public Simulator() {
-        this(DEFAULT_DEPTH, DEFAULT_WIDTH); // Initialise the field with default depth and width.
-        time = new Time(8,0,0, 10); // Set the initial time to 17:00 with a time step of 10 minutes.
+        // Initialise the field with default depth and width, and set the initial time to 08:00 with a time step of 10 minutes.
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH, false, Randomizer.SEED, new Time(8,0,0, 10));
     }
     
     /**
@@ -44,6 +78,47 @@ public class Simulator
      * @param width Width of the field. Must be greater than zero.
      */
     public Simulator(int depth, int width) {
+        this(depth, width, false);
+    }
+
+    /**
+     * Create a simulation field with the given size, optionally without any output.
+     * A headless simulation opens no window, prints no per-step reports, uses random weather
+     * instead of calling the weather API and ignores the {@code -Dsimulator.*} output properties,
+     * so it can be driven by benchmarks and other tools, many at once.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param headless Whether to run without a window or console reports.
+     */
+    public Simulator(int depth, int width, boolean headless) {
+        this(depth, width, headless, Randomizer.SEED, new Time());
+    }
+
+    /**
+     * Create a simulation field with the given size, random seed and starting time.
+     * Every simulation owns all of its state, including its random number generator, so any
+     * number of simulations can run side by side in one JVM without affecting each other, and
+     * two simulations with the same seed evolve identically.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param headless Whether to run without a window or console reports.
+     * @param seed The seed of the simulation's random number generator.
+     * @param startTime The time of day the simulation starts at, and the length of a step.
+     */
+    public Simulator(int depth, int width, boolean headless, long seed, Time startTime) {
+        this(depth, width, headless, seed, startTime, SimulationParameters.defaults());
+    }
+
+    /**
+     * Create a simulation field with the given size, random seed, starting time and parameters.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param headless Whether to run without a window or console reports.
+     * @param seed The seed of the simulation's random number generator.
+     * @param startTime The time of day the simulation starts at, and the length of a step.
+     * @param parameters The creation densities and species parameters to simulate with.
+     */
+    public Simulator(int depth, int width, boolean headless, long seed, Time startTime, SimulationParameters parameters) {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be >= zero.");
             System.out.println("Using default values.");
@@ -51,15 +126,307 @@ public class Simulator
             width = DEFAULT_WIDTH;
         }
 
-        time = new Time();
-        weather = new Weather(this);
+        rand = Randomizer.getRandom(seed);
+        this.parameters = parameters;
+        time = startTime;
+        weather = new Weather(this, !headless);
+        control = new SimulationControl(headless ? 0 : STEP_DELAY);
+        if(Boolean.getBoolean("simulator.jfr")) {
+            events.subscribe("jfr", new JfrEventBridge()); // Record the simulation's events with Flight Recorder.
+        }
+        this.headless = headless;
         
-        field = new Field(depth, width);
-        view = new SimulatorView(depth, width, this);
-
+        plants = new PlantLayer(depth, width, rand, new Seeds(this), new Berries(this));
+        scheduler = new ActivityScheduler();
+        field = new Field(depth, width, plants, scheduler, rand);
+        Plant[] plantTypes = plants.getTypes();
+        speciesNames = new String[Field.ANIMAL_SPECIES + plantTypes.length];
+        for(int s = 0; s < speciesNames.length; s++) {
+            speciesNames[s] = s < Field.ANIMAL_SPECIES ? EventBus.speciesName(s) : plantTypes[s - Field.ANIMAL_SPECIES].getName();
+        }
+        foodDensity = createFoodDensity(depth, width);
+        flowField = createFlowField(depth, width);
+        view = headless ? null : new SimulatorView(depth, width, this);
+        if(!headless) {
+            pipeline.subscribe("console", this::printFrame, StepPipeline.Backpressure.BLOCK);
+            pipeline.subscribe("view", view::showFrame, StepPipeline.Backpressure.DROP);
+            openRequestedOutputs(depth, width);
+        }
         reset();
     }
 
+    /**
+     * Open the files and the control server asked for with {@code -Dsimulator.*} system
+     * properties: the heatmap, density map, cluster, frame, trajectory and population outputs and
+     * the HTTP port. Only the interactive simulation does this. Headless simulations are built by
+     * the ensemble runner, the parameter search, the benchmarks and the simulation server, often
+     * many at once, and open nothing, so they cannot truncate each other's files or fight over the port.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    private void openRequestedOutputs(int depth, int width) {
+        String heatmaps = System.getProperty("simulator.heatmap");
+        heatmap = heatmaps != null ? new OccupancyHeatmap(depth, width, speciesNames) : null;
+        heatmapDirectory = heatmaps != null ? Path.of(heatmaps) : null;
+        String map = System.getProperty("simulator.densityMap");
+        if(map != null) {
+            try {
+                densityMap = DensityMap.load(Path.of(map));
+            }
+            catch(IOException | IllegalArgumentException e) {
+                System.out.println("Could not read the density map " + map + ": " + e.getMessage());
+            }
+        }
+        String clusters = System.getProperty("simulator.clusters");
+        if(clusters != null) {
+            try {
+                pipeline.subscribe("clusters", new ClusterAnalytics(Path.of(clusters)), StepPipeline.Backpressure.BLOCK);
+            }
+            catch(IOException e) {
+                System.out.println("Could not record clusters to " + clusters + ": " + e.getMessage());
+            }
+        }
+        String frames = System.getProperty("simulator.frames");
+        if(frames != null) {
+            try {
+                String[] size = System.getProperty("simulator.frameSize", width * 4 + "x" + depth * 4).split("x");
+                frameExporter = new FrameExporter(Path.of(frames), Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim()),
+                        FrameExporter.palette(System.getProperty("simulator.palette")), Runtime.getRuntime().availableProcessors());
+                pipeline.subscribe("frames", frameExporter, StepPipeline.Backpressure.BLOCK);
+            }
+            catch(IOException | RuntimeException e) {
+                System.out.println("Could not export frames to " + frames + ": " + e.getMessage());
+            }
+        }
+        String frameRecording = System.getProperty("simulator.recordFrames");
+        if(frameRecording != null) {
+            try {
+                pipeline.subscribe("frameRecorder", new FrameRecorder(Path.of(frameRecording)), StepPipeline.Backpressure.BLOCK);
+            }
+            catch(IOException e) {
+                System.out.println("Could not record frames to " + frameRecording + ": " + e.getMessage());
+            }
+        }
+        String trajectoryFile = System.getProperty("simulator.trajectories");
+        if(trajectoryFile != null) {
+            try {
+                trajectories = new TrajectoryRecorder(Path.of(trajectoryFile), depth, width, speciesNames);
+            }
+            catch(IOException e) {
+                System.out.println("Could not record trajectories to " + trajectoryFile + ": " + e.getMessage());
+            }
+        }
+        String recording = System.getProperty("simulator.record");
+        if(recording != null) {
+            try {
+                pipeline.subscribe("recorder", new PopulationRecorder(Path.of(recording)), StepPipeline.Backpressure.BLOCK);
+            }
+            catch(IOException e) {
+                System.out.println("Could not record populations to " + recording + ": " + e.getMessage());
+            }
+        }
+        Integer port = Integer.getInteger("simulator.http.port");
+        if(port != null) {
+            startControlServer(port);
+        }
+    }
+
+    /**
+     * Create a fork of a simulation, which shares the simulation's state until one of them changes it.
+     * @param original The simulation to fork, between steps.
+     * @param seed The seed of the fork's random number generator.
+     * @param parameters The parameters the fork goes on with.
+     */
+    private Simulator(Simulator original, long seed, SimulationParameters parameters) {
+        rand = Randomizer.getRandom(seed);
+        this.parameters = parameters;
+        headless = true;
+        step = original.step;
+        nextEntityId = original.nextEntityId;
+        time = new Time(original.time);
+        weather = new Weather(original.weather, this);
+        control = new SimulationControl(0);
+        plants = original.plants.fork(rand, new Seeds(this), new Berries(this));
+        scheduler = original.scheduler;
+        field = original.field.share(plants); // The same animals, under the fork's own plants.
+        deathQueue = original.deathQueue;
+        shared = true;
+        reparameterise = !parameters.equals(original.parameters);
+        forked = true;
+        speciesNames = original.speciesNames;
+        heatmap = null;
+        heatmapDirectory = null;
+        view = null;
+        densityMap = original.densityMap;
+        steadyState.record(original.field.getStateHash(), original.field.getPopulations()); // The fork starts its own record.
+    }
+
+    /**
+     * Returns the tables animals that see beyond their adjacent cells look for food in, or null if none do.
+     */
+    private FoodDensity createFoodDensity(int depth, int width) {
+        return parameters.maxVisionRadius() > 1 ? new FoodDensity(depth, width, speciesNames.length) : null;
+    }
+
+    /**
+     * Returns the flow fields leading to every species some animal pursues, or null if none pursues its food.
+     */
+    private FlowField createFlowField(int depth, int width) {
+        int[] pursued = parameters.species().values().stream()
+                .filter(SpeciesParameters::pursues)
+                .flatMap(species -> species.foodSources().keySet().stream())
+                .mapToInt(this::getSpeciesIndex)
+                .filter(s -> s >= 0)
+                .distinct().sorted().toArray();
+        return pursued.length > 0 ? new FlowField(depth, width, speciesNames.length, pursued) : null;
+    }
+
+    /**
+     * Fork the simulation: return a new headless simulation that starts from this one's current
+     * state and goes on independently, with its own random numbers. See {@link #fork(long, SimulationParameters)}.
+     * @param seed The seed of the fork's random number generator.
+     * @return The fork.
+     */
+    public Simulator fork(long seed) {
+        return fork(seed, parameters);
+    }
+
+    /**
+     * Fork the simulation with other parameters, to ask what would happen if something changed
+     * now. The fork is a new headless simulation, starting from this one's current state, that
+     * goes on independently with its own random numbers; this simulation goes on exactly as it
+     * would have without the fork. Forking costs the same however large the field, as the two
+     * share their state, but branching is copy-on-first-step: each copies all its animals the
+     * first time it steps, resets or hands out its field to be changed, which is O(n) in the
+     * population and runs on its own thread. The plants are copied a band of rows at a time as they change.
+     * Any number of forks, of this simulation or of each other, can then run on separate threads.
+     * Forks have no window, console reports, recorders or exporters, and should be closed when
+     * they are no longer needed.
+     * @param seed The seed of the fork's random number generator.
+     * @param parameters The parameters the fork goes on with. Every animal takes the parameters of its species.
+     * @return The fork.
+     * @throws IllegalStateException If called in the middle of a step.
+     */
+    public Simulator fork(long seed, SimulationParameters parameters) {
+        if(nextField != null) {
+            throw new IllegalStateException("Cannot fork a simulation in the middle of a step");
+        }
+        Simulator fork = new Simulator(this, seed, parameters);
+        shared = true; // This simulation must no longer change the state it now shares.
+        return fork;
+    }
+
+    /**
+     * Copy the animals, the field state holding them, the dormant entities and the death queue if
+     * they are shared with a fork, so that this simulation can change them without the fork
+     * seeing it. The copies are made before this simulation first changes any of them.
+     */
+    private void unshare() {
+        if(!shared) {
+            return;
+        }
+        Map<Entity, Entity> copies = new IdentityHashMap<>();
+        List<Animal> animals = new ArrayList<>(); // The copied animals, in a repeatable order.
+        UnaryOperator<Entity> copyOf = original -> copies.computeIfAbsent(original, entity -> {
+            Entity copy = entity.copyFor(this);
+            if(copy instanceof Animal animal) {
+                animals.add(animal);
+            }
+            return copy;
+        });
+        scheduler = scheduler.copy(copyOf);
+        field = field.copy(plants, scheduler, rand, copyOf);
+        deathQueue = deathQueue.copy(animal -> (Animal) copyOf.apply(animal));
+        shared = false;
+        if(forked) {
+            foodDensity = createFoodDensity(field.getDepth(), field.getWidth()); // Left until now, as they are the size of the field.
+            flowField = createFlowField(field.getDepth(), field.getWidth());
+            forked = false;
+        }
+        if(reparameterise) {
+            for(Animal animal : animals) {
+                animal.setParameters(parameters.forSpecies(animal.SPECIES));
+            }
+            reparameterise = false;
+        }
+    }
+
+    /**
+     * Start serving live statistics, metrics and pause/resume/step/speed controls over HTTP on
+     * the loopback address. Does nothing if the server is already running.
+     * @param port The port to listen on, or 0 for any free port.
+     * @return The port the server is listening on, or -1 if it could not be started.
+     */
+    public int startControlServer(int port) {
+        if(server == null) {
+            try {
+                server = new ControlServer(control, port);
+                pipeline.subscribe("server", server::publish, StepPipeline.Backpressure.BLOCK);
+                System.out.println("Control server listening on http://127.0.0.1:" + server.getPort());
+            }
+            catch(IOException e) {
+                System.out.println("Could not start the control server: " + e.getMessage());
+                return -1;
+            }
+        }
+        return server.getPort();
+    }
+
+    /**
+     * Stop serving statistics and control over HTTP.
+     */
+    public void stopControlServer() {
+        if(server != null) {
+            pipeline.unsubscribe("server");
+            server.stop();
+            server = null;
+        }
+    }
+
+    /**
+     * Release what the simulation holds outside itself once it is no longer needed. The control
+     * server is stopped. The step pipeline is closed, which closes the recorders and exporters
+     * subscribed to it once they have handled every frame, finishing their files. The trajectory
+     * file is closed, the last heatmap snapshot is written, the event consumers are stopped and
+     * the step profiler is unregistered from JMX. Every simulation that is built and thrown away, such as the replicates of an ensemble
+     * or a parameter search and any fork, should be closed. Closing twice does nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        stopControlServer();
+        pipeline.close();
+        if(trajectories != null) {
+            try {
+                trajectories.close();
+            }
+            catch(IOException e) {
+                System.out.println("Could not record every trajectory: " + e.getMessage());
+            }
+        }
+        if(heatmap != null) {
+            try {
+                heatmap.close();
+            }
+            catch(IOException e) {
+                System.out.println("Could not export the heatmap to " + heatmapDirectory + ": " + e.getMessage());
+            }
+        }
+        events.close();
+        profiler.close();
+    }
+
+    /**
+     * Returns the control used to pause, resume, single-step and pace the simulation loop.
+     * @return The simulation's control.
+     */
+    public SimulationControl getControl() {
+        return control;
+    }
+
     /**
      * Returns the current time of the simulation.
      *
@@ -77,6 +444,172 @@ public class Simulator
         return weather; // Returns the current Weather object.
     }
 
+    /**
+     * Returns the random number generator shared by everything in this simulation.
+     * @return The simulation's random number generator.
+     */
+    public Random getRandom() {
+        return rand;
+    }
+
+    /**
+     * Returns the parameters the simulation was created with.
+     * @return The simulation's parameters.
+     */
+    public SimulationParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the current state of the simulation field, to be read. While the simulation shares
+     * its state with a fork, the field and its entities must not be changed through it; use
+     * {@link #getWritableField()} to change them between steps.
+     * @return The field holding the entities of the current step.
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns the current state of the simulation field, to be changed between steps. A
+     * simulation sharing its state with a fork takes its own copy first, so the field and its
+     * entities can then be changed freely.
+     * @return The field holding the entities of the current step.
+     */
+    public Field getWritableField() {
+        unshare();
+        return field;
+    }
+
+    /**
+     * Returns the queue of animals waiting to check for their natural death at a later step. It
+     * is only changed during a step or a reset, once the simulation has its own copy.
+     * @return The death queue of the simulation.
+     */
+    public TimingWheel<Animal> getDeathQueue() {
+        return deathQueue;
+    }
+
+    /**
+     * Returns the profiler timing the phases of each step.
+     * @return The step profiler of the simulation.
+     */
+    public StepProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Returns the bus that births, deaths, infections, recoveries and predation are published on.
+     * @return The event bus of the simulation.
+     */
+    public EventBus getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns the detector watching the run for exact cycles and statistical steady states. It
+     * also holds the hash of the field at every step, for comparing runs.
+     * @return The steady-state detector of the simulation.
+     */
+    public SteadyStateDetector getSteadyState() {
+        return steadyState;
+    }
+
+    /**
+     * Take an entity that is dying out of the hash and population of the field states and the
+     * dormant entities it is resident in.
+     * @param anEntity The entity that is dying, which must still be alive.
+     * @param location The location the entity is dying at.
+     */
+    public void removeEntity(Entity anEntity, Location location) {
+        field.removeEntity(anEntity, location);
+        if(nextField != null) {
+            nextField.removeEntity(anEntity, location);
+        }
+        scheduler.removeEntity(anEntity, location);
+    }
+
+    /**
+     * Returns the tables of where each species was at the start of the current step, which let
+     * animals look for food beyond their adjacent cells.
+     * @return The food density tables, or null if no species can see further than its adjacent cells.
+     */
+    public FoodDensity getFoodDensity() {
+        return foodDensity;
+    }
+
+    /**
+     * Returns the flow fields leading from every cell to the nearest member of each species that
+     * some animal pursues, as it was at the start of the current step.
+     * @return The flow fields, or null if no species pursues its food.
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * Returns the species on every cell of the current field state, copying only what has
+     * changed since the grid was last brought up to date.
+     */
+    private SpeciesGrid updateSpeciesGrid() {
+        if(speciesGrid == null) {
+            speciesGrid = new SpeciesGrid(field.getDepth(), field.getWidth()); // Left until needed, as it is the size of the field.
+        }
+        speciesGrid.update(field);
+        return speciesGrid;
+    }
+
+    /**
+     * Returns the steps each species has spent in each cell during the run.
+     * @return The occupancy heatmap, or null unless the interactive simulation was started with {@code -Dsimulator.heatmap=<directory>}.
+     */
+    public OccupancyHeatmap getHeatmap() {
+        return heatmap;
+    }
+
+    /**
+     * Export a snapshot of the occupancy heatmap, reporting rather than failing if it cannot be written.
+     */
+    private void exportHeatmap() {
+        try {
+            heatmap.exportInBackground(heatmapDirectory, step); // The files are written off the simulation thread.
+        }
+        catch(IOException e) {
+            System.out.println("Could not export the heatmap to " + heatmapDirectory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of a species by name.
+     * @param name The simple class name of an animal species, or the name of a plant species.
+     * @return The species, numbered as in {@link Field#getPopulations()}, or -1 if there is no such species.
+     */
+    public int getSpeciesIndex(String name) {
+        for(int s = 0; s < speciesNames.length; s++) {
+            if(speciesNames[s].equals(name)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the pipeline that hands a frame of each finished step to the simulation's observers.
+     * @return The step pipeline of the simulation.
+     */
+    public StepPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Returns a new entity id. Ids are handed out in order and never reused, even after a reset,
+     * and a fork goes on from the id its original had reached.
+     * @return An id no other entity of the simulation has.
+     */
+    public long nextEntityId() {
+        return nextEntityId++;
+    }
+
     /**
      * Returns the current simulation step.
      * @return The current simulation step.
@@ -96,15 +629,63 @@ public class Simulator
     
     /**
      * Run the simulation for the given number of steps.
-     * Stop before the given number of steps if it ceases to be viable.
+     * Stop before the given number of steps if it ceases to be viable, or, when the
+     * {@code simulator.stopWhenSettled} system property is set, once it has settled into a cycle
+     * or a steady state.
      * @param numSteps The number of steps to run for.
      */
     public void simulate(int numSteps) {
-        reportStats();
-        for(int n = 1; n <= numSteps && field.isViable(); n++) {
+        for(int n = 1; n <= numSteps && isViable() && !(STOP_WHEN_SETTLED && steadyState.isSettled()); n++) {
+            control.awaitStep(); // Wait here while the simulation is paused.
             simulateOneStep();
-            delay(50);         // adjust this to change execution speed
+            if(control.getDelay() > 0) {
+                delay(control.getDelay());         // adjust the delay through the control to change execution speed
+            }
         }
+        pipeline.awaitIdle(); // Let the observers catch up with the run.
+        if(frameExporter != null) {
+            try {
+                frameExporter.awaitWritten();
+            }
+            catch(IOException e) {
+                System.out.println("Could not export every frame: " + e.getMessage());
+            }
+        }
+        if(trajectories != null) {
+            try {
+                trajectories.flush();
+            }
+            catch(IOException e) {
+                System.out.println("Could not record every trajectory: " + e.getMessage());
+            }
+        }
+        if(heatmap != null) {
+            if(step % HEATMAP_INTERVAL != 0) {
+                exportHeatmap(); // The last snapshot of the run.
+            }
+            try {
+                heatmap.awaitExport();
+            }
+            catch(IOException e) {
+                System.out.println("Could not export the heatmap to " + heatmapDirectory + ": " + e.getMessage());
+            }
+        }
+        if(steadyState.isSettled()) {
+            System.out.println("Simulation settled: " + steadyState);
+        }
+        events.flush(); // Let the event consumers catch up with the run.
+        profiler.printSummary(System.out);
+    }
+
+    /**
+     * Check whether the field can still sustain the simulation, timed as part of the statistics.
+     * @return true if the simulation is still viable.
+     */
+    private boolean isViable() {
+        long start = profiler.start();
+        boolean viable = field.isViable();
+        profiler.stop(StepProfiler.Phase.STATS, start);
+        return viable;
     }
 //    public void simulate(int numSteps) {
 //        reportStats();
@@ -120,76 +701,180 @@ public class Simulator
     
     /**
      * Run the simulation from its current state for a single step.
-     * Iterate over the whole field updating the state of each fox and rabbit.
+     * Iterate over the awake entities, and those waking up this step, updating the state of each.
+     * Dormant entities are skipped until their wake-up step.
      */
     public void simulateOneStep() {
+        long stepStart = System.nanoTime();
+        unshare();
+        profiler.beginStep();
         time.incrementTime();
         step++;
-        System.out.println("Step: " + step);
-        System.out.println("Time: " + time.getFormattedTime());
-        // Use a separate Field to store the starting state of
-        // the next step.
-        Field nextFieldState = new Field(field.getDepth(), field.getWidth());
 
-        List<Entity> entities = field.getEntities();
-        for (Entity anEntity : entities) {
-            anEntity.act(field, nextFieldState);
+        // Plants grow, spread and die in place, in one bulk update of the plant layer.
+        long start = profiler.start();
+        plants.act();
+        profiler.stop(StepProfiler.Phase.PLANTS, start);
+
+        // Count where every species is, for the animals that can see further than their neighbours.
+        if(foodDensity != null) {
+            start = profiler.start();
+            foodDensity.build(updateSpeciesGrid());
+            profiler.stop(StepProfiler.Phase.DENSITY, start);
         }
+        // Find the way from every cell to the nearest prey, for the animals that pursue their food.
+        if(flowField != null) {
+            start = profiler.start();
+            flowField.build(updateSpeciesGrid());
+            profiler.stop(StepProfiler.Phase.PURSUIT, start);
+        }
+
+        // Use a separate Field to store the starting state of
+        // the next step. The plant layer and dormant entities carry over unchanged.
+        Field nextFieldState = new Field(field.getDepth(), field.getWidth(), plants, scheduler, rand);
+        nextField = nextFieldState;
+
+        // Animals whose old age, starvation or disease falls due this step die before anything acts.
+        start = profiler.start();
+        deathQueue.advance(Animal::checkNaturalDeath);
+        profiler.stop(StepProfiler.Phase.DEATHS, start);
+
+        // Wake the dormant entities that are due to act this step.
+        start = profiler.start();
+        List<Entity> woken = new ArrayList<>();
+        scheduler.wake(woken);
+
+        act(field.getEntities(), nextFieldState);
+        act(woken, nextFieldState);
+        profiler.stop(StepProfiler.Phase.ACT, start);
         
         // Replace the old state with the new one.
         field = nextFieldState;
+        nextField = null;
 
-        reportStats();
-        view.showStatus(step, field);
+        start = profiler.start();
+        steadyState.record(field.getStateHash(), field.getPopulations());
+        if(heatmap != null) {
+            heatmap.accumulate(updateSpeciesGrid()); // Also serves the next step's tables, unless the animals change in between.
+            if(step % HEATMAP_INTERVAL == 0) {
+                exportHeatmap();
+            }
+        }
+        profiler.stop(StepProfiler.Phase.STATS, start);
+
+        // Hand a frame of the new state to the console, window, control server and recorders,
+        // which work on it on their own threads while the next step runs.
+        start = profiler.start();
+        publishFrame(System.nanoTime() - stepStart);
+        if(trajectories != null) {
+            trajectories.record(step, field); // Copies the animals' values; they are compressed and written off this thread.
+        }
+        profiler.stop(StepProfiler.Phase.PUBLISH, start);
+        profiler.endStep(field);
+    }
+
+    /**
+     * Publish a frame of the current state to the step pipeline, if anything is subscribed to it.
+     * @param stepNanos How long the step that has just finished took.
+     */
+    private void publishFrame(long stepNanos) {
+        if(pipeline.hasSubscribers()) {
+            pipeline.publish(StepFrame.capture(this, stepNanos));
+        }
+    }
+
+    /**
+     * Print the step, time and population tables of a frame to the console.
+     * @param frame The frame of a finished step.
+     */
+    private void printFrame(StepFrame frame) {
+        System.out.println("Step: " + frame.step());
+        System.out.println("Time: " + frame.time());
+        int[] males = new int[Field.ANIMAL_SPECIES];
+        for(int species = 0; species < males.length; species++) {
+            males[species] = frame.males(species);
+        }
+        int[] populations = frame.populations();
+        Field.printStats(males, frame.females(), populations[Field.ANIMAL_SPECIES], populations[Field.ANIMAL_SPECIES + 1]);
     }
         
+    /**
+     * Let each of the given entities act, and put those that have nothing to do for a while
+     * to sleep until their next wake-up step.
+     * @param entities The entities to act.
+     * @param nextFieldState The field representing the next state of the simulation.
+     */
+    private void act(List<Entity> entities, Field nextFieldState) {
+        for (Entity anEntity : entities) {
+            long start = profiler.start();
+            anEntity.act(field, nextFieldState);
+            profiler.stopAct(anEntity.getClass(), start);
+            if (anEntity.isAlive() && anEntity.getWakeStep() > step) {
+                scheduler.sleep(anEntity, anEntity.getWakeStep()); // Skip the entity until it wakes up.
+            }
+        }
+    }
+
     /**
      * Reset the simulation to a starting position.
      */
     public void reset() {
+        unshare();
         step = 0;
         populate();
-        view.showStatus(step, field);
+        steadyState.reset();
+        steadyState.record(field.getStateHash(), field.getPopulations()); // The initial state is step 0.
+        if(heatmap != null) {
+            heatmap.clear();
+            heatmap.accumulate(updateSpeciesGrid());
+        }
+        if(trajectories != null) {
+            trajectories.record(step, field);
+        }
+        publishFrame(0);
     }
     
     /**
      * Randomly populate the field with foxes and rabbits.
+     * Large fields, and fields with a density map, are populated by the parallel world generator.
      */
     private void populate() {
-        Random rand = Randomizer.getRandom();
         field.clear();
+        deathQueue.clear(step);
+        if(densityMap != null || (long) field.getDepth() * field.getWidth() >= PARALLEL_POPULATE_CELLS) {
+            new WorldGenerator(field.getDepth(), field.getWidth(), parameters, densityMap).generate(rand.nextLong(), this::placeInitial);
+            return;
+        }
 
-        double DISEASE_PROBABILITY = 0.05; // 5% chance an animal starts infected
+        double DISEASE_PROBABILITY = parameters.diseaseProbability(); // Chance an animal starts infected
 
         for (int row = 0; row < field.getDepth(); row++) {
             for (int col = 0; col < field.getWidth(); col++) {
                 Location location = new Location(row, col);
-                Gender gender = Gender.getRandomGender();
+                Gender gender = Gender.getRandomGender(rand);
 
-                if (rand.nextDouble() <= WOLF_CREATION_PROBABILITY) {
+                if (rand.nextDouble() <= parameters.wolfCreationProbability()) {
                     Wolf wolf = new Wolf(true, location, gender, this);
                     if (rand.nextDouble() < DISEASE_PROBABILITY) {
                         wolf.infect(new Flu());
                     }// Randomly start some wolves with Flu
                     field.placeEntity(wolf, location);
-                } else if (rand.nextDouble() <= BOBCAT_CREATION_PROBABILITY) {
+                } else if (rand.nextDouble() <= parameters.bobcatCreationProbability()) {
                     Bobcat bobcat = new Bobcat(true, location, gender, this);
                         if (rand.nextDouble() < DISEASE_PROBABILITY) {
                             bobcat.infect(new Rabies());
                         }// Randomly start some Bobcats with Rabies
                     field.placeEntity(bobcat, location);
-                } else if (rand.nextDouble() <= SQUIRREL_CREATION_PROBABILITY) {
+                } else if (rand.nextDouble() <= parameters.squirrelCreationProbability()) {
                     Squirrel squirrel = new Squirrel(true, location, gender, this);
                     field.placeEntity(squirrel, location);
-                } else if (rand.nextDouble() <= GROUSE_CREATION_PROBABILITY) {
+                } else if (rand.nextDouble() <= parameters.grouseCreationProbability()) {
                     Grouse grouse = new Grouse(true, location, gender, this);
                     field.placeEntity(grouse, location);
-                } else if (rand.nextDouble() <= SEEDS_CREATION_PROBABILITY) {
-                    Seeds seeds = new Seeds(location, this, time);
-                    field.placeEntity(seeds, location);
-                } else if (rand.nextDouble() <= BERRIES_CREATION_PROBABILITY) {
-                    Berries berries = new Berries(location, this, time);
-                    field.placeEntity(berries, location);
+                } else if (rand.nextDouble() <= parameters.seedsCreationProbability()) {
+                    plants.placePlant(Seeds.class, location);
+                } else if (rand.nextDouble() <= parameters.berriesCreationProbability()) {
+                    plants.placePlant(Berries.class, location);
                 }
                 // else leave the location empty.
             }
@@ -197,10 +882,46 @@ public class Simulator
     }
 
     /**
-     * Report on the number of each type of animal in the field.
+     * Create an entity of a generated world.
+     * @param species The species, numbered as in {@link Field#getPopulations()}.
+     * @param location The cell to create it in.
+     * @param gender The gender of an animal.
+     * @param infected Whether a wolf or bobcat starts infected with its disease.
+     */
+    private void placeInitial(int species, Location location, Gender gender, boolean infected) {
+        Animal animal = switch(species) {
+            case 0 -> new Wolf(true, location, gender, this);
+            case 1 -> new Bobcat(true, location, gender, this);
+            case 2 -> new Squirrel(true, location, gender, this);
+            case 3 -> new Grouse(true, location, gender, this);
+            default -> null;
+        };
+        if(animal == null) {
+            plants.placePlant(species == Field.ANIMAL_SPECIES ? Seeds.class : Berries.class, location);
+            return;
+        }
+        if(infected) {
+            animal.infect(animal instanceof Wolf ? new Flu() : new Rabies());
+        }
+        field.placeEntity(animal, location);
+    }
+
+    /**
+     * Set the map scaling how densely each part of the field is populated, from the next reset on.
+     * Setting a map populates the field with the parallel world generator, whatever its size.
+     * @param densityMap The map, or null for a uniform world.
+     */
+    public void setDensityMap(DensityMap densityMap) {
+        this.densityMap = densityMap;
+    }
+
+    /**
+     * Report on the number of each type of animal in the field. Headless simulations do not report.
      */
     public void reportStats() {
-        field.fieldStats();
+        if(!headless) {
+            field.fieldStats();
+        }
     }
     
     /**
@@ -1,13 +1,24 @@
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import javax.swing.*;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A graphical view of the simulation grid, displaying the contents of the field.
  * Each location in the field is represented by a coloured rectangle, with colours
  * assigned to different entity types. The view also displays simulation statistics
- * such as the current step, population details, and time.
+ * such as the current step, population details, and time, and charts the population of every
+ * species over recent steps.
+ *
+ * Frames arrive on a thread of the simulation's step pipeline, and are handed to the Event Dispatch
+ * Thread to be shown, as Swing requires. If frames arrive faster than they can be shown, only the
+ * latest is shown; the population chart still records every frame that arrives.
  *
  * @author David J. Barnes and Michael Kölling and Mahdi Razzaque and Ozgur Dorunay
  * @version 10.02.2025
@@ -26,6 +37,10 @@ public class SimulatorView extends JFrame {
     private final JLabel stepLabel;
     private final JLabel population;
     private final FieldView fieldView;
+    private final PopulationChart chart; // Charts the population of every species over recent steps.
+    private final String[] speciesNames; // The name of each species, in population signature order.
+    private final Color[] speciesColors; // The colour of each species, in population signature order.
+    private final AtomicReference<StepFrame> latestFrame = new AtomicReference<>(); // The frame waiting to be shown, or null.
 
     private final String DAY_PREFIX = "Days: ";
     private final JLabel daysLabel;
@@ -65,7 +80,15 @@ public class SimulatorView extends JFrame {
         
         setLocation(100, 50);
         
+        Class<?>[] species = {Wolf.class, Bobcat.class, Squirrel.class, Grouse.class, Seeds.class, Berries.class}; // In population signature order.
+        speciesNames = new String[species.length];
+        speciesColors = new Color[species.length];
+        for (int s = 0; s < species.length; s++) {
+            speciesNames[s] = species[s].getSimpleName();
+            speciesColors[s] = getColor(species[s]);
+        }
         fieldView = new FieldView(height, width);
+        chart = new PopulationChart(speciesNames, speciesColors, Field.ANIMAL_SPECIES);
         timeLabel = new JLabel(TIME_PREFIX);
         daysLabel = new JLabel(DAY_PREFIX);
         dayOrNightLabel = new JLabel(DAY_OR_NIGHT_PREFIX);
@@ -87,7 +110,10 @@ public class SimulatorView extends JFrame {
         Container contents = getContentPane();
         contents.add(northPanel, BorderLayout.NORTH);
         contents.add(fieldView, BorderLayout.CENTER);
-        contents.add(population, BorderLayout.SOUTH);
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(chart, BorderLayout.CENTER);
+        southPanel.add(population, BorderLayout.SOUTH);
+        contents.add(southPanel, BorderLayout.SOUTH);
         pack();
         setVisible(true);
     }
@@ -118,49 +144,48 @@ public class SimulatorView extends JFrame {
     }
 
     /**
-     * Show the current status of the field.
-     * @param step Which iteration step it is.
-     * @param field The field whose status is to be displayed.
+     * Show the current status of the simulation.
+     */
+    public void showStatus() {
+        showFrame(StepFrame.capture(simulator, 0));
+    }
+
+    /**
+     * Show the state of the field in a frame taken at the end of a step. Called with the frames of
+     * the simulation's step pipeline, off the Event Dispatch Thread: the frame is recorded in the
+     * population chart, which is safe from any thread, and shown on the Event Dispatch Thread.
+     * @param frame The frame to show.
+     */
+    public void showFrame(StepFrame frame) {
+        chart.record(frame.step(), frame.populations());
+        if(latestFrame.getAndSet(frame) == null) {
+            SwingUtilities.invokeLater(this::showLatestFrame); // Not already waiting to show a frame.
+        }
+    }
+
+    /**
+     * Show the latest frame to have arrived, on the Event Dispatch Thread.
      */
-    public void showStatus(int step, Field field) {
+    private void showLatestFrame() {
+        StepFrame frame = latestFrame.getAndSet(null);
         if(!isVisible()) {
             setVisible(true);
         }
 
-        daysLabel.setText(DAY_PREFIX + simulator.getTime().getDays());
-        stepLabel.setText(STEP_PREFIX + step);
-        timeLabel.setText(TIME_PREFIX + simulator.getTime().getFormattedTime());
-        dayOrNightLabel.setText(simulator.getTime().isDay() ? "Day ☀️" : "Night 🌙");
-        weatherLabel.setText(simulator.getWeather().getWeatherTextAndEmoji());
+        daysLabel.setText(DAY_PREFIX + frame.days());
+        stepLabel.setText(STEP_PREFIX + frame.step());
+        timeLabel.setText(TIME_PREFIX + frame.time());
+        dayOrNightLabel.setText(frame.day() ? "Day ☀️" : "Night 🌙");
+        weatherLabel.setText(frame.weather() + " " + frame.weatherEmoji());
 
-        stats.reset();
-        
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object entity = field.getEntityAt(new Location(row, col));
-                if(entity != null) {
-                    stats.incrementCount(entity.getClass());
-
-                    // Check if this entity is an infected animal and increment the infected count
-                    if(entity instanceof Animal animal) {
-                        if(animal.getDisease() != null) {
-                            stats.incrementInfectedCount();
-                        }
-                    }
+        fieldView.showFrame(frame);
 
-                    fieldView.drawMark(col, row, getColor(entity.getClass()));
-                }
-                else {
-                    fieldView.drawMark(col, row, EMPTY_COLOR);
-                }
-            }
+        StringBuilder details = new StringBuilder();
+        for(int species = 0; species < frame.populations().length; species++) {
+            details.append(speciesNames[species]).append(": ").append(frame.populations()[species]).append(' ');
         }
-        stats.countFinished();
-
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-        fieldView.repaint();
+        details.append("Infected animals: ").append(frame.infected());
+        population.setText(POPULATION_PREFIX + details);
     }
 
     /**
@@ -179,16 +204,27 @@ public class SimulatorView extends JFrame {
      * component displays the field.
      * This is rather advanced GUI stuff - you can ignore this 
      * for your project if you like.
+     *
+     * Only the part of the field inside the view is drawn, through a {@link Viewport}, so a frame
+     * costs the same to draw however large the field is. Scroll to zoom about the mouse, drag to
+     * pan, and double-click to show the whole field again. It is only used on the Event Dispatch Thread.
      */
     private class FieldView extends JPanel
     {
+        private static final long serialVersionUID = 1L;
         private final int GRID_VIEW_SCALING_FACTOR = 6;
+        private final int MAX_PREFERRED_WIDTH = 1200; // The widest the view asks to be.
+        private final int MAX_PREFERRED_HEIGHT = 800; // The tallest the view asks to be.
+        private final double ZOOM_STEP = 1.25; // How much one notch of the mouse wheel zooms.
 
         private final int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        private final transient Viewport viewport;
+        private final int[] palette; // The RGB colour of an empty cell followed by that of each species.
+        private transient BufferedImage fieldImage;
+        private int[] pixels; // The pixels of the field image.
+        private transient StepFrame frame; // The frame being shown, or null before the first.
+        private boolean fitted = true; // Whether the view shows the whole field, until zoomed or panned.
+        private Point dragFrom; // Where the mouse was when last dragged.
 
         /**
          * Create a new FieldView component.
@@ -197,64 +233,122 @@ public class SimulatorView extends JFrame {
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            viewport = new Viewport(height, width, speciesColors.length);
+            palette = new int[speciesColors.length + 1];
+            palette[0] = EMPTY_COLOR.getRGB() & 0xFFFFFF;
+            for(int s = 0; s < speciesColors.length; s++) {
+                palette[s + 1] = speciesColors[s].getRGB() & 0xFFFFFF;
+            }
+
+            MouseAdapter mouse = new MouseAdapter() {
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+                }
+
+                public void mousePressed(MouseEvent e) {
+                    dragFrom = e.getPoint();
+                }
+
+                public void mouseDragged(MouseEvent e) {
+                    pan(e.getX() - dragFrom.x, e.getY() - dragFrom.y);
+                    dragFrom = e.getPoint();
+                }
+
+                public void mouseClicked(MouseEvent e) {
+                    if(e.getClickCount() == 2) {
+                        showAll();
+                    }
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
         }
 
         /**
-         * Tell the GUI manager how big we would like to be.
+         * Tell the GUI manager how big we would like to be: six pixels a cell, unless that would
+         * not fit on a screen.
          */
         public Dimension getPreferredSize()
         {
-            return new Dimension(gridWidth * GRID_VIEW_SCALING_FACTOR,
-                                 gridHeight * GRID_VIEW_SCALING_FACTOR);
+            double scale = Math.min(GRID_VIEW_SCALING_FACTOR,
+                    Math.min((double) MAX_PREFERRED_WIDTH / gridWidth, (double) MAX_PREFERRED_HEIGHT / gridHeight));
+            return new Dimension(Math.max(1, (int) (gridWidth * scale)), Math.max(1, (int) (gridHeight * scale)));
         }
 
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Show a new frame.
          */
-        public void preparePaint()
+        public void showFrame(StepFrame frame)
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
-                }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
-                }
-            }
+            this.frame = frame;
+            redraw();
         }
-        
+
+        /**
+         * Zoom in or out about a point of the view.
+         */
+        private void zoom(double factor, int x, int y)
+        {
+            viewport.zoom(factor, x, y);
+            fitted = false;
+            redraw();
+        }
+
+        /**
+         * Move the field within the view.
+         */
+        private void pan(int dx, int dy)
+        {
+            viewport.pan(dx, dy);
+            fitted = false;
+            redraw();
+        }
+
         /**
-         * Paint on grid location on this field in a given color.
+         * Show the whole field again, and keep it fitted to the view as it is resized.
          */
-        public void drawMark(int x, int y, Color color)
+        private void showAll()
         {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
+            fitted = true;
+            redraw();
+        }
+
+        /**
+         * Draw the current frame into the field image, at the component's current size, and
+         * have it copied to the screen.
+         */
+        private void redraw()
+        {
+            Dimension size = getSize();
+            if(frame == null || size.width <= 0 || size.height <= 0) {
+                return;
+            }
+            if(fieldImage == null || fieldImage.getWidth() != size.width || fieldImage.getHeight() != size.height) {
+                fieldImage = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
+            }
+            if(fitted) {
+                viewport.fit(size.width, size.height);
+            }
+            viewport.render(frame, pixels, size.width, size.height, palette);
+            repaint();
         }
 
         /**
          * The field view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * internal image to screen, drawing it afresh first if the
+         * component has been resized.
          */
         public void paintComponent(Graphics g)
         {
+            super.paintComponent(g);
+            Dimension size = getSize();
+            if(fieldImage == null || fieldImage.getWidth() != size.width || fieldImage.getHeight() != size.height) {
+                redraw();
+            }
             if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
-                }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
-                }
+                g.drawImage(fieldImage, 0, 0, null);
             }
         }
     }
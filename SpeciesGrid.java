@@ -0,0 +1,68 @@
+/**
+ * The species on every cell of a field state, copied into two byte arrays: one more than the
+ * species of the living animal, awake or dormant, on each cell (as in
+ * {@link Field#copyAnimalSpeciesTo}), and the species byte of the plant on it (as in
+ * {@link PlantLayer#copySpeciesTo}). A simulation keeps one grid, which its food density tables,
+ * flow fields and occupancy heatmap all read, so the field is copied once for each state they
+ * look at rather than once for each of them.
+ *
+ * The animals and the plants are only copied again when their part of the field's Zobrist hash
+ * has changed since the last copy. The heatmap's copy at the end of a step therefore also serves
+ * the next step's tables, which only need the plants copied again once they have grown.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class SpeciesGrid {
+    private final byte[] animals; // One more than the species of the animal in each cell, or 0.
+    private final byte[] plants; // The species byte of the plant in each cell, or 0.
+    private long animalHash, plantHash; // The hashes of the animals and plants that were copied.
+    private boolean copied; // Whether the arrays hold a copy yet.
+
+    /**
+     * Create an empty grid for a field.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    public SpeciesGrid(int depth, int width) {
+        animals = new byte[depth * width];
+        plants = new byte[depth * width];
+    }
+
+    /**
+     * Bring the grid up to date with a field state, copying the animals and the plants only if
+     * they have changed since they were last copied.
+     * @param field The field state.
+     */
+    public void update(Field field) {
+        long plantsNow = field.getPlants().getHash();
+        long animalsNow = field.getStateHash() ^ plantsNow; // The animals' part of the hash, awake and dormant.
+        if (!copied || animalsNow != animalHash) {
+            field.copyAnimalSpeciesTo(animals);
+            animalHash = animalsNow;
+        }
+        if (!copied || plantsNow != plantHash) {
+            field.getPlants().copySpeciesTo(plants);
+            plantHash = plantsNow;
+        }
+        copied = true;
+    }
+
+    /**
+     * Returns the animal on each cell of the field state the grid was last updated with. The
+     * array is the grid's own and must not be modified.
+     * @return One more than the species of the animal in each cell, row by row, or 0 for none.
+     */
+    public byte[] getAnimals() {
+        return animals;
+    }
+
+    /**
+     * Returns the plant on each cell of the field state the grid was last updated with. The
+     * array is the grid's own and must not be modified.
+     * @return The species byte of the plant in each cell, row by row, or 0 for none.
+     */
+    public byte[] getPlants() {
+        return plants;
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.HashMap;
+
+/**
+ * The tunable life-history parameters of one animal species. Every animal of the species in a
+ * simulation shares the same parameters, including the same food source map, which must
+ * therefore not be modified. The default parameters keep every species to its adjacent cells
+ * unless {@code -Dsimulator.vision=true} switches on each species' tuned vision radius, and no
+ * species pursues its food unless {@code -Dsimulator.pursuit=true} lets wolves and bobcats do so.
+ *
+ * @param breedingAge The minimum age at which the animal can breed.
+ * @param maxAge The maximum age the animal can live to.
+ * @param breedingProbability The probability of the animal breeding in a given step.
+ * @param maxLitterSize The maximum number of offspring the animal can have at once.
+ * @param visionRadius How far away the animal can see food and move towards it. At 1 it only
+ *                     notices food in the adjacent cells.
+ * @param pursues Whether the animal chases the nearest of its food anywhere on the field, along
+ *                the simulation's flow fields, before looking within its vision radius.
+ * @param foodSources The animal's food sources and their nutritional values. The first value
+ *                    in iteration order is also the animal's food level when it is created.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public record SpeciesParameters(int breedingAge, int maxAge, double breedingProbability, int maxLitterSize, int visionRadius, boolean pursues,
+                                HashMap<String, Integer> foodSources) {
+    static final boolean VISION = Boolean.getBoolean("simulator.vision"); // Whether the defaults let animals see past the adjacent cells.
+    static final boolean PURSUIT = Boolean.getBoolean("simulator.pursuit"); // Whether the defaults let predators chase their food.
+}
@@ -13,6 +13,8 @@ public class Squirrel extends Animal {
     private static final int MAX_AGE = 120; // The maximum age a squirrel can live to (in simulation steps).
     private static final double BREEDING_PROBABILITY = 0.08;  // The probability of a squirrel breeding during a simulation step (0.0 to 1.0).
     private static final int MAX_LITTER_SIZE = 4;  // The maximum number of offspring a squirrel can produce in a single breeding.
+    private static final int VISION_RADIUS = 3;  // How far away a squirrel can see food under -Dsimulator.vision (otherwise 1).
+    private static final boolean PURSUES = false;  // Whether a squirrel chases the nearest of its food across the field.
 
     /**
      * Constructs a new Squirrel.
@@ -24,8 +26,16 @@ public class Squirrel extends Animal {
      * @param simulator The simulator instance.
      */
     public Squirrel(boolean randomAge, Location location, Gender gender, Simulator simulator) {
-        super(randomAge, location, BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
-                createFoodSources(), Squirrel.class, gender, simulator);
+        super(randomAge, location, simulator.getParameters().forSpecies(Squirrel.class), Squirrel.class, gender, simulator);
+    }
+
+    /**
+     * Returns the parameters a squirrel has unless a simulation is given others.
+     * @return The default breeding, age, litter, vision, pursuit and food parameters of a squirrel.
+     */
+    public static SpeciesParameters defaultParameters() {
+        return new SpeciesParameters(BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
+                SpeciesParameters.VISION ? VISION_RADIUS : 1, PURSUES, createFoodSources());
     }
 
     /**
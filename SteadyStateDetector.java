@@ -0,0 +1,300 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Watches the state of a simulation step by step and detects when it has settled down, so that a
+ * run can end early instead of stepping through a state it will never leave. It is given the
+ * Zobrist hash and the population signature of the field after every step, and recognises two
+ * kinds of settling:
+ *
+ * <ul>
+ *     <li>A cycle: the field's state exactly repeats the state it was in a fixed number of steps
+ *     earlier (the period), at every step of a whole window. The hash only covers which animals
+ *     and plants are on which cells, so a state must keep repeating for the whole window, not just
+ *     once, before it counts as a cycle.</li>
+ *     <li>A steady state: over the last window of steps, the mean population of every species in
+ *     the second half of the window is within a relative tolerance of its mean in the first half.
+ *     If the populations oscillate within the window, the period of the oscillation is estimated
+ *     from their autocorrelation.</li>
+ * </ul>
+ *
+ * Only the last window of steps is kept, so a detector uses the same memory however long the run.
+ * A detector created to keep the full history also keeps the hash of every step, so that two runs
+ * can be compared to find the first step at which they diverge.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class SteadyStateDetector {
+    /**
+     * What the detector has concluded about the run.
+     */
+    public enum State {
+        TRANSIENT, // The run has not settled yet.
+        CYCLE, // The field's state repeats exactly.
+        STEADY // The populations have settled statistically.
+    }
+
+    private static final double MIN_CORRELATION = 0.3; // The autocorrelation an oscillation needs to count as periodic.
+
+    private final int window; // The number of steps the state must have settled over.
+    private final double tolerance; // The relative difference in mean populations that counts as settled.
+
+    private final Map<Long, Integer> lastSeen = new HashMap<>(); // The last step each hash in the window was seen at.
+    private final long[] recent; // The hash of the field over the last window of steps, in a ring.
+    private long[] history; // The hash of the field at every step, or null unless the full history is kept.
+    private int[][] populations; // The population signature of the last window of steps, in a ring.
+    private int steps; // The number of steps recorded.
+    private int candidate; // The period of the current run of exact repeats.
+    private int streak; // The number of consecutive steps that repeated the state one candidate period earlier.
+    private State state = State.TRANSIENT; // The detector's conclusion.
+    private int period; // The period of the cycle or oscillation, or 0 if there is none.
+    private int settledStep = -1; // The step at which the run was found to have settled.
+
+    /**
+     * Create a detector.
+     * @param window The number of steps the state must have settled over. It is also the longest
+     *               cycle that can be detected.
+     * @param tolerance The largest difference between the mean populations of the two halves of
+     *                  the window, relative to the mean, at which the populations count as settled.
+     */
+    public SteadyStateDetector(int window, double tolerance) {
+        this(window, tolerance, false);
+    }
+
+    /**
+     * Create a detector, which may also keep the hash of every step.
+     * @param window The number of steps the state must have settled over. It is also the longest
+     *               cycle that can be detected.
+     * @param tolerance The largest difference between the mean populations of the two halves of
+     *                  the window, relative to the mean, at which the populations count as settled.
+     * @param keepHistory Whether to keep the hash of every step, one long per step, for {@link #getHashes()}.
+     */
+    public SteadyStateDetector(int window, double tolerance, boolean keepHistory) {
+        if (window < 4) {
+            throw new IllegalArgumentException("Window too short: " + window);
+        }
+        this.window = window;
+        this.tolerance = tolerance;
+        recent = new long[window];
+        history = keepHistory ? new long[256] : null;
+    }
+
+    /**
+     * Record the state of the field after a step. Once the run has settled, the detector's
+     * conclusion no longer changes, although the full history, if kept, is still recorded.
+     * @param hash The Zobrist hash of the field.
+     * @param signature The population of each species.
+     * @return What the detector has concluded.
+     */
+    public State record(long hash, int[] signature) {
+        int step = steps++;
+        long expired = recent[step % window]; // The hash recorded a window ago, which this one replaces.
+        recent[step % window] = hash;
+        if (history != null) {
+            if (step == history.length) {
+                history = Arrays.copyOf(history, history.length * 2);
+            }
+            history[step] = hash;
+        }
+        if (populations == null) {
+            populations = new int[window][signature.length];
+        }
+        System.arraycopy(signature, 0, populations[step % window], 0, signature.length);
+        if (state != State.TRANSIENT) {
+            return state;
+        }
+
+        // Exact recurrence: compare with the last time this hash was seen inside the window.
+        if (step >= window) {
+            lastSeen.remove(expired, step - window);
+        }
+        Integer previous = lastSeen.put(hash, step);
+        if (previous == null) {
+            streak = 0;
+        } else if (step - previous == candidate) {
+            streak++;
+        } else {
+            candidate = step - previous;
+            streak = 1;
+        }
+        if (streak >= window) {
+            settle(State.CYCLE, candidate, step);
+        } else if (steps >= window && populationsSettled()) {
+            settle(State.STEADY, oscillationPeriod(), step);
+        }
+        return state;
+    }
+
+    /**
+     * Check whether the mean population of every species is the same in both halves of the window.
+     */
+    private boolean populationsSettled() {
+        int half = window / 2;
+        for (int s = 0; s < populations[0].length; s++) {
+            double first = 0, second = 0;
+            for (int i = 0; i < half; i++) {
+                first += populations[(steps - window + i) % window][s];
+                second += populations[(steps - half + i) % window][s];
+            }
+            first /= half;
+            second /= half;
+            if (Math.abs(second - first) > tolerance * Math.max(1, (first + second) / 2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate the period of the populations' oscillation over the window: the lag, after the
+     * averaged autocorrelation of the species' populations first turns negative, at which it is
+     * highest. Returns 0 if the populations do not oscillate.
+     */
+    private int oscillationPeriod() {
+        int species = populations[0].length;
+        double[][] series = new double[species][window];
+        boolean[] varies = new boolean[species];
+        int varying = 0;
+        for (int s = 0; s < species; s++) {
+            double mean = 0;
+            for (int i = 0; i < window; i++) {
+                series[s][i] = populations[(steps - window + i) % window][s];
+                mean += series[s][i];
+            }
+            mean /= window;
+            double variance = 0;
+            for (int i = 0; i < window; i++) {
+                series[s][i] -= mean;
+                variance += series[s][i] * series[s][i];
+            }
+            varies[s] = variance > 0;
+            varying += varies[s] ? 1 : 0;
+            if (varies[s]) {
+                for (int i = 0; i < window; i++) {
+                    series[s][i] /= Math.sqrt(variance);
+                }
+            }
+        }
+        if (varying == 0) {
+            return 0; // The populations are constant.
+        }
+
+        boolean crossed = false; // Whether the autocorrelation has turned negative yet.
+        int best = 0;
+        double bestCorrelation = MIN_CORRELATION;
+        for (int lag = 1; lag <= window / 2; lag++) {
+            double correlation = 0;
+            for (int s = 0; s < species; s++) {
+                if (!varies[s]) continue;
+                for (int i = lag; i < window; i++) {
+                    correlation += series[s][i] * series[s][i - lag];
+                }
+            }
+            correlation /= varying;
+            if (correlation < 0) {
+                crossed = true;
+            } else if (crossed && correlation > bestCorrelation) {
+                best = lag;
+                bestCorrelation = correlation;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Record the detector's conclusion.
+     */
+    private void settle(State settled, int settledPeriod, int step) {
+        state = settled;
+        period = settledPeriod;
+        settledStep = step;
+        lastSeen.clear(); // The recurrence table is no longer needed.
+    }
+
+    /**
+     * Returns what the detector has concluded about the run.
+     * @return The detector's conclusion.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Returns whether the run has settled into a cycle or a steady state.
+     * @return true if the run has settled.
+     */
+    public boolean isSettled() {
+        return state != State.TRANSIENT;
+    }
+
+    /**
+     * Returns the period of the cycle, or of the populations' oscillation in a steady state.
+     * @return The period in steps, or 0 if the run has not settled or does not oscillate.
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the step at which the run was found to have settled, counting the first recorded
+     * step as step 0.
+     * @return The step, or -1 if the run has not settled.
+     */
+    public int getSettledStep() {
+        return settledStep;
+    }
+
+    /**
+     * Returns the hash of the field at every recorded step.
+     * @return A copy of the recorded hashes, in step order.
+     * @throws IllegalStateException If the detector was not created to keep the full history.
+     */
+    public long[] getHashes() {
+        if (history == null) {
+            throw new IllegalStateException("The detector only keeps the hashes of the last window of steps");
+        }
+        return Arrays.copyOf(history, steps);
+    }
+
+    /**
+     * Forget everything recorded, ready for a new run.
+     */
+    public void reset() {
+        lastSeen.clear();
+        populations = null;
+        steps = 0;
+        candidate = 0;
+        streak = 0;
+        state = State.TRANSIENT;
+        period = 0;
+        settledStep = -1;
+    }
+
+    /**
+     * Returns a description of the detector's conclusion.
+     * @return The conclusion, and the period if there is one.
+     */
+    @Override
+    public String toString() {
+        return switch (state) {
+            case TRANSIENT -> "not settled";
+            case CYCLE -> "cycle of period " + period + " from step " + settledStep;
+            case STEADY -> "steady state from step " + settledStep
+                    + (period > 0 ? " oscillating with period " + period : "");
+        };
+    }
+
+    /**
+     * Compares the hashes of two runs step by step.
+     * @param first The hashes of one run.
+     * @param second The hashes of the other run.
+     * @return The first step at which the runs' states differ, or -1 if they agree for as long as
+     *         both were recorded.
+     */
+    public static int firstDivergence(long[] first, long[] second) {
+        int mismatch = Arrays.mismatch(first, second);
+        return mismatch < Math.min(first.length, second.length) ? mismatch : -1;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * An immutable picture of the whole field taken at the end of a step, published through the
+ * {@link StepPipeline} so that console output, rendering, statistics and recording can work on it
+ * on their own threads while the simulation carries on with the next step. Its arrays are created
+ * for the frame and never modified after it is published; consumers must not modify them either.
+ *
+ * Each cell of the field is one byte: 0 if it is empty, {@link #animalCode} of the animal standing
+ * on it, or otherwise {@link #plantCode} of the plant growing on it.
+ *
+ * @param step The step the frame was taken at.
+ * @param days The number of simulated days that have passed.
+ * @param time The simulated time of day.
+ * @param day Whether it is daytime.
+ * @param weather The current weather.
+ * @param weatherEmoji The emoji for the current weather.
+ * @param depth The depth of the field.
+ * @param width The width of the field.
+ * @param cells The contents of each cell, row by row.
+ * @param populations The population of each species, as in {@link Field#getPopulations()}.
+ * @param females The number of living females of each animal species.
+ * @param infected The number of infected animals.
+ * @param dormant The number of dormant entities.
+ * @param stepNanos How long the step took.
+ * @param endNanos The {@link System#nanoTime()} at which the step ended.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public record StepFrame(int step, int days, String time, boolean day, String weather, String weatherEmoji,
+                        int depth, int width, byte[] cells, int[] populations, int[] females, int infected, int dormant,
+                        long stepNanos, long endNanos) {
+
+    private static final int PLANT_BASE = 1 + 2 * Field.ANIMAL_SPECIES; // The cell code of the first plant species.
+
+    /**
+     * Take a frame of a simulation. Must be called on the simulation thread, between steps.
+     * @param simulator The simulation.
+     * @param stepNanos How long the step that has just finished took.
+     * @return The frame.
+     */
+    public static StepFrame capture(Simulator simulator, long stepNanos) {
+        Field field = simulator.getField();
+        int width = field.getWidth();
+        byte[] cells = new byte[field.getDepth() * width];
+        field.getPlants().copySpeciesTo(cells);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != 0) {
+                cells[i] = (byte) plantCode(cells[i] - 1);
+            }
+        }
+
+        int[] females = new int[Field.ANIMAL_SPECIES];
+        int[] infected = new int[1];
+        captureAnimals(field.getEntities(), cells, width, females, infected);
+        captureAnimals(field.getScheduler().getDormantEntities(), cells, width, females, infected);
+
+        Time time = simulator.getTime();
+        Weather weather = simulator.getWeather();
+        String weatherText = weather.getWeatherText(); // Read before the emoji, which follows the text.
+        return new StepFrame(simulator.getStep(), time.getDays(), time.getFormattedTime(), time.isDay(),
+                weatherText, weather.getWeatherEmoji(), field.getDepth(), width, cells,
+                field.getPopulations(), females, infected[0], field.getScheduler().size(), stepNanos, System.nanoTime());
+    }
+
+    /**
+     * Mark the cells of the living animals among some entities, and count females and infections.
+     */
+    private static void captureAnimals(Iterable<Entity> entities, byte[] cells, int width, int[] females, int[] infected) {
+        for (Entity anEntity : entities) {
+            if (anEntity instanceof Animal animal && animal.isAlive()) {
+                int species = EventBus.speciesId(animal.getClass());
+                Location location = animal.getLocation();
+                cells[location.row() * width + location.col()] = (byte) animalCode(species, animal.getGender());
+                females[species] += animal.getGender() == Gender.FEMALE ? 1 : 0;
+                infected[0] += animal.getCurrentDisease() != null ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the cell code of an animal.
+     * @param species The animal's species, numbered as in {@link EventBus#speciesId}.
+     * @param gender The animal's gender.
+     * @return The cell code.
+     */
+    public static int animalCode(int species, Gender gender) {
+        return 1 + species * 2 + gender.ordinal();
+    }
+
+    /**
+     * Returns the cell code of a plant.
+     * @param plant The index of the plant's species in the plant layer.
+     * @return The cell code.
+     */
+    public static int plantCode(int plant) {
+        return PLANT_BASE + plant;
+    }
+
+    /**
+     * Returns the species shown by a cell code: the animal species numbered as in
+     * {@link EventBus#speciesId}, followed by the plant species in plant layer order.
+     * @param code The cell code.
+     * @return The species, or -1 for an empty cell.
+     */
+    public static int speciesOf(int code) {
+        if (code == 0) {
+            return -1;
+        }
+        return code < PLANT_BASE ? (code - 1) / 2 : Field.ANIMAL_SPECIES + code - PLANT_BASE;
+    }
+
+    /**
+     * Returns the number of living males of an animal species.
+     * @param species The species, numbered as in {@link EventBus#speciesId}.
+     * @return The number of males.
+     */
+    public int males(int species) {
+        return populations[species] - females[species];
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands each finished step to the simulation's observers, such as the console report, the window,
+ * the control server and recorders, through {@link java.util.concurrent.Flow} publishers, so that
+ * they run on their own threads while the simulation carries on with the next step.
+ *
+ * Each subscriber has its own bounded buffer of frames and its own backpressure: a subscriber that
+ * must see every frame, such as a recorder, blocks the simulation while its buffer is full; one
+ * that only needs to keep up, such as the window, has frames dropped instead. Frames reach each
+ * subscriber in step order, one at a time.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class StepPipeline implements AutoCloseable {
+    /**
+     * What to do when a subscriber's buffer is full.
+     */
+    public enum Backpressure {
+        BLOCK, // Wait until the subscriber has made room.
+        DROP // Drop the frame for that subscriber.
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor(); // Runs the subscribers.
+    private final SubmissionPublisher<StepFrame> blocking; // Publishes to subscribers that block the simulation.
+    private final SubmissionPublisher<StepFrame> dropping; // Publishes to subscribers that drop frames.
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>(); // Every current subscriber.
+
+    /**
+     * Create a pipeline.
+     * @param bufferSize The number of frames each subscriber can fall behind by.
+     */
+    public StepPipeline(int bufferSize) {
+        blocking = new SubmissionPublisher<>(executor, bufferSize);
+        dropping = new SubmissionPublisher<>(executor, bufferSize);
+    }
+
+    /**
+     * Returns whether anything is subscribed, so frames need not be taken when nothing would see them.
+     * @return true if at least one subscriber is subscribed.
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Subscribe to the frames of every following step.
+     * @param name The name of the subscriber, used to unsubscribe it and in error messages.
+     * @param consumer Receives each frame, on its own thread. If it is {@link AutoCloseable} it
+     *                 is closed when the pipeline is closed.
+     * @param backpressure What to do when the consumer falls too far behind.
+     */
+    public void subscribe(String name, Consumer<StepFrame> consumer, Backpressure backpressure) {
+        Subscriber subscriber = new Subscriber(name, consumer, backpressure);
+        subscribers.add(subscriber);
+        (backpressure == Backpressure.BLOCK ? blocking : dropping).subscribe(subscriber);
+    }
+
+    /**
+     * Stop sending frames to a subscriber. Frames already buffered for it may still be delivered.
+     * @param name The name the subscriber was subscribed with.
+     */
+    public void unsubscribe(String name) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.name.equals(name)) {
+                subscribers.remove(subscriber);
+                subscriber.cancel();
+            }
+        }
+    }
+
+    /**
+     * Publish a frame to every subscriber. Blocks while any blocking subscriber's buffer is full.
+     * @param frame The frame of the step that has just finished.
+     */
+    public void publish(StepFrame frame) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.published.incrementAndGet();
+        }
+        if (dropping.hasSubscribers()) {
+            dropping.offer(frame, (subscriber, dropped) -> {
+                ((Subscriber) subscriber).handled.incrementAndGet(); // A dropped frame is handled too.
+                ((Subscriber) subscriber).dropped.incrementAndGet();
+                return false;
+            });
+        }
+        if (blocking.hasSubscribers()) {
+            blocking.submit(frame);
+        }
+    }
+
+    /**
+     * Wait until every subscriber has handled or dropped every frame published to it.
+     */
+    public void awaitIdle() {
+        for (Subscriber subscriber : subscribers) {
+            while (!subscriber.cancelled && subscriber.handled.get() < subscriber.published.get()) {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frames dropped for a subscriber because it fell behind.
+     * @param name The name the subscriber was subscribed with.
+     * @return The number of frames dropped, or 0 if there is no such subscriber.
+     */
+    public long getDropped(String name) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.name.equals(name)) {
+                return subscriber.dropped.get();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Deliver the frames already published, then close every subscriber that can be closed.
+     */
+    @Override
+    public void close() {
+        awaitIdle();
+        blocking.close();
+        dropping.close();
+        executor.close(); // Waits for the subscribers to finish.
+        subscribers.clear();
+    }
+
+    /**
+     * Delivers frames to a consumer one at a time.
+     */
+    private static final class Subscriber implements Flow.Subscriber<StepFrame> {
+        private final String name; // The name of the subscriber.
+        private final Consumer<StepFrame> consumer; // Receives the frames.
+        private final Backpressure backpressure; // What to do when the consumer falls behind.
+        private final AtomicLong published = new AtomicLong(); // Frames published to the subscriber.
+        private final AtomicLong handled = new AtomicLong(); // Frames consumed or dropped.
+        private final AtomicLong dropped = new AtomicLong(); // Frames dropped.
+        private Flow.Subscription subscription; // The subscription to the publisher.
+        private volatile boolean cancelled; // Whether the subscriber has been unsubscribed.
+
+        Subscriber(String name, Consumer<StepFrame> consumer, Backpressure backpressure) {
+            this.name = name;
+            this.consumer = consumer;
+            this.backpressure = backpressure;
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(StepFrame frame) {
+            try {
+                consumer.accept(frame);
+            } catch (RuntimeException e) {
+                System.err.println("Step subscriber " + name + " failed on step " + frame.step() + ": " + e);
+            }
+            handled.incrementAndGet();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.err.println("Step subscriber " + name + " stopped: " + throwable);
+            onComplete();
+        }
+
+        @Override
+        public void onComplete() {
+            if (consumer instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    System.err.println("Could not close step subscriber " + name + ": " + e);
+                }
+            }
+        }
+
+        /**
+         * Stop receiving frames.
+         */
+        synchronized void cancel() {
+            cancelled = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + backpressure + ")";
+        }
+    }
+}
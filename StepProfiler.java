@@ -0,0 +1,323 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Measures where the time of each simulation step goes: nanosecond timers for each phase of a
+ * step and for each species' turn to act, the bytes allocated by the simulation thread, the
+ * number of entities on the field, and a histogram of step durations for percentiles.
+ * The figures are published through JMX and summarised when a run ends.
+ *
+ * The timers are only ever touched by the simulation thread. At the end of each step it publishes
+ * an immutable snapshot of the figures, which is all that JMX clients read, so a client reading
+ * during a step sees the figures of the last whole step. A reset asked for by a client is carried
+ * out by the simulation thread at the start of the next step.
+ *
+ * Profiling is switched on by starting the JVM with {@code -Dsimulator.profile=true}. The switch
+ * is a constant, so when profiling is off the JIT compiler removes every timer call entirely.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public final class StepProfiler implements StepProfilerMXBean, AutoCloseable {
+    /**
+     * Whether profiling is switched on, read once from the {@code simulator.profile} system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("simulator.profile");
+
+    /**
+     * The timed phases of a step. Births and disease happen while animals act, and weather is
+     * fetched while plants grow or a frame is taken, so their time is also counted in those phases.
+     * Statistics is the population check between steps; publish is taking a frame of the step and
+     * handing it to the step pipeline, whose observers then run on their own threads.
+     */
+    public enum Phase {
+        PLANTS, DENSITY, PURSUIT, DEATHS, ACT, BIRTHS, DISEASE, WEATHER, STATS, PUBLISH
+    }
+
+    /**
+     * The figures of every step up to the end of a step, as published to JMX clients.
+     */
+    private record Snapshot(long steps, long lastStepNanos, long meanStepNanos, long stepNanosP50,
+                            long stepNanosP90, long stepNanosP99, long stepNanosP999, long maxStepNanos,
+                            long lastStepAllocatedBytes, long meanStepAllocatedBytes, Map<String, Long> phaseNanos,
+                            Map<String, Long> speciesActNanos, Map<String, Long> entityCounts) {}
+
+    private static final AtomicInteger instances = new AtomicInteger(); // Numbers profilers for their JMX names.
+    private static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, Map.of(), Map.of(), Map.of()); // Nothing recorded.
+
+    private final long[] phaseNanos = new long[Phase.values().length]; // Total time spent in each phase.
+    private final Map<Class<?>, long[]> speciesNanos = new LinkedHashMap<>(); // Total act time of each species.
+    private final LatencyHistogram stepNanos = new LatencyHistogram(); // Durations of whole steps.
+    private final Map<String, Long> entityCounts = new LinkedHashMap<>(); // Entity counts after the last step.
+    private final com.sun.management.ThreadMXBean threads; // Source of per-thread allocation, or null if unsupported.
+    private long stepStart; // The time the current step started.
+    private long allocationStart; // The bytes the thread had allocated when the current step started.
+    private long lastStepNanos; // The duration of the last step.
+    private long lastStepBytes; // The bytes allocated during the last step.
+    private long totalStepBytes; // The bytes allocated during every step.
+    private volatile Snapshot snapshot = EMPTY; // The figures as of the end of the last step.
+    private volatile boolean resetRequested; // Whether a JMX client has asked for the figures to be forgotten.
+    private ObjectName name; // The name the profiler is registered with JMX under, or null if it is not registered.
+
+    /**
+     * Create a profiler and, when profiling is switched on, register it with the platform MBean
+     * server as {@code PredatorPrey:type=StepProfiler,id=<n>} until it is closed.
+     */
+    public StepProfiler() {
+        threads = ENABLED ? allocationCounter() : null;
+        if (ENABLED) {
+            try {
+                ObjectName objectName = new ObjectName("PredatorPrey:type=StepProfiler,id=" + instances.getAndIncrement());
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+                name = objectName;
+            } catch (JMException e) {
+                System.out.println("Could not register the step profiler: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Unregister the profiler from JMX, so that the MBean server no longer keeps it alive. Called
+     * when the simulation it profiles is closed. Does nothing if it is not registered.
+     */
+    @Override
+    public void close() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                System.out.println("Could not unregister the step profiler: " + e.getMessage());
+            }
+            name = null;
+        }
+    }
+
+    /**
+     * Start timing something.
+     * @return The start time to pass to a stop method, or 0 when profiling is off.
+     */
+    public long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Stop timing a phase and add the time taken to its total.
+     * @param phase The phase being timed.
+     * @param start The time returned by {@link #start()}.
+     */
+    public void stop(Phase phase, long start) {
+        if (ENABLED) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Stop timing an entity's turn to act and add the time taken to its species' total.
+     * @param species The class of the entity that acted.
+     * @param start The time returned by {@link #start()}.
+     */
+    public void stopAct(Class<?> species, long start) {
+        if (ENABLED) {
+            long elapsed = System.nanoTime() - start;
+            speciesNanos.computeIfAbsent(species, s -> new long[1])[0] += elapsed;
+        }
+    }
+
+    /**
+     * Mark the start of a step.
+     */
+    public void beginStep() {
+        if (ENABLED) {
+            if (resetRequested) {
+                clear();
+                resetRequested = false;
+            }
+            allocationStart = allocatedBytes();
+            stepStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Mark the end of a step and record its duration, its allocation and the entity counts.
+     * @param field The field at the end of the step.
+     */
+    public void endStep(Field field) {
+        if (ENABLED) {
+            lastStepNanos = System.nanoTime() - stepStart;
+            lastStepBytes = allocatedBytes() - allocationStart;
+            stepNanos.record(lastStepNanos);
+            totalStepBytes += lastStepBytes;
+
+            entityCounts.put("Awake", (long) field.getEntities().size());
+            entityCounts.put("Dormant", (long) field.getScheduler().size());
+            for (Plant plant : field.getPlants().getTypes()) {
+                entityCounts.put(plant.getName(), (long) field.getPlants().getCount(plant.getClass()));
+            }
+            publish();
+        }
+    }
+
+    /**
+     * Publish an immutable snapshot of the figures for JMX clients, unless a reset is waiting for
+     * the next step; the client asking for it has already been shown no figures.
+     */
+    private void publish() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            phases.put(phase.name(), phaseNanos[phase.ordinal()]);
+        }
+        Map<String, Long> species = new LinkedHashMap<>();
+        speciesNanos.forEach((type, nanos) -> species.put(type.getSimpleName(), nanos[0]));
+        long steps = stepNanos.getCount();
+        Snapshot next = new Snapshot(steps, lastStepNanos, stepNanos.getMean(), stepNanos.getPercentile(0.5),
+                stepNanos.getPercentile(0.9), stepNanos.getPercentile(0.99), stepNanos.getPercentile(0.999),
+                stepNanos.getMax(), lastStepBytes, steps == 0 ? 0 : totalStepBytes / steps,
+                Collections.unmodifiableMap(phases), Collections.unmodifiableMap(species),
+                Collections.unmodifiableMap(new LinkedHashMap<>(entityCounts)));
+        if (!resetRequested) {
+            snapshot = next;
+        }
+    }
+
+    /**
+     * Print a summary of everything recorded: step percentiles, allocation, and the time spent in
+     * each phase and by each species. Prints nothing when profiling is off.
+     * @param out The stream to print to.
+     */
+    public void printSummary(PrintStream out) {
+        Snapshot figures = snapshot;
+        if (!ENABLED || figures.steps() == 0) {
+            return;
+        }
+        out.println("Step profile over " + figures.steps() + " steps:");
+        out.printf("  step time   mean %s  p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+                millis(figures.meanStepNanos()), millis(figures.stepNanosP50()), millis(figures.stepNanosP90()),
+                millis(figures.stepNanosP99()), millis(figures.stepNanosP999()), millis(figures.maxStepNanos()));
+        out.printf("  allocation  mean %,d bytes per step%n", figures.meanStepAllocatedBytes());
+        figures.phaseNanos().forEach((phase, nanos) -> out.printf("  %-11s %s total, %s per step%n",
+                phase.toLowerCase(), millis(nanos), millis(nanos / figures.steps())));
+        figures.speciesActNanos().forEach((species, nanos) -> out.printf("  %-11s %s total acting%n",
+                species, millis(nanos)));
+        out.println("  entities    " + figures.entityCounts());
+    }
+
+    @Override
+    public long getSteps() {
+        return snapshot.steps();
+    }
+
+    @Override
+    public long getLastStepNanos() {
+        return snapshot.lastStepNanos();
+    }
+
+    @Override
+    public long getMeanStepNanos() {
+        return snapshot.meanStepNanos();
+    }
+
+    @Override
+    public long getStepNanosP50() {
+        return snapshot.stepNanosP50();
+    }
+
+    @Override
+    public long getStepNanosP90() {
+        return snapshot.stepNanosP90();
+    }
+
+    @Override
+    public long getStepNanosP99() {
+        return snapshot.stepNanosP99();
+    }
+
+    @Override
+    public long getStepNanosP999() {
+        return snapshot.stepNanosP999();
+    }
+
+    @Override
+    public long getMaxStepNanos() {
+        return snapshot.maxStepNanos();
+    }
+
+    @Override
+    public long getLastStepAllocatedBytes() {
+        return snapshot.lastStepAllocatedBytes();
+    }
+
+    @Override
+    public long getMeanStepAllocatedBytes() {
+        return snapshot.meanStepAllocatedBytes();
+    }
+
+    @Override
+    public Map<String, Long> getPhaseNanos() {
+        return snapshot.phaseNanos();
+    }
+
+    @Override
+    public Map<String, Long> getSpeciesActNanos() {
+        return snapshot.speciesActNanos();
+    }
+
+    @Override
+    public Map<String, Long> getEntityCounts() {
+        return snapshot.entityCounts();
+    }
+
+    /**
+     * Forget everything recorded so far. May be called from any thread: the figures read as empty
+     * at once, and the simulation thread clears its timers at the start of the next step.
+     */
+    @Override
+    public void reset() {
+        resetRequested = true;
+        snapshot = EMPTY;
+    }
+
+    /**
+     * Clear every timer, on the simulation thread.
+     */
+    private void clear() {
+        java.util.Arrays.fill(phaseNanos, 0);
+        speciesNanos.clear();
+        stepNanos.reset();
+        entityCounts.clear();
+        lastStepNanos = 0;
+        lastStepBytes = 0;
+        totalStepBytes = 0;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or 0 if this cannot be measured.
+     */
+    private long allocatedBytes() {
+        return threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Returns the JVM's per-thread allocation counter, or null if the JVM does not provide one.
+     */
+    static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean counter
+                && counter.isThreadAllocatedMemorySupported()) {
+            counter.setThreadAllocatedMemoryEnabled(true);
+            return counter;
+        }
+        return null;
+    }
+
+    /**
+     * Format a duration in nanoseconds as milliseconds.
+     */
+    private static String millis(long nanos) {
+        return String.format("%.3f ms", nanos / 1_000_000.0);
+    }
+}
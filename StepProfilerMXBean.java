@@ -0,0 +1,82 @@
+import java.util.Map;
+
+/**
+ * The management interface of {@link StepProfiler}, published through JMX so that a running
+ * simulation can be inspected with JConsole, VisualVM or any other JMX client.
+ * All durations are in nanoseconds.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public interface StepProfilerMXBean {
+
+    /**
+     * @return The number of steps profiled since the last reset.
+     */
+    long getSteps();
+
+    /**
+     * @return The duration of the most recent step.
+     */
+    long getLastStepNanos();
+
+    /**
+     * @return The mean duration of a step.
+     */
+    long getMeanStepNanos();
+
+    /**
+     * @return The median duration of a step.
+     */
+    long getStepNanosP50();
+
+    /**
+     * @return The 90th percentile of step durations.
+     */
+    long getStepNanosP90();
+
+    /**
+     * @return The 99th percentile of step durations.
+     */
+    long getStepNanosP99();
+
+    /**
+     * @return The 99.9th percentile of step durations.
+     */
+    long getStepNanosP999();
+
+    /**
+     * @return The longest step.
+     */
+    long getMaxStepNanos();
+
+    /**
+     * @return The number of bytes allocated by the simulation thread during the most recent step.
+     */
+    long getLastStepAllocatedBytes();
+
+    /**
+     * @return The mean number of bytes allocated by the simulation thread per step.
+     */
+    long getMeanStepAllocatedBytes();
+
+    /**
+     * @return The total time spent in each phase of a step, by phase name.
+     */
+    Map<String, Long> getPhaseNanos();
+
+    /**
+     * @return The total time spent acting, by species name.
+     */
+    Map<String, Long> getSpeciesActNanos();
+
+    /**
+     * @return The number of entities and plants at the end of the most recent step, by kind.
+     */
+    Map<String, Long> getEntityCounts();
+
+    /**
+     * Forget everything recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,37 @@
+import java.util.Map;
+
+/**
+ * An immutable picture of a simulation taken at the end of a step, published for other threads
+ * (such as the HTTP control server) to read without touching the simulation's own state.
+ *
+ * @param step The step the snapshot was taken at.
+ * @param time The simulated time of day.
+ * @param weather The current weather.
+ * @param populations The number of living animals and plants of each species, by name.
+ * @param infected The number of infected animals.
+ * @param dormant The number of dormant entities.
+ * @param lastStepNanos How long the last step took.
+ * @param stepsPerSecond The recent rate of steps, including any delay between them.
+ * @param latencyBuckets The number of steps at or below each of the latency bucket bounds.
+ * @param latencyNanos The total time taken by every step.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public record StepSnapshot(int step, String time, String weather, Map<String, Integer> populations,
+                           int infected, int dormant, long lastStepNanos, double stepsPerSecond,
+                           long[] latencyBuckets, long latencyNanos) {
+
+    /**
+     * The upper bounds of the step latency buckets, in seconds. The last bucket has no bound.
+     */
+    public static final double[] LATENCY_BOUNDS = {0.0001, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1};
+
+    /**
+     * Returns the number of steps the latency buckets cover.
+     * @return The number of steps measured.
+     */
+    public long latencyCount() {
+        return latencyBuckets[latencyBuckets.length - 1];
+    }
+}
@@ -34,6 +34,18 @@ public class Time {
         this.timeStepIncrement = timeStepIncrement; // Set the time step increment.
     }
 
+    /**
+     * Constructs a copy of another Time object, which then moves on independently.
+     *
+     * @param time The time to copy.
+     */
+    public Time(Time time) {
+        this.hours = time.hours;
+        this.minutes = time.minutes;
+        this.days = time.days;
+        this.timeStepIncrement = time.timeStepIncrement;
+    }
+
     /**
      * Increments the time based on the `timeStepIncrement`.
      * This method updates the minutes, hours, and days, handling rollovers as needed.
@@ -92,6 +104,20 @@ public class Time {
         return hours >= 6 && hours < 18;  // Return true if the current hour is between 6 and 18, false otherwise.
     }
 
+    /**
+     * Returns how many time steps remain until it is day, counting the step that reaches day.
+     *
+     * @return The number of steps until day, or 0 if it is already day.
+     */
+    public int stepsUntilDay() {
+        if (isDay()) {
+            return 0; // It is already day.
+        }
+        int minutesOfDay = hours * 60 + minutes; // The current time in minutes since midnight.
+        int minutesUntilDay = (6 * 60 - minutesOfDay + 24 * 60) % (24 * 60); // Minutes until 6:00.
+        return (minutesUntilDay + timeStepIncrement - 1) / timeStepIncrement; // Round up to whole steps.
+    }
+
     /**
      * Determines if it is currently night.
      * Night is defined as the opposite of day.
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A hierarchical timing wheel that holds items until the simulation step they are due at.
+ * Scheduling an item and collecting the items due at a step both take constant time, however
+ * many items are waiting, so steps where nothing is due cost next to nothing.
+ *
+ * The wheel has several levels of 64 slots. Level 0 holds items due within the next 64 steps,
+ * one slot per step; each higher level covers 64 times the span of the one below it. When the
+ * lower level wraps around, the items in the matching slot of the next level are moved down.
+ *
+ * @param <T> The type of item held in the wheel.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6; // The number of bits of the step used to index a level.
+    private static final int SLOTS = 1 << SLOT_BITS; // The number of slots in each level.
+    private static final int SLOT_MASK = SLOTS - 1; // Mask selecting a slot index.
+    private static final int LEVELS = 4; // The number of levels, covering 64^4 steps ahead.
+
+    /**
+     * An item together with the step it is due at.
+     */
+    private record Timer<T>(T item, long due) {}
+
+    private final List<List<Timer<T>>> slots; // The slots of every level, level by level.
+    private final List<Timer<T>> overflow = new ArrayList<>(); // Items due beyond the last level.
+    private long now; // The step the wheel has advanced to.
+    private int size; // The number of items in the wheel.
+
+    /**
+     * Create an empty timing wheel starting at step 0.
+     */
+    public TimingWheel() {
+        this(0);
+    }
+
+    /**
+     * Create an empty timing wheel starting at the given step.
+     * @param start The current step.
+     */
+    public TimingWheel(long start) {
+        slots = new ArrayList<>(LEVELS * SLOTS);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+        now = start;
+    }
+
+    /**
+     * Schedule an item to become due at a given step. Steps that are not after the wheel's
+     * current step are treated as due at the next step.
+     * @param item The item to schedule.
+     * @param due The step the item is due at.
+     */
+    public void schedule(T item, long due) {
+        insert(new Timer<>(item, Math.max(due, now + 1)));
+        size++;
+    }
+
+    /**
+     * Advance the wheel by one step and pass every item due at that step to the consumer.
+     * @param dueItems Receives each item that has become due.
+     * @return The step the wheel has advanced to.
+     */
+    public long advance(Consumer<T> dueItems) {
+        now++;
+        cascade(1);
+
+        List<Timer<T>> slot = slots.get((int) (now & SLOT_MASK));
+        if (!slot.isEmpty()) {
+            List<Timer<T>> due = new ArrayList<>(slot);
+            slot.clear();
+            size -= due.size();
+            for (Timer<T> timer : due) {
+                dueItems.accept(timer.item());
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Returns the step the wheel has advanced to.
+     * @return The wheel's current step.
+     */
+    public long getNow() {
+        return now;
+    }
+
+    /**
+     * Returns the number of items waiting in the wheel.
+     * @return The number of scheduled items.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the wheel at the same step, holding a replacement for each of its items,
+     * due at the same step and in the same order.
+     * @param replacement Returns the item to hold in the copy in place of an item of this wheel.
+     * @return The copy.
+     */
+    public TimingWheel<T> copy(UnaryOperator<T> replacement) {
+        TimingWheel<T> copy = new TimingWheel<>(now);
+        for (int i = 0; i < slots.size(); i++) {
+            for (Timer<T> timer : slots.get(i)) {
+                copy.slots.get(i).add(new Timer<>(replacement.apply(timer.item()), timer.due()));
+            }
+        }
+        for (Timer<T> timer : overflow) {
+            copy.overflow.add(new Timer<>(replacement.apply(timer.item()), timer.due()));
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Remove every item from the wheel and move it to the given step.
+     * @param start The new current step.
+     */
+    public void clear(long start) {
+        for (List<Timer<T>> slot : slots) {
+            slot.clear();
+        }
+        overflow.clear();
+        size = 0;
+        now = start;
+    }
+
+    /**
+     * When the levels below have wrapped around, move the items of the current slot of this
+     * level (and, first, of any level above that has also wrapped) down the wheel.
+     * @param level The level to cascade from.
+     */
+    private void cascade(int level) {
+        if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+            return; // The level below has not wrapped around.
+        }
+        if (level == LEVELS) {
+            List<Timer<T>> waiting = new ArrayList<>(overflow);
+            overflow.clear();
+            waiting.forEach(this::insert);
+            return;
+        }
+        cascade(level + 1);
+
+        List<Timer<T>> slot = slots.get(level * SLOTS + (int) ((now >>> (SLOT_BITS * level)) & SLOT_MASK));
+        if (!slot.isEmpty()) {
+            List<Timer<T>> moving = new ArrayList<>(slot);
+            slot.clear();
+            moving.forEach(this::insert);
+        }
+    }
+
+    /**
+     * Put a timer into the slot of the lowest level whose span covers its delay.
+     * @param timer The timer to insert.
+     */
+    private void insert(Timer<T> timer) {
+        long delay = timer.due() - now;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delay < (1L << (SLOT_BITS * (level + 1)))) {
+                int index = (int) ((timer.due() >>> (SLOT_BITS * level)) & SLOT_MASK);
+                slots.get(level * SLOTS + index).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+}
@@ -0,0 +1,317 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the trajectories written by a {@link TrajectoryRecorder}, a row group at a time. Groups
+ * outside the steps asked for are skipped without being decoded, and only the columns asked for
+ * are decoded, so scanning a few columns of a long run reads little more than their own bytes.
+ * A file cut short by the end of the program is read up to its last whole group.
+ *
+ * From the command line it summarises a file, prints its rows as CSV for other tools, or follows one animal:
+ * <pre>
+ *   java TrajectoryReader run.traj                       # groups, rows and bits per row of each column
+ *   java TrajectoryReader run.traj csv 100 200 > rows.csv
+ *   java TrajectoryReader run.traj track 42              # the path of the animal with id 42
+ * </pre>
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class TrajectoryReader implements AutoCloseable {
+    /**
+     * The rows of one row group that fall within the steps asked for, ordered by step and then by id.
+     * @param firstStep The first step of the group.
+     * @param lastStep The last step of the group.
+     * @param rows The number of rows.
+     * @param columns The values of each column, in the order of {@link TrajectoryRecorder#COLUMNS},
+     *                or null for each column that was not asked for.
+     */
+    public record Chunk(int firstStep, int lastStep, int rows, long[][] columns) {
+        /**
+         * Returns the values of a column.
+         * @param name The name of the column.
+         * @return The values, or null if the column was not read.
+         */
+        public long[] column(String name) {
+            return columns[columnIndex(name)];
+        }
+    }
+
+    private final DataInputStream in; // The file being read.
+    private final int depth, width; // The dimensions of the field.
+    private final String[] speciesNames; // The name of each species, numbered as in the species column.
+    private final long[] columnBytes = new long[TrajectoryRecorder.COLUMNS.length]; // The encoded bytes of each column read so far.
+
+    /**
+     * Open a trajectory file and read its header.
+     * @param path The file.
+     * @throws IOException If the file cannot be read or is not a trajectory file.
+     */
+    public TrajectoryReader(Path path) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        try {
+            if (in.readInt() != TrajectoryRecorder.MAGIC) {
+                throw new IOException(path + " is not a trajectory file");
+            }
+            int version = in.readInt();
+            if (version != TrajectoryRecorder.VERSION) {
+                throw new IOException(path + " is a version " + version + " trajectory file; only version "
+                        + TrajectoryRecorder.VERSION + " can be read");
+            }
+            depth = in.readInt();
+            width = in.readInt();
+            speciesNames = new String[in.readUnsignedShort()];
+            for (int s = 0; s < speciesNames.length; s++) {
+                speciesNames[s] = in.readUTF();
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the depth of the field.
+     * @return The number of rows of cells.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the width of the field.
+     * @return The number of columns of cells.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the names of the species.
+     * @return The name of each species, numbered as in the species column.
+     */
+    public String[] getSpeciesNames() {
+        return speciesNames.clone();
+    }
+
+    /**
+     * Returns the number of encoded bytes read so far of each column.
+     * @return The bytes of each column, in the order of {@link TrajectoryRecorder#COLUMNS}.
+     */
+    public long[] getColumnBytes() {
+        return columnBytes.clone();
+    }
+
+    /**
+     * Returns the index of a column by name.
+     * @param name The name of the column.
+     * @return Its index in {@link TrajectoryRecorder#COLUMNS}.
+     * @throws IllegalArgumentException If there is no such column.
+     */
+    public static int columnIndex(String name) {
+        int index = List.of(TrajectoryRecorder.COLUMNS).indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No such column: " + name + "; the columns are " + String.join(", ", TrajectoryRecorder.COLUMNS));
+        }
+        return index;
+    }
+
+    /**
+     * Read the next row group holding any of the given steps.
+     * @param fromStep The first step wanted.
+     * @param toStep The last step wanted.
+     * @param columns The names of the columns to decode, or none for every column.
+     * @return The group's rows within the steps, or null once there are no more.
+     * @throws IOException If the file cannot be read.
+     */
+    public Chunk next(int fromStep, int toStep, String... columns) throws IOException {
+        boolean[] wanted = new boolean[TrajectoryRecorder.COLUMNS.length];
+        for (String name : columns) {
+            wanted[columnIndex(name)] = true;
+        }
+        if (columns.length == 0) {
+            Arrays.fill(wanted, true);
+        }
+        try {
+            while (true) {
+                int length = in.readInt();
+                int firstStep = in.readInt(), lastStep = in.readInt(), rows = in.readInt();
+                byte[] body = new byte[length - 3 * Integer.BYTES];
+                if (lastStep < fromStep || firstStep > toStep) { // Later groups may hold a run after a reset.
+                    in.skipNBytes(body.length);
+                    continue;
+                }
+                in.readFully(body);
+                return decode(ByteBuffer.wrap(body), firstStep, lastStep, rows, fromStep, toStep, wanted);
+            }
+        } catch (EOFException e) {
+            return null; // The end of the file, or of its last whole group if it was cut short.
+        }
+    }
+
+    /**
+     * Decode the wanted columns of a group, keeping the rows within the steps.
+     */
+    private Chunk decode(ByteBuffer body, int firstStep, int lastStep, int rows, int fromStep, int toStep, boolean[] wanted) {
+        boolean trim = firstStep < fromStep || lastStep > toStep;
+        long[][] columns = new long[wanted.length][];
+        for (int c = 0; c < wanted.length; c++) {
+            byte encoding = body.get();
+            int length = body.getInt();
+            int end = body.position() + length;
+            if (wanted[c] || (trim && c == TrajectoryRecorder.STEP)) {
+                columns[c] = decode(body, rows, encoding);
+                columnBytes[c] += length;
+            }
+            body.position(end);
+        }
+        if (!trim) {
+            return new Chunk(firstStep, lastStep, rows, columns);
+        }
+        long[] steps = columns[TrajectoryRecorder.STEP];
+        int from = 0, to = rows;
+        while (from < rows && steps[from] < fromStep) {
+            from++;
+        }
+        while (to > from && steps[to - 1] > toStep) {
+            to--;
+        }
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = !wanted[c] || columns[c] == null ? null : Arrays.copyOfRange(columns[c], from, to);
+        }
+        return new Chunk(firstStep, lastStep, to - from, columns);
+    }
+
+    /**
+     * Decode a column of the given number of values.
+     */
+    private static long[] decode(ByteBuffer in, int count, byte encoding) {
+        long[] values = new long[count];
+        int start = 0;
+        if (encoding == TrajectoryRecorder.DELTA && count > 0) {
+            values[0] = unzigzag(readVarLong(in));
+            start = 1;
+        }
+        for (int block = start; block < count; block += TrajectoryRecorder.BLOCK) {
+            int end = Math.min(count, block + TrajectoryRecorder.BLOCK);
+            long min = unzigzag(readVarLong(in));
+            int width = in.get();
+            long mask = width == 64 ? -1L : (1L << width) - 1;
+            int base = in.position();
+            long bit = 0;
+            for (int i = block; i < end; i++, bit += width) {
+                long value = 0;
+                for (int done = 0; done < width; ) { // Gather the value from the bytes it falls in.
+                    int index = (int) ((bit + done) >>> 3), shift = (int) ((bit + done) & 7);
+                    value |= (long) ((in.get(base + index) & 0xFF) >>> shift) << done;
+                    done += 8 - shift;
+                }
+                values[i] = (value & mask) + min;
+            }
+            in.position(base + (int) ((bit + 7) / 8));
+        }
+        if (encoding == TrajectoryRecorder.DELTA) {
+            for (int i = 1; i < count; i++) {
+                values[i] += values[i - 1];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns a value written by {@link TrajectoryRecorder} seven bits at a time.
+     */
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Returns the signed value a zigzag-encoded value stands for.
+     */
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Close the file.
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Summarise a trajectory file, print its rows as CSV, or follow one animal, from the command line.
+     * @param args The file, then optionally {@code summary} (the default), {@code csv} or
+     *             {@code track <id>}, then optionally the first and last step to read.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java TrajectoryReader <file> [summary | csv | track <id>] [fromStep toStep]");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        String mode = args.length > 1 ? args[1] : "summary";
+        int next = mode.equals("track") ? 3 : 2;
+        long id = mode.equals("track") ? Long.parseLong(args[2]) : -1;
+        int fromStep = args.length > next + 1 ? Integer.parseInt(args[next]) : 0;
+        int toStep = args.length > next + 1 ? Integer.parseInt(args[next + 1]) : Integer.MAX_VALUE;
+        PrintStream out = System.out;
+        try (TrajectoryReader reader = new TrajectoryReader(path)) {
+            String[] species = reader.getSpeciesNames();
+            long rows = 0, groups = 0;
+            int first = Integer.MAX_VALUE, last = Integer.MIN_VALUE;
+            if (!mode.equals("summary")) {
+                out.println(mode.equals("track") ? "step,row,col,age,food,disease,female,dormant"
+                        : "step,id,row,col,species,age,food,disease,female,dormant");
+            }
+            for (Chunk chunk; (chunk = reader.next(fromStep, toStep)) != null; ) {
+                groups++;
+                rows += chunk.rows();
+                long[][] c = chunk.columns();
+                for (int i = 0; i < chunk.rows(); i++) {
+                    first = (int) Math.min(first, c[TrajectoryRecorder.STEP][i]);
+                    last = (int) Math.max(last, c[TrajectoryRecorder.STEP][i]);
+                    if (mode.equals("summary") || (mode.equals("track") && c[TrajectoryRecorder.ID][i] != id)) {
+                        continue;
+                    }
+                    long state = c[TrajectoryRecorder.STATE][i];
+                    String tail = c[TrajectoryRecorder.AGE][i] + "," + c[TrajectoryRecorder.FOOD][i] + ","
+                            + (state & TrajectoryRecorder.DISEASE_MASK) + "," + ((state & TrajectoryRecorder.FEMALE) != 0) + ","
+                            + ((state & TrajectoryRecorder.DORMANT) != 0);
+                    out.println(mode.equals("track")
+                            ? c[TrajectoryRecorder.STEP][i] + "," + c[TrajectoryRecorder.ROW][i] + "," + c[TrajectoryRecorder.COL][i] + "," + tail
+                            : c[TrajectoryRecorder.STEP][i] + "," + c[TrajectoryRecorder.ID][i] + "," + c[TrajectoryRecorder.ROW][i] + ","
+                                    + c[TrajectoryRecorder.COL][i] + "," + species[(int) c[TrajectoryRecorder.SPECIES][i]] + "," + tail);
+                }
+            }
+            if (mode.equals("summary")) {
+                out.printf(Locale.ROOT, "%s: %dx%d field, %d rows in %d groups, steps %d to %d, %d bytes%n", path,
+                        reader.getDepth(), reader.getWidth(), rows, groups, rows == 0 ? 0 : first, rows == 0 ? 0 : last, Files.size(path));
+                long[] bytes = reader.getColumnBytes();
+                for (int col = 0; col < bytes.length; col++) {
+                    out.printf(Locale.ROOT, "  %-8s %12d bytes %7.2f bits per row%n", TrajectoryRecorder.COLUMNS[col], bytes[col],
+                            rows == 0 ? 0 : bytes[col] * 8.0 / rows);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Records the trajectory of every living animal, awake or dormant, at every step: its id, cell,
+ * species, age, food level and state. It is used when the simulation is started with
+ * {@code -Dsimulator.trajectories=<file>}, and the file is read back with a {@link TrajectoryReader}.
+ *
+ * The simulation only copies each animal's values into columns of longs. Every
+ * {@value #GROUP_ROWS} rows or so, at the end of a step, the columns are handed to a background
+ * thread as a row group, which it compresses and writes while the simulation goes on; only
+ * {@value #PENDING_GROUPS} groups can wait at a time, so memory stays bounded however long the run.
+ *
+ * The file holds the int {@code 0x5452414A} ("TRAJ"), the format version (1), the depth and
+ * width of the field and the species names, followed by the row groups. A group holds its
+ * length in bytes, its first and last step and its number of rows, then each column in the order
+ * of {@link #COLUMNS}: an encoding byte, its length in bytes and the encoded values, so a reader
+ * can skip whole groups by step and read only the columns it needs. Rows are ordered by step,
+ * then by id, and a run after a reset starts again from step 0 in a new group. Each column is
+ * stored in whichever of two encodings is smaller:
+ * <ul>
+ *   <li>{@link #PACKED}: the values are split into blocks of {@value #BLOCK}, and each block holds
+ *       its smallest value as a zigzag varint, a bit width, and every value minus that smallest
+ *       value packed into that many bits, least significant bit first.</li>
+ *   <li>{@link #DELTA}: the first value as a zigzag varint, then the difference of each value from
+ *       the one before it, packed in the same way.</li>
+ * </ul>
+ * Steps and ids barely change from one row to the next and take a bit or two a row once
+ * delta-encoded, while cells, species, food levels and states need only as many bits as their range.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class TrajectoryRecorder implements AutoCloseable {
+    static final int MAGIC = 0x5452414A; // Starts a trajectory file: "TRAJ".
+    static final int VERSION = 1; // The version of the file format.
+    static final String[] COLUMNS = {"step", "id", "row", "col", "species", "age", "food", "state"}; // The columns, in file order.
+    static final int STEP = 0, ID = 1, ROW = 2, COL = 3, SPECIES = 4, AGE = 5, FOOD = 6, STATE = 7; // The index of each column.
+    static final byte PACKED = 0; // Encodes a column as bit-packed blocks of values.
+    static final byte DELTA = 1; // Encodes a column as bit-packed blocks of differences between values.
+    static final int BLOCK = 128; // The number of values in a bit-packed block.
+    static final int DISEASE_MASK = 3; // The state bits holding the disease: 0 for none, 1 for flu, 2 for rabies, 3 for any other.
+    static final int FEMALE = 1 << 2; // The state bit marking a female.
+    static final int DORMANT = 1 << 3; // The state bit marking a dormant animal.
+    private static final int GROUP_ROWS = 1 << 16; // The number of rows after which a group is written.
+    private static final int PENDING_GROUPS = 2; // The number of groups that may wait to be written.
+
+    private final DataOutputStream out; // The file being written.
+    private final ExecutorService encoder; // Compresses and writes the groups, one at a time and in order.
+    private final Semaphore pending = new Semaphore(PENDING_GROUPS); // Bounds the groups waiting to be written.
+    private volatile IOException failure; // The first failure to write a group, or null.
+    private long[][] columns = new long[COLUMNS.length][1024]; // The rows of the group being gathered, column by column.
+    private int rows; // The number of rows gathered.
+    private int firstStep, lastStep; // The steps the gathered rows cover.
+
+    /**
+     * Create a recorder writing to a file, replacing anything already in it.
+     * @param path The file to write.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param speciesNames The name of each species, numbered as in {@link Field#getPopulations()}.
+     * @throws IOException If the file cannot be created.
+     */
+    public TrajectoryRecorder(Path path, int depth, int width, String[] speciesNames) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(depth);
+        out.writeInt(width);
+        out.writeShort(speciesNames.length);
+        for (String name : speciesNames) {
+            out.writeUTF(name);
+        }
+        out.flush();
+        encoder = Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("trajectories").factory()); // Never keeps the program running.
+    }
+
+    /**
+     * Record every living animal of a field state, awake or dormant. Waits if the background
+     * thread has fallen too far behind.
+     * @param step The step the field state is at.
+     * @param field The field state.
+     */
+    public void record(int step, Field field) {
+        if (rows > 0 && step <= lastStep) {
+            submit(); // The simulation has been reset; the new run starts a group of its own.
+        }
+        if (rows == 0) {
+            firstStep = step;
+        }
+        lastStep = step;
+        for (Entity anEntity : field.getEntities()) {
+            add(step, anEntity, 0);
+        }
+        for (Entity anEntity : field.getScheduler().getDormantEntities()) {
+            add(step, anEntity, DORMANT);
+        }
+        if (rows >= GROUP_ROWS) {
+            submit();
+        }
+    }
+
+    /**
+     * Add a row for an entity, if it is a living animal.
+     */
+    private void add(int step, Entity anEntity, int dormant) {
+        if (!(anEntity instanceof Animal animal) || !animal.isAlive()) {
+            return;
+        }
+        if (rows == columns[0].length) {
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], rows * 2);
+            }
+        }
+        Location location = animal.getLocation();
+        Disease disease = animal.getCurrentDisease();
+        int diseaseCode = disease == null ? 0 : disease instanceof Flu ? 1 : disease instanceof Rabies ? 2 : DISEASE_MASK;
+        columns[STEP][rows] = step;
+        columns[ID][rows] = animal.getId();
+        columns[ROW][rows] = location.row();
+        columns[COL][rows] = location.col();
+        columns[SPECIES][rows] = EventBus.speciesId(animal.getClass());
+        columns[AGE][rows] = animal.getAge();
+        columns[FOOD][rows] = animal.getFoodLevel();
+        columns[STATE][rows] = diseaseCode | (animal.getGender() == Gender.FEMALE ? FEMALE : 0) | dormant;
+        rows++;
+    }
+
+    /**
+     * Hand the gathered rows to the background thread as a group, and start gathering the next.
+     */
+    private void submit() {
+        long[][] group = columns;
+        int count = rows, first = firstStep, last = lastStep;
+        columns = new long[COLUMNS.length][Math.max(1024, count)];
+        rows = 0;
+        pending.acquireUninterruptibly();
+        encoder.execute(() -> {
+            try {
+                byte[] encoded = encode(group, count, first, last);
+                out.write(encoded);
+                out.flush();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                pending.release();
+            }
+        });
+    }
+
+    /**
+     * Write the rows gathered so far, and wait until every group has been written.
+     * @throws IOException If any group could not be written.
+     */
+    public void flush() throws IOException {
+        if (rows > 0) {
+            submit();
+        }
+        pending.acquireUninterruptibly(PENDING_GROUPS);
+        pending.release(PENDING_GROUPS);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write the rows gathered so far, then close the file.
+     * @throws IOException If any group could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            encoder.shutdown();
+            out.close();
+        }
+    }
+
+    /**
+     * Returns a group encoded as it is stored in the file, its rows ordered by id within each step.
+     */
+    private static byte[] encode(long[][] columns, int rows, int firstStep, int lastStep) throws IOException {
+        sortById(columns, rows);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(body);
+        data.writeInt(firstStep);
+        data.writeInt(lastStep);
+        data.writeInt(rows);
+        for (long[] column : columns) {
+            byte[] packed = encode(column, rows, PACKED), delta = encode(column, rows, DELTA);
+            byte[] smaller = delta.length < packed.length ? delta : packed;
+            data.writeByte(smaller == delta ? DELTA : PACKED);
+            data.writeInt(smaller.length);
+            data.write(smaller);
+        }
+        ByteArrayOutputStream group = new ByteArrayOutputStream(body.size() + 4);
+        new DataOutputStream(group).writeInt(body.size());
+        body.writeTo(group);
+        return group.toByteArray();
+    }
+
+    /**
+     * Order the rows of each step by id. The rows of a step are sorted by keys holding the id
+     * above the row's position within the step; steps too large for that are left as they are.
+     */
+    private static void sortById(long[][] columns, int rows) {
+        long[] step = columns[STEP], id = columns[ID];
+        long[][] sorted = new long[columns.length][rows];
+        for (int start = 0, end; start < rows; start = end) {
+            end = start;
+            while (end < rows && step[end] == step[start]) {
+                end++;
+            }
+            int count = end - start;
+            long[] keys = new long[count];
+            boolean sortable = count < 1 << 24;
+            for (int i = 0; i < count && sortable; i++) {
+                sortable = id[start + i] >>> 39 == 0;
+                keys[i] = id[start + i] << 24 | i;
+            }
+            if (sortable) {
+                Arrays.sort(keys);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    keys[i] = i;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                int from = start + (int) (keys[i] & ((1 << 24) - 1));
+                for (int c = 0; c < columns.length; c++) {
+                    sorted[c][start + i] = columns[c][from];
+                }
+            }
+        }
+        for (int c = 0; c < columns.length; c++) {
+            System.arraycopy(sorted[c], 0, columns[c], 0, rows);
+        }
+    }
+
+    /**
+     * Returns the first values of a column in an encoding.
+     */
+    private static byte[] encode(long[] column, int count, byte encoding) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long[] values = column;
+        int start = 0;
+        if (encoding == DELTA && count > 0) {
+            writeVarLong(out, zigzag(column[0]));
+            values = new long[count];
+            for (int i = 1; i < count; i++) {
+                values[i] = column[i] - column[i - 1];
+            }
+            start = 1;
+        }
+        byte[] packed = new byte[BLOCK * Long.BYTES];
+        for (int block = start; block < count; block += BLOCK) {
+            int end = Math.min(count, block + BLOCK);
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            for (int i = block; i < end; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            int width = 64 - Long.numberOfLeadingZeros(max - min);
+            writeVarLong(out, zigzag(min));
+            out.write(width);
+            int bytes = ((end - block) * width + 7) / 8;
+            Arrays.fill(packed, 0, bytes, (byte) 0);
+            long bit = 0;
+            for (int i = block; i < end; i++, bit += width) {
+                long value = values[i] - min;
+                for (int done = 0; done < width; ) { // Spread the value over the bytes it falls in.
+                    int index = (int) ((bit + done) >>> 3), shift = (int) ((bit + done) & 7);
+                    packed[index] |= (byte) (value >>> done << shift);
+                    done += 8 - shift;
+                }
+            }
+            out.write(packed, 0, bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns a signed value mapped to an unsigned one, small in magnitude either way: 0, -1, 1, -2, ...
+     */
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    /**
+     * Write a value seven bits at a time, least significant first, with the top bit of each byte
+     * marking that another follows.
+     */
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
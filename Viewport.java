@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * The part of the field shown in a view, which can be panned and zoomed, and renders frames into
+ * pixels. Only the cells inside the view are drawn, each pixel taking the colour of the cell under
+ * its centre, so drawing a frame costs the same however large the field is. When zoomed out so far
+ * that a pixel covers several cells, pixels are drawn from the {@link FieldPyramid} level whose
+ * blocks are the size of a pixel instead, so every cell still counts towards the picture.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class Viewport {
+    private static final double MAX_SCALE = 64; // The most pixels a cell may be drawn across.
+    private static final int OUTSIDE = 0x404040; // The colour of pixels beyond the edge of the field.
+
+    private final int depth, width; // The dimensions of the field.
+    private final FieldPyramid pyramid; // The field summarised for zoomed-out views.
+    private StepFrame summarised; // The frame the pyramid summarises, or null.
+    private double scale = 1; // The number of pixels a cell is drawn across.
+    private double top, left; // The field position, in cells, at the top-left corner of the view.
+
+    /**
+     * Create a viewport onto a field, showing it one pixel per cell from its top-left corner.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param species The number of species, numbered as in {@link Field#getPopulations()}.
+     */
+    public Viewport(int depth, int width, int species) {
+        this.depth = depth;
+        this.width = width;
+        pyramid = new FieldPyramid(depth, width, species);
+    }
+
+    /**
+     * Show the whole field, as large as fits and centred in the view.
+     * @param viewWidth The width of the view in pixels.
+     * @param viewHeight The height of the view in pixels.
+     */
+    public void fit(int viewWidth, int viewHeight) {
+        scale = clamp(Math.min((double) viewWidth / width, (double) viewHeight / depth));
+        left = (width - viewWidth / scale) / 2;
+        top = (depth - viewHeight / scale) / 2;
+    }
+
+    /**
+     * Zoom in or out, keeping the cell under a pixel where it is.
+     * @param factor How many times larger to draw the cells; below 1 zooms out.
+     * @param x The pixel's column in the view.
+     * @param y The pixel's row in the view.
+     */
+    public void zoom(double factor, int x, int y) {
+        double newScale = clamp(scale * factor);
+        left += x / scale - x / newScale;
+        top += y / scale - y / newScale;
+        scale = newScale;
+    }
+
+    /**
+     * Move the field within the view.
+     * @param dx How many pixels to move the field to the right.
+     * @param dy How many pixels to move the field down.
+     */
+    public void pan(int dx, int dy) {
+        left -= dx / scale;
+        top -= dy / scale;
+    }
+
+    /**
+     * Returns the number of pixels a cell is drawn across.
+     * @return The scale of the view.
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns a scale kept between the one that shows the whole field in a pixel and the largest.
+     */
+    private double clamp(double scale) {
+        return Math.max(1.0 / (1 << pyramid.getLevels()), Math.min(MAX_SCALE, scale));
+    }
+
+    /**
+     * Draw the part of a frame inside the view.
+     * @param frame The frame, of a field of this viewport's size.
+     * @param pixels The RGB pixels of the view, row by row.
+     * @param viewWidth The width of the view in pixels.
+     * @param viewHeight The height of the view in pixels.
+     * @param palette The RGB colour of an empty cell, followed by the colour of each species.
+     */
+    public void render(StepFrame frame, int[] pixels, int viewWidth, int viewHeight, int[] palette) {
+        // Draw from the level whose blocks are no wider than a pixel.
+        int k = scale >= 1 ? 0 : Math.min(pyramid.getLevels(), 31 - Integer.numberOfLeadingZeros((int) (1 / scale)));
+        FieldPyramid.Level level = null;
+        if (k > 0) {
+            if (summarised != frame) {
+                pyramid.update(frame);
+                summarised = frame;
+            }
+            level = pyramid.getLevel(k);
+        }
+        byte[] cells = frame.cells();
+
+        int[] colOf = new int[viewWidth]; // The column of the cell under each pixel column, or -1 beyond the field.
+        for (int x = 0; x < viewWidth; x++) {
+            int col = (int) Math.floor(left + (x + 0.5) / scale);
+            colOf[x] = col >= 0 && col < width ? col : -1;
+        }
+        int lastRow = Integer.MIN_VALUE;
+        for (int y = 0; y < viewHeight; y++) {
+            int row = (int) Math.floor(top + (y + 0.5) / scale);
+            int i = y * viewWidth;
+            if (row == lastRow) {
+                System.arraycopy(pixels, i - viewWidth, pixels, i, viewWidth); // The same cells as the line above.
+                continue;
+            }
+            lastRow = row;
+            if (row < 0 || row >= depth) {
+                Arrays.fill(pixels, i, i + viewWidth, OUTSIDE);
+                continue;
+            }
+            for (int x = 0; x < viewWidth; x++, i++) {
+                int col = colOf[x];
+                if (col < 0) {
+                    pixels[i] = OUTSIDE;
+                } else if (level == null) {
+                    pixels[i] = palette[StepFrame.speciesOf(cells[row * width + col]) + 1];
+                } else {
+                    int block = (row >> k) * level.width() + (col >> k);
+                    pixels[i] = blend(palette[0], palette[level.dominant()[block]], level.density()[block] & 0xFF);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a mix of two RGB colours, from all of the first at 0 to all of the second at 255.
+     */
+    private static int blend(int from, int to, int amount) {
+        int red = ((from >> 16 & 0xFF) * (255 - amount) + (to >> 16 & 0xFF) * amount) / 255;
+        int green = ((from >> 8 & 0xFF) * (255 - amount) + (to >> 8 & 0xFF) * amount) / 255;
+        int blue = ((from & 0xFF) * (255 - amount) + (to & 0xFF) * amount) / 255;
+        return red << 16 | green << 8 | blue;
+    }
+}
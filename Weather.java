@@ -14,7 +14,7 @@ import java.util.Random;
  * @version 10.02.2025
  */
 public class Weather {
-    private final Random random = new Random(); // Random number generator for weather variations.
+    private final Random random; // Random number generator for weather variations, seeded from the simulation.
     // The URL for fetching weather data from the external API.
     private static final String API_URL = "http://api.weatherapi.com/v1/current.json";
     // The API key used to authenticate with the weather API.  Hardcoded here for ease of submission,
@@ -23,6 +23,7 @@ public class Weather {
     private final String location = "London"; // The default location for which weather data is fetched.
 
     private Simulator simulator; // The simulator instance to access simulation steps.
+    private final boolean useApi; // Whether to fetch the weather from the API or always use random weather.
     private int lastStepUpdated = 0; // The simulation step when the weather was last updated.
     private final int stepIntervalUpdate = 100; // The interval (in steps) between weather updates.
     private String currentWeatherText; // The current weather condition as text (e.g., "Sunny", "Rainy").
@@ -33,7 +34,33 @@ public class Weather {
      * @param simulator The simulator instance to which the weather applies.
      */
     public Weather(Simulator simulator) {
+        this(simulator, true);
+    }
+
+    /**
+     * Constructs a Weather object that either fetches real weather from the API or, when running
+     * offline (for example in headless runs), only ever uses random weather conditions.
+     * @param simulator The simulator instance to which the weather applies.
+     * @param useApi Whether to fetch the weather from the external API.
+     */
+    public Weather(Simulator simulator, boolean useApi) {
         this.simulator = simulator;
+        this.useApi = useApi;
+        this.random = new Random(simulator.getRandom().nextLong());
+    }
+
+    /**
+     * Constructs a copy of another simulation's weather for a forked simulation. The copy keeps
+     * the current conditions and when they were last updated, but draws its own random weather
+     * from then on and never calls the API.
+     * @param weather The weather to copy.
+     * @param simulator The forked simulator instance to which the weather applies.
+     */
+    public Weather(Weather weather, Simulator simulator) {
+        this(simulator, false);
+        this.lastStepUpdated = weather.lastStepUpdated;
+        this.currentWeatherText = weather.currentWeatherText;
+        this.currentWeatherEmoji = weather.currentWeatherEmoji;
     }
 
     /**
@@ -43,9 +70,28 @@ public class Weather {
      * @return The current weather text (e.g., "Sunny", "Rainy", "Snowy", "Cloudy").
      */
     public String getWeatherText() {
-        if(!isEnoughStepsPassed())
+        if(currentWeatherText != null && !isEnoughStepsPassed())
             return currentWeatherText; // Returns the cached weather text if not enough steps have passed.
 
+        StepProfiler profiler = simulator.getProfiler();
+        long start = profiler.start();
+        try {
+            return updateWeatherText();
+        } finally {
+            profiler.stop(StepProfiler.Phase.WEATHER, start); // Time spent refreshing the weather.
+        }
+    }
+
+    /**
+     * Fetches new weather from the API, or picks a random weather condition if that is not possible.
+     * @return The new weather text.
+     */
+    private String updateWeatherText() {
+        if(!useApi) {
+            getRandomWeather(); // Offline weather is always random.
+            return currentWeatherText;
+        }
+
         try {
             String weatherData = fetchWeatherData(); // Fetches weather data from the API.
 
@@ -70,7 +116,7 @@ public class Weather {
      * @return The current weather emoji (e.g., "☀️", "🌧️", "❄️", "☁️").
      */
     public String getWeatherEmoji() {
-        if(!isEnoughStepsPassed())
+        if(currentWeatherEmoji != null && !isEnoughStepsPassed())
             return currentWeatherEmoji; // Returns the cached weather emoji if not enough steps have passed.
 
         currentWeatherEmoji = mapWeatherTextToWeatherEmoji(currentWeatherText); // Maps the current weather text to its emoji representation.
@@ -95,7 +141,7 @@ public class Weather {
      * and emoji with a randomly selected condition.
      */
     public void getRandomWeather() {
-        if(!isEnoughStepsPassed())
+        if(currentWeatherText != null && !isEnoughStepsPassed())
             return; // Returns early if not enough steps have passed since the last update.
 
         String[] weatherTexts = {"Sunny", "Rainy", "Snowy", "Cloudy"}; // Array of possible weather conditions.
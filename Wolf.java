@@ -12,6 +12,8 @@ public class Wolf extends Animal {
     private static final int MAX_AGE = 140; // The maximum age a wolf can live to (in simulation steps).
     private static final double BREEDING_PROBABILITY = 0.05;  // The probability of a wolf breeding during a simulation step (0.0 to 1.0).
     private static final int MAX_LITTER_SIZE = 6;  // The maximum number of offspring a wolf can produce in a single breeding.
+    private static final int VISION_RADIUS = 6;  // How far away a wolf can see food under -Dsimulator.vision (otherwise 1).
+    private static final boolean PURSUES = true;  // Whether a wolf chases the nearest of its food across the field under -Dsimulator.pursuit.
 
     /**
      * Constructs a new Wolf.
@@ -22,8 +24,16 @@ public class Wolf extends Animal {
      * @param simulator The simulator instance.
      */
     public Wolf(boolean randomAge, Location location, Gender gender, Simulator simulator) {
-        super(randomAge, location, BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
-                createFoodSources(), Wolf.class, gender, simulator);
+        super(randomAge, location, simulator.getParameters().forSpecies(Wolf.class), Wolf.class, gender, simulator);
+    }
+
+    /**
+     * Returns the parameters a wolf has unless a simulation is given others.
+     * @return The default breeding, age, litter, vision, pursuit and food parameters of a wolf.
+     */
+    public static SpeciesParameters defaultParameters() {
+        return new SpeciesParameters(BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
+                SpeciesParameters.VISION ? VISION_RADIUS : 1, SpeciesParameters.PURSUIT && PURSUES, createFoodSources());
     }
 
     /**
@@ -0,0 +1,173 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Populates large fields quickly, and the same way on any number of threads. The field is cut into
+ * blocks of rows, which are sampled in parallel, each from its own random stream derived from the
+ * world's seed and the block's number, so the world depends only on the seed. Rather than drawing
+ * for every cell, a block jumps from one occupied cell straight to the next by drawing the length
+ * of the gap between them from a geometric distribution, so the time taken grows with the number
+ * of entities rather than the number of cells.
+ *
+ * Each cell holds at most one species, chosen as by trying each species in turn with its creation
+ * probability: wolves, bobcats, squirrels, grouse, seeds, then berries. When a {@link DensityMap}
+ * scales the probabilities, each block jumps at the rate of its densest cell and keeps each cell it
+ * lands on with the ratio of that cell's rate to the densest (thinning), which samples every cell
+ * with exactly its own rate.
+ *
+ * The entities themselves are created afterwards on the calling thread, block by block in row
+ * order, since creating them touches the simulation's shared state.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class WorldGenerator {
+    private static final int BLOCK_CELLS = 1 << 16; // The number of cells in a block, rounded to whole rows.
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L; // Spreads the seeds of the blocks apart.
+    private static final int SPECIES = Field.ANIMAL_SPECIES + 2; // The number of species created: the animals, seeds and berries.
+    private static final int GENDER_BIT = 1 << 3; // Marks a female in a placement code.
+    private static final int INFECTED_BIT = 1 << 4; // Marks an infected animal in a placement code.
+
+    /**
+     * Receives the entities of a generated world, one cell at a time.
+     */
+    @FunctionalInterface
+    public interface Placement {
+        /**
+         * Create an entity in a cell.
+         * @param species The species, numbered as in {@link Field#getPopulations()}.
+         * @param location The cell.
+         * @param gender The gender of an animal.
+         * @param infected Whether an animal starts infected with its species' disease.
+         */
+        void place(int species, Location location, Gender gender, boolean infected);
+    }
+
+    private final int depth, width; // The dimensions of the field.
+    private final double[] probabilities; // The creation probability of each species.
+    private final double diseaseProbability; // The probability of a predator starting infected.
+    private final DensityMap map; // Scales the probabilities cell by cell, or null for a uniform world.
+    private final int blockRows; // The number of rows in a block.
+
+    /**
+     * Create a generator for a field.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param parameters The creation probabilities and disease probability.
+     * @param map Scales the creation probabilities cell by cell, or null for a uniform world.
+     */
+    public WorldGenerator(int depth, int width, SimulationParameters parameters, DensityMap map) {
+        this.depth = depth;
+        this.width = width;
+        this.probabilities = new double[] {parameters.wolfCreationProbability(), parameters.bobcatCreationProbability(),
+                parameters.squirrelCreationProbability(), parameters.grouseCreationProbability(),
+                parameters.seedsCreationProbability(), parameters.berriesCreationProbability()};
+        this.diseaseProbability = parameters.diseaseProbability();
+        this.map = map;
+        this.blockRows = Math.max(1, BLOCK_CELLS / width);
+    }
+
+    /**
+     * Generate a world, sampling its blocks in parallel, then pass every entity in it to a
+     * placement, in row order, on the calling thread.
+     * @param seed The seed of the world.
+     * @param placement Creates the entities.
+     */
+    public void generate(long seed, Placement placement) {
+        int blocks = (depth + blockRows - 1) / blockRows;
+        Block[] sampled = IntStream.range(0, blocks).parallel()
+                .mapToObj(block -> sample(block, new SplittableRandom(seed + block * SEED_STRIDE)))
+                .toArray(Block[]::new);
+        for (Block block : sampled) {
+            for (int i = 0; i < block.size; i++) {
+                int cell = block.cells[i], code = block.codes[i];
+                placement.place(code & (GENDER_BIT - 1), new Location(cell / width, cell % width),
+                        (code & GENDER_BIT) != 0 ? Gender.FEMALE : Gender.MALE, (code & INFECTED_BIT) != 0);
+            }
+        }
+    }
+
+    /**
+     * Sample the occupied cells of one block of rows.
+     */
+    private Block sample(int index, SplittableRandom random) {
+        int fromRow = index * blockRows, toRow = Math.min(depth, fromRow + blockRows);
+        long end = (long) toRow * width;
+        Block block = new Block();
+
+        double[] cumulative = new double[SPECIES]; // The chance of each species or an earlier one, at the highest weight.
+        double peak = occupancy(map == null ? 1 : map.maxWeight(fromRow, toRow, depth), cumulative);
+        if (peak <= 0) {
+            return block;
+        }
+        double logEmpty = Math.log1p(-peak); // The log of the chance of a cell being empty at the peak rate.
+        double[] local = map == null ? cumulative : new double[SPECIES];
+
+        long cell = (long) fromRow * width - 1;
+        while (true) {
+            // Jump over the empty cells before the next occupied one.
+            cell += 1 + (peak >= 1 ? 0 : (long) (Math.log(1 - random.nextDouble()) / logEmpty));
+            if (cell >= end) {
+                return block;
+            }
+            double rate = peak;
+            if (map != null) {
+                rate = occupancy(map.weightAt((int) (cell / width), (int) (cell % width), depth, width), local);
+                if (random.nextDouble() * peak >= rate) {
+                    continue; // Thinned out: the cell is sparser than the densest in the block.
+                }
+            }
+            double pick = random.nextDouble() * rate;
+            int species = 0;
+            while (species < SPECIES - 1 && pick >= local[species]) {
+                species++;
+            }
+            int code = species;
+            if (random.nextBoolean()) {
+                code |= GENDER_BIT;
+            }
+            if (species < 2 && random.nextDouble() < diseaseProbability) {
+                code |= INFECTED_BIT; // Wolves and bobcats may start infected.
+            }
+            block.add((int) cell, (byte) code);
+        }
+    }
+
+    /**
+     * Fill in the cumulative chances of a cell holding each species or an earlier one, when every
+     * creation probability is scaled by a weight, trying the species in turn as the sequential
+     * populator does.
+     * @return The chance of the cell holding anything.
+     */
+    private double occupancy(double weight, double[] cumulative) {
+        double empty = 1; // The chance of no species so far having been created.
+        double total = 0;
+        for (int s = 0; s < SPECIES; s++) {
+            double p = Math.min(1, probabilities[s] * weight);
+            total += empty * p;
+            empty *= 1 - p;
+            cumulative[s] = total;
+        }
+        return total;
+    }
+
+    /**
+     * The occupied cells of a block and what to place in them.
+     */
+    private static final class Block {
+        private int[] cells = new int[64]; // The index of each occupied cell.
+        private byte[] codes = new byte[64]; // The species, gender and infection of each occupied cell.
+        private int size; // The number of occupied cells.
+
+        void add(int cell, byte code) {
+            if (size == cells.length) {
+                cells = Arrays.copyOf(cells, size * 2);
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            cells[size] = cell;
+            codes[size] = code;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Zobrist keys for hashing the state of the field. Every combination of species, gender and cell
+ * has its own pseudo-random 64-bit key, and the hash of a field state is the exclusive or of the
+ * keys of everything on it. Placing or removing something therefore updates the hash with a single
+ * exclusive or, and two field states holding the same animals and plants in the same cells have
+ * the same hash however they were reached.
+ *
+ * The keys are not stored in a table but computed by mixing the combination with the SplitMix64
+ * finaliser, which gives every combination a distinct, well-scattered key on fields of any size.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public final class Zobrist {
+    private static final long GAMMA = 0x9E3779B97F4A7C15L; // Offsets the combinations so that none maps to 0.
+    private static final int PLANT_KINDS = 16; // Plant kinds are numbered after every animal kind.
+
+    private Zobrist() {}
+
+    /**
+     * Returns the key of an animal standing on a cell.
+     * @param animal The animal.
+     * @param location The cell the animal is on.
+     * @return The animal's key.
+     */
+    public static long animalKey(Animal animal, Location location) {
+        int kind = EventBus.speciesId(animal.getClass()) * 2 + animal.getGender().ordinal();
+        return key(kind, location.row(), location.col());
+    }
+
+    /**
+     * Returns the key of a plant growing on a cell.
+     * @param species The species byte of the plant in its plant layer.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The plant's key.
+     */
+    public static long plantKey(int species, int row, int col) {
+        return key(PLANT_KINDS + species, row, col);
+    }
+
+    /**
+     * Returns the key of a kind of thing on a cell.
+     */
+    private static long key(int kind, int row, int col) {
+        long z = ((long) row << 40 | (long) col << 16 | kind) + GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
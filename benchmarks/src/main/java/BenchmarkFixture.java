@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Builds a headless simulation of a given size and density, and hands out the simulation's hot
+ * paths as {@link IntSupplier} operations for the JMH benchmarks to measure.
+ *
+ * This class lives in the default package alongside the simulation, because JMH benchmarks must
+ * live in a named package and a named package cannot refer to classes of the default package.
+ * The benchmarks look this class up once during setup and then call the returned operations
+ * through a plain interface call, so the indirection adds nothing measurable. Operations that
+ * change the field are meant to be rebuilt before every timed batch, since the field drifts
+ * away from its built density as they run. Each operation closes its simulation when closed.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class BenchmarkFixture {
+    private static final long SEED = 1111; // Seed for laying out the benchmark field.
+    private static final int PROBES = 4096; // The number of locations and animals cycled through.
+
+    private final Simulator simulator; // The headless simulation being measured.
+    private final Location[] probes; // Random locations to query.
+    private final Animal[] animals; // Animals with food sources to act on.
+    private final FieldStats stats = new FieldStats(); // Statistics object for the counting benchmark.
+    private int next; // Index of the next probe or animal to use.
+
+    /**
+     * Create a headless simulation and fill it at the given density.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param density The fraction of cells holding an animal, and separately a plant.
+     */
+    private BenchmarkFixture(int depth, int width, double density) {
+        simulator = new Simulator(depth, width, true);
+        Random rand = new Random(SEED);
+        Field field = simulator.getWritableField();
+        field.clear(); // Replace the default population with one of the requested density.
+        simulator.getDeathQueue().clear(simulator.getStep());
+
+        List<Animal> placed = new ArrayList<>();
+        for (int row = 0; row < depth; row++) {
+            for (int col = 0; col < width; col++) {
+                Location location = new Location(row, col);
+                if (rand.nextDouble() < density) {
+                    Animal animal = createAnimal(rand.nextInt(4), location, rand);
+                    field.placeEntity(animal, location);
+                    placed.add(animal);
+                }
+                if (rand.nextDouble() < density) {
+                    field.getPlants().placePlant(rand.nextBoolean() ? Seeds.class : Berries.class, location);
+                }
+            }
+        }
+
+        probes = new Location[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = new Location(rand.nextInt(depth), rand.nextInt(width));
+        }
+        animals = new Animal[Math.min(PROBES, placed.size())];
+        for (int i = 0; i < animals.length; i++) {
+            animals[i] = placed.get(rand.nextInt(placed.size())); // Sample animals from all over the field.
+        }
+    }
+
+    /**
+     * A hot path of a fixture, which closes the fixture's simulation when it is closed.
+     */
+    private record Operation(IntSupplier path, Simulator simulator) implements IntSupplier, AutoCloseable {
+        @Override
+        public int getAsInt() {
+            return path.getAsInt();
+        }
+
+        @Override
+        public void close() {
+            simulator.close();
+        }
+    }
+
+    /**
+     * Build a fixture and return one of its hot paths as an operation.
+     * @param operation The name of the hot path to measure.
+     * @param size The field size, written as "width x depth" (for example "120x80").
+     * @param density The fraction of cells holding an animal, and separately a plant.
+     * @return The operation; its result should be consumed so the work is not optimised away. It
+     *         is also {@link AutoCloseable}, and should be closed once it is no longer measured.
+     */
+    public static IntSupplier operation(String operation, String size, double density) {
+        String[] dimensions = size.split("x");
+        BenchmarkFixture fixture = new BenchmarkFixture(Integer.parseInt(dimensions[1].trim()),
+                Integer.parseInt(dimensions[0].trim()), density);
+        return new Operation(fixture.select(operation), fixture.simulator);
+    }
+
+    /**
+     * Returns the named hot path of this fixture.
+     */
+    private IntSupplier select(String operation) {
+        Field field = simulator.getField();
+        return switch (operation) {
+            case "getAdjacentLocations" -> () -> field.getAdjacentLocations(nextProbe()).size();
+            case "getFreeAdjacentLocations" -> () -> field.getFreeAdjacentLocations(nextProbe()).size();
+            case "findFood" -> () -> nextAnimal().findFood(field) == null ? 0 : 1;
+            case "canBreed" -> () -> nextAnimal().canBreed(field) ? 1 : 0;
+            case "giveBirth" -> {
+                Field nextFieldState = new Field(field.getDepth(), field.getWidth(), field.getPlants(), field.getScheduler(), simulator.getRandom());
+                yield () -> {
+                    Animal parent = nextAnimal();
+                    List<Location> free = nextFieldState.getFreeAdjacentLocations(parent.getLocation());
+                    parent.giveBirth(nextFieldState, free, field);
+                    return free.size();
+                };
+            }
+            case "plantLayerAct" -> () -> {
+                field.getPlants().act();
+                return field.getPlants().getCount(Seeds.class);
+            };
+            case "fieldStats" -> () -> {
+                stats.reset();
+                return stats.getPopulationDetails(field).length();
+            };
+            case "simulateOneStep" -> () -> {
+                simulator.simulateOneStep();
+                return simulator.getStep();
+            };
+            default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+        };
+    }
+
+    /**
+     * Returns the next location to query, cycling through the probes.
+     */
+    private Location nextProbe() {
+        next = (next + 1) % probes.length;
+        return probes[next];
+    }
+
+    /**
+     * Returns the next animal to act on, cycling through the sampled animals.
+     */
+    private Animal nextAnimal() {
+        next = (next + 1) % animals.length;
+        return animals[next];
+    }
+
+    /**
+     * Create an animal of one of the four species.
+     */
+    private Animal createAnimal(int species, Location location, Random rand) {
+        Gender gender = rand.nextBoolean() ? Gender.MALE : Gender.FEMALE;
+        return switch (species) {
+            case 0 -> new Wolf(true, location, gender, simulator);
+            case 1 -> new Bobcat(true, location, gender, simulator);
+            case 2 -> new Squirrel(true, location, gender, simulator);
+            default -> new Grouse(true, location, gender, simulator);
+        };
+    }
+}
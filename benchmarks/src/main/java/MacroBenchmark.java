@@ -0,0 +1,349 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs whole simulations headless, end to end, for the numbers the JMH micro-benchmarks cannot
+ * give: steps per second, allocation per step, garbage collection pauses and heap growth over long
+ * runs. Each scenario runs a fixed field, parameters and seed, so results are repeatable and can be
+ * compared between versions. A simulation that dies out is reset and carries on, so every scenario
+ * runs all of its steps; the number of resets is reported.
+ *
+ * A scenario is warmed up, then run in segments. Between segments the runner forces a full
+ * collection, outside the timed segments and left out of the GC totals, and records the live heap.
+ * If the live heap keeps growing along a straight line by more than {@value #LEAK_BYTES} bytes and
+ * more than {@value #LEAK_FRACTION} of where it started, faster than the number of entities grew,
+ * the scenario is flagged as a suspected leak.
+ *
+ * Usage, from the benchmarks module:
+ * <pre>
+ *   java -cp target/benchmarks.jar MacroBenchmark [--out results.csv] [--steps n] [scenario...]
+ *   java -cp target/benchmarks.jar MacroBenchmark compare baseline.csv results.csv
+ * </pre>
+ * Without scenario names every scenario but the soak runs. Results are written as CSV, one line
+ * per scenario, after comment lines describing the JVM.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+public class MacroBenchmark {
+    private static final long SEED = 2024; // The seed every scenario starts from.
+    private static final int SEGMENTS = 10; // The number of timed segments a scenario is split into.
+    private static final double WARMUP_FRACTION = 0.1; // The fraction of a scenario's steps run first, untimed.
+    private static final long LEAK_BYTES = 16L << 20; // The least live heap growth that can suggest a leak.
+    private static final double LEAK_FRACTION = 0.25; // The least relative live heap growth that can suggest a leak.
+    private static final double LEAK_FIT = 0.8; // How straight the growth must be (R squared) to suggest a leak.
+    private static final double REGRESSION = 0.1; // The relative change flagged when comparing results.
+
+    /**
+     * A fixed workload.
+     * @param name The name of the scenario.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to measure.
+     * @param parameters The parameters to simulate with.
+     * @param byDefault Whether it runs when no scenarios are named.
+     */
+    public record Scenario(String name, int depth, int width, long steps, SimulationParameters parameters, boolean byDefault) {}
+
+    /**
+     * What a scenario measured.
+     * @param scenario The scenario.
+     * @param steps The number of steps measured.
+     * @param resets The number of times the simulation died out and was reset.
+     * @param seconds The time the measured steps took.
+     * @param allocatedBytes The bytes allocated by every thread during the measured steps, or -1 if unknown.
+     * @param gcCount The number of collections during the measured steps.
+     * @param gcMillis The time collectors spent during the measured steps.
+     * @param liveHeap The live heap after each segment, in bytes.
+     * @param entities The number of living entities after each segment.
+     * @param leakSuspected Whether the live heap grew as a leak would.
+     */
+    public record Result(Scenario scenario, long steps, int resets, double seconds, long allocatedBytes,
+                         long gcCount, long gcMillis, long[] liveHeap, long[] entities, boolean leakSuspected) {
+        /**
+         * Returns the number of steps run each second.
+         * @return The step rate.
+         */
+        public double stepsPerSecond() {
+            return steps / seconds;
+        }
+
+        /**
+         * Returns the bytes allocated each step.
+         * @return The allocation rate, or -1 if unknown.
+         */
+        public double bytesPerStep() {
+            return allocatedBytes < 0 ? -1 : (double) allocatedBytes / steps;
+        }
+    }
+
+    /**
+     * Returns every scenario.
+     * @return The scenarios, in the order they run.
+     */
+    public static List<Scenario> scenarios() {
+        SimulationParameters defaults = SimulationParameters.defaults();
+        return List.of(
+                new Scenario("default", 80, 120, 2_000, defaults, true),
+                new Scenario("preyBoom", 80, 120, 2_000, creation(defaults, 0.001, 0.002, 0.15, 0.15, 0.2, 0.2), true),
+                new Scenario("predatorCrash", 80, 120, 2_000, creation(defaults, 0.05, 0.1, 0.02, 0.02, 0.08, 0.05), true),
+                new Scenario("sparse2000", 2000, 2000, 50, creation(defaults, 0.0005, 0.002, 0.0045, 0.005, 0.008, 0.005), true),
+                new Scenario("soak", 80, 120, 10_000_000, defaults, false));
+    }
+
+    /**
+     * Returns parameters with other creation probabilities.
+     */
+    private static SimulationParameters creation(SimulationParameters p, double wolf, double bobcat, double squirrel,
+                                                 double grouse, double seeds, double berries) {
+        return new SimulationParameters(wolf, bobcat, squirrel, grouse, seeds, berries, p.diseaseProbability(), p.species());
+    }
+
+    /**
+     * Run a scenario.
+     * @param scenario The scenario.
+     * @param steps The number of steps to measure, which overrides the scenario's if positive.
+     * @return What it measured.
+     */
+    public static Result run(Scenario scenario, long steps) {
+        steps = steps > 0 ? steps : scenario.steps();
+        try (Simulator simulator = new Simulator(scenario.depth(), scenario.width(), true, SEED,
+                new Time(8, 0, 0, 10), scenario.parameters())) {
+            return measure(scenario, steps, simulator);
+        }
+    }
+
+    /**
+     * Measure a scenario's simulation.
+     */
+    private static Result measure(Scenario scenario, long steps, Simulator simulator) {
+        com.sun.management.ThreadMXBean allocation = StepProfiler.allocationCounter();
+        int[] resets = new int[1];
+
+        advance(simulator, Math.max(1, (long) (steps * WARMUP_FRACTION)), resets);
+        resets[0] = 0;
+        long[] liveHeap = new long[SEGMENTS + 1], entities = new long[SEGMENTS + 1];
+        liveHeap[0] = liveHeap();
+        entities[0] = entities(simulator);
+
+        long nanos = 0, allocated = 0, gcCount = 0, gcMillis = 0, done = 0;
+        for (int segment = 1; segment <= SEGMENTS; segment++) {
+            long length = steps * segment / SEGMENTS - done;
+            long[] gcBefore = gcTotals();
+            long allocatedBefore = allocation != null ? allocation.getTotalThreadAllocatedBytes() : 0;
+            long start = System.nanoTime();
+            advance(simulator, length, resets);
+            nanos += System.nanoTime() - start;
+            allocated += allocation != null ? allocation.getTotalThreadAllocatedBytes() - allocatedBefore : 0;
+            long[] gcAfter = gcTotals();
+            gcCount += gcAfter[0] - gcBefore[0];
+            gcMillis += gcAfter[1] - gcBefore[1];
+            done += length;
+            liveHeap[segment] = liveHeap(); // Forces a collection, after the segment's GC totals were taken.
+            entities[segment] = entities(simulator);
+        }
+        return new Result(scenario, steps, resets[0], nanos / 1e9, allocation != null ? allocated : -1,
+                gcCount, gcMillis, liveHeap, entities, leakSuspected(liveHeap, entities));
+    }
+
+    /**
+     * Run a simulation for a number of steps, resetting it whenever it dies out.
+     */
+    private static void advance(Simulator simulator, long steps, int[] resets) {
+        for (long n = 0; n < steps; n++) {
+            if (!simulator.getField().isViable()) {
+                simulator.reset();
+                resets[0]++;
+            }
+            simulator.simulateOneStep();
+        }
+    }
+
+    /**
+     * Returns the number of living entities, animals and plants, in a simulation.
+     */
+    private static long entities(Simulator simulator) {
+        long total = 0;
+        for (int population : simulator.getField().getPopulations()) {
+            total += population;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the collections so far and the time they took in milliseconds, over every collector.
+     */
+    private static long[] gcTotals() {
+        long count = 0, millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[] {count, millis};
+    }
+
+    /**
+     * Collect garbage and return the heap still in use.
+     */
+    private static long liveHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Returns whether the live heap grew steadily, by more than the thresholds, and by a larger
+     * fraction than the number of entities did.
+     */
+    static boolean leakSuspected(long[] liveHeap, long[] entities) {
+        int n = liveHeap.length;
+        double meanX = (n - 1) / 2.0, meanY = 0;
+        for (long bytes : liveHeap) {
+            meanY += bytes / (double) n;
+        }
+        double sxy = 0, sxx = 0, syy = 0;
+        for (int i = 0; i < n; i++) {
+            sxy += (i - meanX) * (liveHeap[i] - meanY);
+            sxx += (i - meanX) * (i - meanX);
+            syy += (liveHeap[i] - meanY) * (liveHeap[i] - meanY);
+        }
+        if (syy == 0) {
+            return false;
+        }
+        double slope = sxy / sxx, fit = sxy * sxy / (sxx * syy);
+        double growth = slope * (n - 1); // The growth along the fitted line over the whole run.
+        double heapRatio = growth / Math.max(1, liveHeap[0]);
+        double entityRatio = (double) (entities[n - 1] - entities[0]) / Math.max(1, entities[0]);
+        return growth > LEAK_BYTES && heapRatio > LEAK_FRACTION && fit >= LEAK_FIT && heapRatio > entityRatio + LEAK_FRACTION;
+    }
+
+    /**
+     * Write results as CSV, after comment lines describing the JVM and machine.
+     * @param results The results.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(List<Result> results, Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("# " + Instant.now() + " java " + System.getProperty("java.version") + " on "
+                    + Runtime.getRuntime().availableProcessors() + " processors, max heap "
+                    + (Runtime.getRuntime().maxMemory() >> 20) + " MB");
+            out.println("scenario,depth,width,steps,resets,seconds,steps_per_second,mb_allocated_per_step,"
+                    + "gc_count,gc_millis,live_heap_start_mb,live_heap_end_mb,entities_start,entities_end,leak_suspected");
+            for (Result r : results) {
+                int last = r.liveHeap().length - 1;
+                out.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.3f,%.2f,%.4f,%d,%d,%.2f,%.2f,%d,%d,%b",
+                        r.scenario().name(), r.scenario().depth(), r.scenario().width(), r.steps(), r.resets(),
+                        r.seconds(), r.stepsPerSecond(), r.bytesPerStep() / (1 << 20), r.gcCount(), r.gcMillis(),
+                        r.liveHeap()[0] / 1048576.0, r.liveHeap()[last] / 1048576.0, r.entities()[0], r.entities()[last],
+                        r.leakSuspected()));
+            }
+        }
+    }
+
+    /**
+     * Read a results file, by scenario.
+     */
+    private static Map<String, Map<String, String>> read(Path path) throws IOException {
+        Map<String, Map<String, String>> rows = new LinkedHashMap<>();
+        String[] header = null;
+        for (String line : Files.readAllLines(path)) {
+            if (line.startsWith("#") || line.isBlank()) continue;
+            String[] fields = line.split(",");
+            if (header == null) {
+                header = fields;
+                continue;
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < Math.min(header.length, fields.length); i++) {
+                row.put(header[i], fields[i]);
+            }
+            rows.put(fields[0], row);
+        }
+        return rows;
+    }
+
+    /**
+     * Print how the scenarios in two results files compare, flagging changes for the worse of
+     * more than {@value #REGRESSION} of the baseline.
+     * @param baseline The results to compare against.
+     * @param current The new results.
+     * @return Whether any scenario got worse.
+     * @throws IOException If a file cannot be read.
+     */
+    public static boolean compare(Path baseline, Path current) throws IOException {
+        Map<String, Map<String, String>> before = read(baseline), after = read(current);
+        String[][] metrics = {{"steps_per_second", "+"}, {"mb_allocated_per_step", "-"}, {"gc_millis", "-"}, {"live_heap_end_mb", "-"}};
+        boolean worse = false;
+        System.out.printf(Locale.ROOT, "%-14s %-22s %14s %14s %9s%n", "scenario", "metric", "baseline", "current", "change");
+        for (Map.Entry<String, Map<String, String>> entry : after.entrySet()) {
+            Map<String, String> old = before.get(entry.getKey());
+            if (old == null) continue;
+            for (String[] metric : metrics) {
+                double a = Double.parseDouble(old.get(metric[0])), b = Double.parseDouble(entry.getValue().get(metric[0]));
+                double change = a == 0 ? 0 : (b - a) / Math.abs(a);
+                boolean regressed = metric[1].equals("+") ? change < -REGRESSION : change > REGRESSION;
+                worse |= regressed;
+                System.out.printf(Locale.ROOT, "%-14s %-22s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), metric[0], a, b,
+                        change * 100, regressed ? "  WORSE" : "");
+            }
+            if (Boolean.parseBoolean(entry.getValue().get("leak_suspected"))) {
+                System.out.println(entry.getKey() + ": leak suspected");
+                worse = true;
+            }
+        }
+        return worse;
+    }
+
+    /**
+     * Run scenarios, or compare two results files, from the command line.
+     * @param args Scenario names and options, or "compare" and two results files.
+     * @throws IOException If a results file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("compare")) {
+            if (args.length != 3) {
+                System.err.println("Usage: MacroBenchmark compare <baseline.csv> <results.csv>");
+                System.exit(2);
+            }
+            System.exit(compare(Path.of(args[1]), Path.of(args[2])) ? 1 : 0);
+        }
+        Path out = Path.of("macro-results.csv");
+        long steps = 0;
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Path.of(args[++i]);
+                case "--steps" -> steps = Long.parseLong(args[++i]);
+                default -> names.add(args[i]);
+            }
+        }
+        List<Result> results = new ArrayList<>();
+        for (Scenario scenario : scenarios()) {
+            if (names.isEmpty() ? !scenario.byDefault() : !names.contains(scenario.name())) continue;
+            Result r = run(scenario, steps);
+            System.out.printf(Locale.ROOT, "%-14s %9d steps %8.1f steps/s %9.3f MB/step  gc %d in %d ms  live heap %.1f -> %.1f MB  %d resets%s%n",
+                    scenario.name(), r.steps(), r.stepsPerSecond(), r.bytesPerStep() / (1 << 20), r.gcCount(), r.gcMillis(),
+                    r.liveHeap()[0] / 1048576.0, r.liveHeap()[SEGMENTS] / 1048576.0, r.resets(),
+                    r.leakSuspected() ? "  LEAK SUSPECTED" : "");
+            results.add(r);
+        }
+        if (results.isEmpty()) {
+            System.err.println("No such scenario: " + names);
+            System.exit(2);
+        }
+        write(results, out);
+        System.out.println("Results written to " + out);
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.IntSupplier;
+
+/**
+ * Reaches the default-package {@code BenchmarkFixture} from the benchmark package. Java does not
+ * allow a named package to import classes of the default package, so the fixture is looked up
+ * reflectively, once per trial or iteration, and its operations are then called directly.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Build a field and return one of its hot paths as an operation.
+     * @param operation The name of the hot path to measure.
+     * @param size The field size, written as "width x depth".
+     * @param density The fraction of cells holding an animal, and separately a plant.
+     * @return The operation to measure.
+     */
+    static IntSupplier operation(String operation, String size, double density) {
+        try {
+            Method factory = Class.forName("BenchmarkFixture")
+                    .getMethod("operation", String.class, String.class, double.class);
+            return (IntSupplier) factory.invoke(null, operation, size, density);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not build the " + operation + " fixture", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkFixture is missing from the benchmark jar", e);
+        }
+    }
+
+    /**
+     * Close the simulation behind an operation, once it is no longer measured.
+     * @param operation The operation, or null if it was never built.
+     */
+    static void close(IntSupplier operation) {
+        if (operation instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not close the fixture", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the hot paths of the simulation, each run at several grid sizes and
+ * densities. Every benchmark method runs in its own forked JVM with a freshly built field.
+ * Benchmarks that only read the field share one field for the whole trial. Benchmarks that change
+ * it (eating, births, plant growth and whole steps) rebuild the field from the same seed before
+ * every iteration and time each iteration as a single shot, so every measurement starts from the
+ * same state rather than from wherever the earlier calls left the field. Eating and births are
+ * timed in batches of {@link #BATCH} calls, and reported per call.
+ *
+ * @author Mahdi Razzaque
+ * @version 19.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class HotPathBenchmarks {
+    static final int BATCH = 256; // The calls in each timed batch of eating or births, few enough to leave the field much as built.
+
+    /**
+     * The field being measured: its size (width x depth) and the fraction of cells holding an
+     * animal, and separately a plant.
+     */
+    @State(Scope.Thread)
+    public static class Grid {
+        @Param({"120x80", "500x500", "1000x1000", "4000x4000"})
+        public String size;
+
+        @Param({"0.05", "0.2", "0.5"})
+        public double density;
+    }
+
+    /**
+     * Holds the operation for one benchmark method that only reads the field, built on a fresh
+     * field once per trial.
+     */
+    @State(Scope.Thread)
+    public abstract static class Operation {
+        IntSupplier op;
+
+        abstract String name();
+
+        @Setup(Level.Trial)
+        public void setUp(Grid grid) {
+            op = Fixtures.operation(name(), grid.size, grid.density);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Fixtures.close(op);
+        }
+    }
+
+    /**
+     * Holds the operation for one benchmark method that changes the field, built on a fresh
+     * field before every iteration.
+     */
+    @State(Scope.Thread)
+    public abstract static class MutatingOperation {
+        IntSupplier op;
+
+        abstract String name();
+
+        @Setup(Level.Iteration)
+        public void setUp(Grid grid) {
+            op = Fixtures.operation(name(), grid.size, grid.density);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            Fixtures.close(op);
+        }
+
+        /**
+         * Run the operation a number of times.
+         */
+        int run(int times) {
+            int result = 0;
+            for (int i = 0; i < times; i++) {
+                result += op.getAsInt();
+            }
+            return result;
+        }
+    }
+
+    @State(Scope.Thread) public static class AdjacentLocations extends Operation { String name() { return "getAdjacentLocations"; } }
+    @State(Scope.Thread) public static class FreeAdjacentLocations extends Operation { String name() { return "getFreeAdjacentLocations"; } }
+    @State(Scope.Thread) public static class FindFood extends MutatingOperation { String name() { return "findFood"; } }
+    @State(Scope.Thread) public static class CanBreed extends Operation { String name() { return "canBreed"; } }
+    @State(Scope.Thread) public static class GiveBirth extends MutatingOperation { String name() { return "giveBirth"; } }
+    @State(Scope.Thread) public static class PlantLayerAct extends MutatingOperation { String name() { return "plantLayerAct"; } }
+    @State(Scope.Thread) public static class FieldStatsCount extends Operation { String name() { return "fieldStats"; } }
+    @State(Scope.Thread) public static class SimulateOneStep extends MutatingOperation { String name() { return "simulateOneStep"; } }
+
+    @Benchmark
+    public int getAdjacentLocations(AdjacentLocations state) {
+        return state.op.getAsInt();
+    }
+
+    @Benchmark
+    public int getFreeAdjacentLocations(FreeAdjacentLocations state) {
+        return state.op.getAsInt();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OperationsPerInvocation(BATCH)
+    public int findFood(FindFood state) {
+        return state.run(BATCH);
+    }
+
+    @Benchmark
+    public int canBreed(CanBreed state) {
+        return state.op.getAsInt();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OperationsPerInvocation(BATCH)
+    public int giveBirth(GiveBirth state) {
+        return state.run(BATCH);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int plantLayerAct(PlantLayerAct state) {
+        return state.op.getAsInt();
+    }
+
+    @Benchmark
+    public int fieldStats(FieldStatsCount state) {
+        return state.op.getAsInt();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int simulateOneStep(SimulateOneStep state) {
+        return state.op.getAsInt();
+    }
+}